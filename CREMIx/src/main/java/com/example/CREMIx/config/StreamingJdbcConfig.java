@@ -0,0 +1,33 @@
+package com.example.CREMIx.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Large reads stream their rows from MySQL one at a time instead of buffering the whole result.
+ * Connector/J streams only a forward-only, read-only result set whose fetch size is
+ * Integer.MIN_VALUE, and the connection can run nothing else until it has been read to the end.
+ * Batched cursor fetches would need useCursorFetch=true on the connection URL, which switches every
+ * statement in the application to server-side prepared statements, so it is not used.
+ */
+@Configuration
+public class StreamingJdbcConfig {
+
+    public static final String STREAMING_JDBC_TEMPLATE = "streamingJdbcTemplate";
+
+    // For @QueryHint fetch sizes on streamed repository queries
+    public static final String STREAMING_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    /**
+     * Same connection pool as the default JdbcTemplate, which stays the one injected without a qualifier
+     */
+    @Bean(name = STREAMING_JDBC_TEMPLATE, defaultCandidate = false)
+    public JdbcTemplate streamingJdbcTemplate(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        return jdbcTemplate;
+    }
+}
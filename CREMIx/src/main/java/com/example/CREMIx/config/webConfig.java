@@ -20,7 +20,7 @@ public class webConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .exposedHeaders("Access-Control-Allow-Origin", "Access-Control-Allow-Methods",
                                "Access-Control-Allow-Headers", "Access-Control-Max-Age", 
-                               "Access-Control-Request-Headers", "Access-Control-Request-Method")
+                               "Access-Control-Request-Headers", "Access-Control-Request-Method", "ETag")
                 .allowCredentials(true)
                 .maxAge(3600); // 1 hour
     }
@@ -51,6 +51,7 @@ public class webConfig implements WebMvcConfigurer {
         config.addExposedHeader("Access-Control-Allow-Methods");
         config.addExposedHeader("Access-Control-Allow-Headers");
         config.addExposedHeader("Access-Control-Max-Age");
+        config.addExposedHeader("ETag");
         
         // Allow credentials like cookies, authorization headers
         config.setAllowCredentials(true);
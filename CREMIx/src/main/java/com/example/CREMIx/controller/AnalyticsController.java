@@ -0,0 +1,54 @@
+package com.example.CREMIx.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.CREMIx.dto.FunnelDTO;
+import com.example.CREMIx.model.Ticket;
+import com.example.CREMIx.service.FunnelAnalyticsService;
+import com.example.CREMIx.service.TicketAnalyticsService;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AnalyticsController {
+
+    @Autowired
+    private FunnelAnalyticsService funnelAnalyticsService;
+
+    @Autowired
+    private TicketAnalyticsService ticketAnalyticsService;
+
+    /**
+     * Opportunity funnel: stage entries, conversions and dwell times, and velocity per employee
+     */
+    @GetMapping("/funnel")
+    public FunnelDTO getFunnel() {
+        return funnelAnalyticsService.getFunnel();
+    }
+
+    /**
+     * Time to resolve and first response percentiles of tickets resolved in a range of days,
+     * optionally for one employee or one priority
+     */
+    @GetMapping("/tickets")
+    public ResponseEntity<?> getTicketAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam(required = false) Ticket.TicketPriority priority) {
+        try {
+            return ResponseEntity.ok(ticketAnalyticsService.getAnalytics(from, to, employeeId, priority));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
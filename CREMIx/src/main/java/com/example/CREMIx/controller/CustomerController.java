@@ -3,6 +3,8 @@ package com.example.CREMIx.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -12,12 +14,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.CREMIx.dto.BulkStatusRequestDTO;
+import com.example.CREMIx.dto.CustomerBulkResultDTO;
 import com.example.CREMIx.dto.CustomerDTO;
+import com.example.CREMIx.dto.CustomerOverviewDTO;
 import com.example.CREMIx.dto.PasswordUpdateDTO;
 import com.example.CREMIx.dto.CustomerRegistrationDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.PreconditionFailedException;
+import com.example.CREMIx.service.BulkStatusService;
+import com.example.CREMIx.service.CustomerOverviewService;
 import com.example.CREMIx.service.CustomerService;
 
 @RestController
@@ -27,23 +39,74 @@ public class CustomerController {
 
     @Autowired
     private CustomerService customerService;
+
+    @Autowired
+    private CustomerOverviewService customerOverviewService;
+
+    @Autowired
+    private BulkStatusService bulkStatusService;
     
+    /**
+     * Get all active customers, optionally trimmed to a comma separated list of fields
+     */
     @GetMapping
-    public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
-        List<CustomerDTO> customers = customerService.getAllCustomers();
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<?> getAllCustomers(@RequestParam(required = false) String fields, WebRequest request) {
+        String etag = customerService.getCustomersETag(fields);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (fields == null) {
+            List<CustomerDTO> customers = customerService.getAllCustomers();
+            return ResponseEntity.ok().eTag(etag).body(customers);
+        }
+        try {
+            return ResponseEntity.ok().eTag(etag).body(customerService.getAllCustomerFields(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
+    /**
+     * Search active customers by name, email, phone, location or website, best matches first.
+     * Tokens match as prefixes and tolerate small typos.
+     */
+    @GetMapping("/search")
+    public List<CustomerDTO> searchCustomers(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return customerService.searchCustomers(q, limit);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<CustomerDTO> getCustomerById(@PathVariable Long id) {
+    public ResponseEntity<CustomerDTO> getCustomerById(@PathVariable Long id, WebRequest request) {
+        var etag = customerService.getCustomerETag(id);
+        if (etag.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Answered from the version column alone, before the customer is loaded and mapped
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
         try {
             CustomerDTO customer = customerService.getCustomerById(id);
-            return ResponseEntity.ok(customer);
+            return ResponseEntity.ok().eTag(etag.get()).body(customer);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    /**
+     * The customer with their newest leads, opportunities, quotations, invoices, tickets, calls and notes
+     * @param limit Maximum records per section
+     */
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<CustomerOverviewDTO> getCustomerOverview(@PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(customerOverviewService.getCustomerOverview(id, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/type/{type}")
     public ResponseEntity<List<CustomerDTO>> getCustomersByType(@PathVariable String type) {
         try {
@@ -72,11 +135,59 @@ public class CustomerController {
         }
     }
     
+    /**
+     * Create or update customers in bulk, matched by email, for ERP syncs
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<CustomerBulkResultDTO> bulkUpsertCustomers(@RequestBody List<CustomerDTO> customers) {
+        return ResponseEntity.ok(customerService.bulkUpsertCustomers(customers));
+    }
+    
+    /**
+     * Soft delete many customers at once, selected by ids or filter
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> bulkDelete(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, ActivityStatus.DELETED);
+    }
+
+    /**
+     * Restore many customers from the recycle bin at once
+     */
+    @PostMapping("/bulk-restore")
+    public ResponseEntity<?> bulkRestore(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, ActivityStatus.ACTIVE);
+    }
+
+    /**
+     * Move many customers to the status given in the request body
+     */
+    @PostMapping("/bulk-status")
+    public ResponseEntity<?> bulkStatus(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, request.getStatus());
+    }
+
+    private ResponseEntity<?> bulkStatus(BulkStatusRequestDTO request, ActivityStatus status) {
+        try {
+            return ResponseEntity.ok(bulkStatusService.updateCustomerStatus(request, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<CustomerDTO> updateCustomer(@PathVariable Long id, @RequestBody CustomerDTO customerDTO) {
+    public ResponseEntity<CustomerDTO> updateCustomer(@PathVariable Long id, @RequestBody CustomerDTO customerDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            CustomerDTO updatedCustomer = customerService.updateCustomer(id, customerDTO);
-            return ResponseEntity.ok(updatedCustomer);
+            CustomerDTO updatedCustomer = customerService.updateCustomer(id, customerDTO, ifMatch);
+            // The new tag, so the client can make its next conditional update without reading again
+            var response = ResponseEntity.ok();
+            customerService.getCustomerETag(id).ifPresent(response::eTag);
+            return response.body(updatedCustomer);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -0,0 +1,60 @@
+package com.example.CREMIx.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.CREMIx.dto.DuplicateClusterDTO;
+import com.example.CREMIx.service.CustomerDedupService;
+
+/**
+ * Review queue of likely duplicate customers found by the background scan
+ */
+@RestController
+@RequestMapping("/api/customers/duplicates")
+@CrossOrigin(origins = "http://localhost:5173")
+public class CustomerDuplicateController {
+
+    @Autowired
+    private CustomerDedupService customerDedupService;
+
+    /**
+     * Duplicate clusters from the last scan, best score first
+     */
+    @GetMapping
+    public List<DuplicateClusterDTO> getDuplicateClusters() {
+        return customerDedupService.getDuplicateClusters();
+    }
+
+    /**
+     * Run a scan now instead of waiting for the scheduled one
+     */
+    @PostMapping("/scan")
+    public ResponseEntity<String> scan() {
+        if (!customerDedupService.requestScan()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A duplicate scan is already running");
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * The customers in this cluster are different people; stop suggesting them
+     */
+    @PostMapping("/{clusterId}/dismiss")
+    public ResponseEntity<Void> dismiss(@PathVariable String clusterId) {
+        try {
+            customerDedupService.dismissCluster(clusterId);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
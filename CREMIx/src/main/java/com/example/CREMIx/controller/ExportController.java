@@ -0,0 +1,151 @@
+package com.example.CREMIx.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.CREMIx.misc.ExportFormat;
+import com.example.CREMIx.service.ExportService;
+
+/**
+ * Full-table exports for BI. Rows are streamed from a database cursor, so memory use
+ * does not grow with the size of the table.
+ */
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "http://localhost:5173")
+public class ExportController {
+
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private ExportService exportService;
+
+    @FunctionalInterface
+    private interface ExportTask {
+        long write(ExportFormat format, OutputStream out) throws IOException;
+    }
+
+    @GetMapping("/customers")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream("customers", format, gzip, acceptEncoding, exportService::exportCustomers);
+    }
+
+    @GetMapping("/leads")
+    public ResponseEntity<StreamingResponseBody> exportLeads(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream("leads", format, gzip, acceptEncoding, exportService::exportLeads);
+    }
+
+    @GetMapping("/call-logs")
+    public ResponseEntity<StreamingResponseBody> exportCallLogs(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream("call-logs", format, gzip, acceptEncoding, exportService::exportCallLogs);
+    }
+
+    @GetMapping("/tickets")
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream("tickets", format, gzip, acceptEncoding, exportService::exportTickets);
+    }
+
+    @GetMapping("/invoices")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream("invoices", format, gzip, acceptEncoding, exportService::exportInvoices);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String dataset, String formatName, boolean gzip,
+            String acceptEncoding, ExportTask task) {
+        ExportFormat format;
+        try {
+            format = ExportFormat.fromString(formatName);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Compress when asked explicitly or when the client advertises gzip support
+        boolean compress = gzip || acceptsGzip(acceptEncoding);
+        String fileName = dataset + "-" + LocalDate.now().format(FILE_DATE) + "." + format.getExtension();
+
+        StreamingResponseBody body = out -> {
+            if (compress) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                task.write(format, gzipOut);
+                gzipOut.finish();
+            } else {
+                task.write(format, out);
+            }
+        };
+
+        var response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compress) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip, honouring q-values: "gzip;q=0" refuses it,
+     * and "*" covers it unless gzip is listed on its own
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] params = entry.split(";");
+            String coding = params[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+}
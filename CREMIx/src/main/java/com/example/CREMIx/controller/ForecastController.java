@@ -0,0 +1,61 @@
+package com.example.CREMIx.controller;
+
+import java.time.YearMonth;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.CREMIx.service.ForecastService;
+
+/**
+ * Weighted pipeline forecast. Months are given as yyyy-MM.
+ */
+@RestController
+@RequestMapping("/api/forecast")
+@CrossOrigin(origins = "http://localhost:5173")
+public class ForecastController {
+
+    @Autowired
+    private ForecastService forecastService;
+
+    /**
+     * Forecast per employee and expected close month, optionally for one employee
+     */
+    @GetMapping
+    public ResponseEntity<?> getForecast(@RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to, @RequestParam(required = false) Long employeeId) {
+        try {
+            return ResponseEntity.ok(forecastService.getForecast(from, to, employeeId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Forecast per expected close month across all employees
+     */
+    @GetMapping("/monthly")
+    public ResponseEntity<?> getMonthlyTotals(@RequestParam(required = false) YearMonth from,
+            @RequestParam(required = false) YearMonth to) {
+        try {
+            return ResponseEntity.ok(forecastService.getMonthlyTotals(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Recount the forecast from the database in the background
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        forecastService.requestRebuild();
+        return ResponseEntity.accepted().build();
+    }
+}
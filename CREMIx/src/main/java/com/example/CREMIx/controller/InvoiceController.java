@@ -3,13 +3,16 @@ package com.example.CREMIx.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.example.CREMIx.dto.InvoiceDTO;
 import com.example.CREMIx.service.InvoiceService;
@@ -22,14 +25,35 @@ public class InvoiceController {
     @Autowired
     private InvoiceService invoiceService;
     
+    /**
+     * Get all invoices, optionally trimmed to a comma separated list of fields
+     */
     @GetMapping
-    public ResponseEntity<List<InvoiceDTO>> getAllInvoices() {
-        return ResponseEntity.ok(invoiceService.getAllInvoices());
+    public ResponseEntity<?> getAllInvoices(@RequestParam(required = false) String fields, WebRequest request) {
+        String etag = invoiceService.getInvoicesETag(fields);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (fields == null) {
+            return ResponseEntity.ok().eTag(etag).body(invoiceService.getAllInvoices());
+        }
+        try {
+            return ResponseEntity.ok().eTag(etag).body(invoiceService.getAllInvoiceFields(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<InvoiceDTO> getInvoiceById(@PathVariable Long id) {
-        return ResponseEntity.ok(invoiceService.getInvoiceById(id));
+    public ResponseEntity<InvoiceDTO> getInvoiceById(@PathVariable Long id, WebRequest request) {
+        var etag = invoiceService.getInvoiceETag(id);
+        if (etag.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
+        return ResponseEntity.ok().eTag(etag.get()).body(invoiceService.getInvoiceById(id));
     }
     
     @GetMapping("/customer/{customerId}")
@@ -1,8 +1,14 @@
 package com.example.CREMIx.controller;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,11 +17,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import com.example.CREMIx.dto.BulkStatusRequestDTO;
 import com.example.CREMIx.dto.LeadDTO;
-import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.dto.LeadImportStatusDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.ExportFormat;
+import com.example.CREMIx.service.BulkStatusService;
+import com.example.CREMIx.service.LeadAssignmentRouter;
+import com.example.CREMIx.service.LeadImportService;
+import com.example.CREMIx.service.LeadScoringService;
 import com.example.CREMIx.service.LeadService;
 
 @RestController
@@ -26,14 +43,47 @@ public class LeadController {
     @Autowired
     private LeadService leadService;
 
+    @Autowired
+    private LeadImportService leadImportService;
+
+    @Autowired
+    private BulkStatusService bulkStatusService;
+
+    @Autowired
+    private LeadScoringService leadScoringService;
+
+    @Autowired
+    private LeadAssignmentRouter leadAssignmentRouter;
+
+    /**
+     * Get all active leads, optionally trimmed to a comma separated list of fields
+     */
     @GetMapping
-    public List<LeadDTO> getAllLeadDetails() {
-        return leadService.getAllLeadDetails();
+    public ResponseEntity<?> getAllLeadDetails(@RequestParam(required = false) String fields, WebRequest request) {
+        String etag = leadService.getLeadsETag(fields);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (fields == null) {
+            return ResponseEntity.ok().eTag(etag).body(leadService.getAllLeadDetails());
+        }
+        try {
+            return ResponseEntity.ok().eTag(etag).body(leadService.getAllLeadFields(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     @GetMapping("/{id}")
-    public LeadDTO getLeadDetailsById(@PathVariable Long id) {
-        return leadService.getLeadDetailsById(id);
+    public ResponseEntity<LeadDTO> getLeadDetailsById(@PathVariable Long id, WebRequest request) {
+        var etag = leadService.getLeadETag(id);
+        if (etag.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
+        return ResponseEntity.ok().eTag(etag.get()).body(leadService.getLeadDetailsById(id));
     }
 
     @GetMapping("/recycle-bin")
@@ -41,9 +91,35 @@ public class LeadController {
         return leadService.getDeletedLeadDetails();
     }
 
+    /**
+     * Active leads ranked by score, optionally for one rep. For the next page pass the
+     * score and id of the last lead received as afterScore and afterId.
+     */
+    @GetMapping("/worklist")
+    public ResponseEntity<?> getWorklist(@RequestParam(required = false) Long employeeId,
+            @RequestParam(required = false) Double afterScore, @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(leadScoringService.getWorklist(employeeId, afterScore, afterId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute every active lead's score now instead of waiting for the nightly run
+     */
+    @PostMapping("/scores/recompute")
+    public ResponseEntity<String> recomputeScores() {
+        if (!leadScoringService.requestRecompute()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A score recompute is already running");
+        }
+        return ResponseEntity.accepted().build();
+    }
+
     @GetMapping("/employee/{employeeId}")
-public ResponseEntity<List<Lead>> getLeadsByEmployeeId(@PathVariable Long employeeId) {
-    List<Lead> leads = leadService.findByEmployeeId(employeeId);
+public ResponseEntity<List<LeadDTO>> getLeadsByEmployeeId(@PathVariable Long employeeId) {
+    List<LeadDTO> leads = leadService.findByEmployeeId(employeeId);
     return ResponseEntity.ok(leads);
 }
 
@@ -52,9 +128,111 @@ public ResponseEntity<List<Lead>> getLeadsByEmployeeId(@PathVariable Long employ
         return leadService.enterLeadDetails(leadDetails);
     }
 
+    /**
+     * Create leads and assign each to an employee chosen by current workload, ignoring assignedTo.
+     * The policy defaults to leads.assignment.policy.
+     */
+    @PostMapping("/auto-assign")
+    public ResponseEntity<?> autoAssignLeads(@RequestBody List<LeadDTO> leads,
+            @RequestParam(required = false) String policy) {
+        LeadAssignmentRouter.Policy routing;
+        try {
+            routing = policy != null ? LeadAssignmentRouter.Policy.valueOf(policy.toUpperCase())
+                    : leadAssignmentRouter.getDefaultPolicy();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown assignment policy: " + policy);
+        }
+        List<LeadDTO> created = new ArrayList<>();
+        for (int i = 0; i < leads.size(); i++) {
+            var employee = leadAssignmentRouter.pick(routing);
+            if (employee.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("No employees to assign leads to");
+            }
+            LeadDTO lead = leads.get(i);
+            lead.setAssignedTo(employee.get().name());
+            try {
+                created.add(leadService.enterLeadDetails(lead));
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest()
+                        .body("Lead " + i + " could not be created (" + created.size() + " created before it): " + e.getMessage());
+            }
+        }
+        return ResponseEntity.ok(created);
+    }
+
     @PutMapping("/{id}")
-    public LeadDTO updateLeadDetails(@PathVariable Long id, @RequestBody LeadDTO leadDetails) {
-        return leadService.updateLeadDetails(id, leadDetails);
+    public ResponseEntity<LeadDTO> updateLeadDetails(@PathVariable Long id, @RequestBody LeadDTO leadDetails,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        LeadDTO updated = leadService.updateLeadDetails(id, leadDetails, ifMatch);
+        var response = ResponseEntity.ok();
+        leadService.getLeadETag(id).ifPresent(response::eTag);
+        return response.body(updated);
+    }
+
+    /**
+     * Start a bulk import from a CSV or NDJSON file whose columns are LeadDTO property names.
+     * Returns 202 with a job id; poll GET /api/leads/import/{jobId} for progress and row errors.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importLeads(@RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("The uploaded file is empty");
+        }
+        ExportFormat importFormat;
+        try {
+            importFormat = format != null ? ExportFormat.fromString(format)
+                    : ExportFormat.fromFileName(file.getOriginalFilename());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        try {
+            LeadImportStatusDTO status = leadImportService.submit(file, importFormat);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/leads/import/" + status.getJobId()))
+                    .body(status);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not store upload: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<LeadImportStatusDTO> getImportStatus(@PathVariable String jobId) {
+        return leadImportService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Soft delete many leads at once, selected by ids or filter
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> bulkDelete(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, ActivityStatus.DELETED);
+    }
+
+    /**
+     * Restore many leads from the recycle bin at once
+     */
+    @PostMapping("/bulk-restore")
+    public ResponseEntity<?> bulkRestore(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, ActivityStatus.ACTIVE);
+    }
+
+    /**
+     * Move many leads to the status given in the request body
+     */
+    @PostMapping("/bulk-status")
+    public ResponseEntity<?> bulkStatus(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, request.getStatus());
+    }
+
+    private ResponseEntity<?> bulkStatus(BulkStatusRequestDTO request, ActivityStatus status) {
+        try {
+            return ResponseEntity.ok(bulkStatusService.updateLeadStatus(request, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PutMapping("/restore/{id}")
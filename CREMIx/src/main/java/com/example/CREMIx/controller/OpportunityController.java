@@ -3,10 +3,18 @@ package com.example.CREMIx.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.CREMIx.dto.BulkStatusRequestDTO;
 import com.example.CREMIx.dto.OpportunityDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.service.BulkStatusService;
+import com.example.CREMIx.service.OpportunityBoardService;
 import com.example.CREMIx.service.OpportunityService;
 
 @RestController
@@ -15,13 +23,23 @@ import com.example.CREMIx.service.OpportunityService;
 public class OpportunityController {
     @Autowired
     private OpportunityService opportunityService;
+
+    @Autowired
+    private BulkStatusService bulkStatusService;
+
+    @Autowired
+    private OpportunityBoardService opportunityBoardService;
     
     /**
      * Get all active opportunities
      */
     @GetMapping
-    public List<OpportunityDTO> getAllActiveOpportunities() {
-        return opportunityService.getAllActiveOpportunities();
+    public ResponseEntity<List<OpportunityDTO>> getAllActiveOpportunities(WebRequest request) {
+        String etag = opportunityService.getOpportunitiesETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(opportunityService.getAllActiveOpportunities());
     }
 
 
@@ -34,12 +52,52 @@ public class OpportunityController {
     }
 
 
+    /**
+     * Board view: every stage with its count and first perStage cards, sorted by VALUE or RECENT
+     */
+    @GetMapping("/board")
+    public ResponseEntity<?> getBoard(@RequestParam(defaultValue = "20") int perStage,
+            @RequestParam(defaultValue = "VALUE") String sort, WebRequest request) {
+        try {
+            var boardSort = OpportunityBoardService.Sort.valueOf(sort.toUpperCase());
+            String etag = opportunityBoardService.getBoardETag(boardSort, perStage);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok().eTag(etag).body(opportunityBoardService.getBoard(boardSort, perStage));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * More cards of one board column; pass the column's nextCursor
+     */
+    @GetMapping("/board/{stage}")
+    public ResponseEntity<?> getBoardColumn(@PathVariable String stage,
+            @RequestParam(defaultValue = "VALUE") String sort, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(opportunityBoardService.getColumn(Opportunity.Stage.valueOf(stage.toUpperCase()),
+                    OpportunityBoardService.Sort.valueOf(sort.toUpperCase()), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Get opportunity by ID
      */
     @GetMapping("/{id}")
-    public OpportunityDTO getOpportunityById(@PathVariable Long id) {
-        return opportunityService.getOpportunityById(id);
+    public ResponseEntity<OpportunityDTO> getOpportunityById(@PathVariable Long id, WebRequest request) {
+        var etag = opportunityService.getOpportunityETag(id);
+        if (etag.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
+        return ResponseEntity.ok().eTag(etag.get()).body(opportunityService.getOpportunityById(id));
     }
     
     @GetMapping("/employee/{employeeId}")
@@ -58,10 +116,46 @@ public class OpportunityController {
      * Update an existing opportunity
      */
     @PutMapping("/{id}")
-    public OpportunityDTO updateOpportunity(@PathVariable Long id, @RequestBody OpportunityDTO opportunityDTO) {
-        return opportunityService.updateOpportunity(id, opportunityDTO);
+    public ResponseEntity<OpportunityDTO> updateOpportunity(@PathVariable Long id, @RequestBody OpportunityDTO opportunityDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        OpportunityDTO updated = opportunityService.updateOpportunity(id, opportunityDTO, ifMatch);
+        var response = ResponseEntity.ok();
+        opportunityService.getOpportunityETag(id).ifPresent(response::eTag);
+        return response.body(updated);
     }
     
+    /**
+     * Soft delete many opportunities at once, selected by ids or filter
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> bulkDelete(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, ActivityStatus.DELETED);
+    }
+
+    /**
+     * Restore many opportunities from the recycle bin at once
+     */
+    @PostMapping("/bulk-restore")
+    public ResponseEntity<?> bulkRestore(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, ActivityStatus.ACTIVE);
+    }
+
+    /**
+     * Move many opportunities to the status given in the request body
+     */
+    @PostMapping("/bulk-status")
+    public ResponseEntity<?> bulkStatus(@RequestBody BulkStatusRequestDTO request) {
+        return bulkStatus(request, request.getStatus());
+    }
+
+    private ResponseEntity<?> bulkStatus(BulkStatusRequestDTO request, ActivityStatus status) {
+        try {
+            return ResponseEntity.ok(bulkStatusService.updateOpportunityStatus(request, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Restore a deleted opportunity
      */
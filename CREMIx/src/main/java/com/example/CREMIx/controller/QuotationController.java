@@ -3,13 +3,18 @@ package com.example.CREMIx.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.example.CREMIx.dto.QuotationDTO;
+import com.example.CREMIx.misc.PreconditionFailedException;
 import com.example.CREMIx.service.QuotationService;
 
+import jakarta.persistence.EntityNotFoundException;
+
 @RestController
 @RequestMapping("/api/quotations")
 public class QuotationController {
@@ -18,8 +23,14 @@ public class QuotationController {
     private QuotationService quotationService;
 
     @GetMapping("/opportunity/{opportunityId}")
-    public ResponseEntity<?> getQuotationByOpportunity(@PathVariable Long opportunityId) {
-        return ResponseEntity.ok(quotationService.getQuotationByOpportunity(opportunityId));
+    public ResponseEntity<?> getQuotationByOpportunity(@PathVariable Long opportunityId, WebRequest request) {
+        var etag = quotationService.getQuotationETagByOpportunity(opportunityId);
+        if (etag.isPresent() && request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
+        var response = ResponseEntity.ok();
+        etag.ifPresent(response::eTag);
+        return response.body(quotationService.getQuotationByOpportunity(opportunityId));
     }
 
     @PostMapping("/opportunity/{opportunityId}")
@@ -57,13 +68,19 @@ public class QuotationController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateQuotation(
             @PathVariable Long id,
-            @RequestBody QuotationDTO quotationDTO) {
+            @RequestBody QuotationDTO quotationDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
             System.out.println("QuotationDTO: " + quotationDTO);
-            return ResponseEntity.ok(quotationService.updateQuotation(id, quotationDTO));
+            QuotationDTO updated = quotationService.updateQuotation(id, quotationDTO, ifMatch);
+            var response = ResponseEntity.ok();
+            quotationService.getQuotationETag(id).ifPresent(response::eTag);
+            return response.body(updated);
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (RuntimeException e) {
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -79,8 +96,9 @@ public class QuotationController {
             QuotationDTO updatedQuotation = quotationService.sendQuotation(id);
             return ResponseEntity.ok(updatedQuotation);
         } catch (IllegalStateException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (RuntimeException e) {
+            // The quotation has moved to a stage this transition cannot start from
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -96,8 +114,9 @@ public class QuotationController {
             QuotationDTO updatedQuotation = quotationService.acceptQuotation(id);
             return ResponseEntity.ok(updatedQuotation);
         } catch (IllegalStateException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (RuntimeException e) {
+            // The quotation has moved to a stage this transition cannot start from
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -113,8 +132,9 @@ public class QuotationController {
             QuotationDTO updatedQuotation = quotationService.rejectQuotation(id);
             return ResponseEntity.ok(updatedQuotation);
         } catch (IllegalStateException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } catch (RuntimeException e) {
+            // The quotation has moved to a stage this transition cannot start from
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -0,0 +1,39 @@
+package com.example.CREMIx.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.CREMIx.dto.RetentionPurgeReportDTO;
+import com.example.CREMIx.service.RetentionPurgeService;
+
+/**
+ * Recycle-bin retention: the report of the last purge, and a way to run one now
+ */
+@RestController
+@RequestMapping("/api/retention")
+@CrossOrigin(origins = "http://localhost:5173")
+public class RetentionController {
+
+    @Autowired
+    private RetentionPurgeService retentionPurgeService;
+
+    @GetMapping("/last-run")
+    public ResponseEntity<RetentionPurgeReportDTO> getLastRun() {
+        return retentionPurgeService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/run")
+    public ResponseEntity<RetentionPurgeReportDTO> run() {
+        return retentionPurgeService.purge()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+}
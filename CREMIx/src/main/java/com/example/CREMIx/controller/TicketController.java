@@ -1,37 +1,95 @@
 package com.example.CREMIx.controller;
 
 import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.misc.PreconditionFailedException;
+import com.example.CREMIx.service.TicketDispatcher;
+import com.example.CREMIx.service.TicketEventBroadcaster;
 import com.example.CREMIx.service.TicketService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import jakarta.persistence.EntityNotFoundException;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/tickets")
 @CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"}, allowCredentials = "true")
 public class TicketController {
 
+    private static final int MAX_SIMILAR = 50;
+
     private final TicketService ticketService;
+    private final TicketDispatcher ticketDispatcher;
+    private final TicketEventBroadcaster ticketEventBroadcaster;
 
     @Autowired
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, TicketDispatcher ticketDispatcher,
+            TicketEventBroadcaster ticketEventBroadcaster) {
         this.ticketService = ticketService;
+        this.ticketDispatcher = ticketDispatcher;
+        this.ticketEventBroadcaster = ticketEventBroadcaster;
     }
 
     @GetMapping
-    public ResponseEntity<List<TicketDTO>> getAllTickets() {
-        return ResponseEntity.ok(ticketService.getAllTickets());
+    public ResponseEntity<?> getAllTickets(@RequestParam(required = false) String fields, WebRequest request) {
+        String etag = ticketService.getTicketsETag(fields);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (fields == null) {
+            return ResponseEntity.ok().eTag(etag).body(ticketService.getAllTickets());
+        }
+        try {
+            return ResponseEntity.ok().eTag(etag).body(ticketService.getAllTicketFields(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Server-sent events for ticket changes (CREATED, UPDATED, ASSIGNED, ESCALATED, RESOLVED, CLOSED)
+     * matching every given filter. status takes a comma separated list.
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToTickets(@RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String customerEmail,
+            @RequestParam(required = false) String employeeEmail,
+            @RequestParam(required = false) String status) {
+        Set<String> statuses = status == null ? null : Arrays.stream(status.split(","))
+                .map(value -> value.trim().toUpperCase())
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toSet());
+        try {
+            return ticketEventBroadcaster.subscribe(
+                    new TicketEventBroadcaster.Filter(customerId, customerEmail, employeeEmail, statuses));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<TicketDTO> getTicketById(@PathVariable Long id) {
+    public ResponseEntity<TicketDTO> getTicketById(@PathVariable Long id, WebRequest request) {
+        var etag = ticketService.getTicketETag(id);
+        if (etag.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag.get()).build();
+        }
         try {
             TicketDTO ticket = ticketService.getTicketById(id);
-            return ResponseEntity.ok(ticket);
+            return ResponseEntity.ok().eTag(etag.get()).body(ticket);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -61,10 +119,17 @@ public class TicketController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<TicketDTO> updateTicket(@PathVariable Long id, @RequestBody TicketDTO ticketDTO) {
+    public ResponseEntity<TicketDTO> updateTicket(@PathVariable Long id, @RequestBody TicketDTO ticketDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            TicketDTO updatedTicket = ticketService.updateTicket(id, ticketDTO);
-            return ResponseEntity.ok(updatedTicket);
+            TicketDTO updatedTicket = ticketService.updateTicket(id, ticketDTO, ifMatch);
+            var response = ResponseEntity.ok();
+            ticketService.getTicketETag(id).ifPresent(response::eTag);
+            return response.body(updatedTicket);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -84,6 +149,23 @@ public class TicketController {
         }
     }
 
+    /**
+     * Assign the next unassigned ticket matching the employee's skills to them.
+     * 204 when nothing is waiting, 409 when the employee already has too many open tickets.
+     */
+    @PostMapping("/next")
+    public ResponseEntity<?> claimNextTicket(@RequestParam Long employeeId) {
+        try {
+            return ticketDispatcher.claimNext(employeeId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.noContent().build());
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTicket(@PathVariable Long id) {
         try {
@@ -142,9 +224,31 @@ public class TicketController {
         }
     }
 
+    /**
+     * Past resolutions most similar to a ticket's subject and description
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<?> getSimilarResolutions(@PathVariable Long id, @RequestParam(defaultValue = "5") int limit) {
+        if (limit < 1 || limit > MAX_SIMILAR) {
+            return ResponseEntity.badRequest().body("Limit must be between 1 and " + MAX_SIMILAR);
+        }
+        try {
+            return ResponseEntity.ok(ticketService.getSimilarResolutions(id, limit));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Open escalated tickets, CRITICAL first, then URGENT, then HIGH, oldest first within each
+     */
     @GetMapping("/escalated")
-    public ResponseEntity<List<TicketDTO>> getEscalatedTickets() {
-        List<TicketDTO> escalatedTickets = ticketService.getEscalatedTickets();
-        return ResponseEntity.ok(escalatedTickets);
+    public ResponseEntity<?> getEscalatedTickets(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(ticketService.getEscalatedTickets(page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
@@ -0,0 +1,33 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.example.CREMIx.misc.ActivityStatus;
+
+import lombok.Data;
+
+/**
+ * Selects records for a bulk status change: either explicit ids or a filter, not both
+ */
+@Data
+public class BulkStatusRequestDTO {
+    private List<Long> ids;
+
+    // Filter: only records currently in this status
+    private ActivityStatus currentStatus;
+    // Filter: created in [createdFrom, createdTo); leads and opportunities only
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+
+    // New status, for the bulk-status endpoints; delete and restore imply it
+    private ActivityStatus status;
+
+    public boolean hasIds() {
+        return ids != null && !ids.isEmpty();
+    }
+
+    public boolean hasFilter() {
+        return currentStatus != null || createdFrom != null || createdTo != null;
+    }
+}
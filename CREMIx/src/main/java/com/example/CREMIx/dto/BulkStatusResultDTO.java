@@ -0,0 +1,19 @@
+package com.example.CREMIx.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk status change
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResultDTO {
+    // Records selected by the ids or filter
+    private int matched;
+    // Records whose status actually changed; the rest already had it or no longer exist
+    private int affected;
+    private int chunks;
+}
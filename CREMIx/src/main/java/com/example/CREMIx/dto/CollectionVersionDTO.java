@@ -0,0 +1,36 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * Row count and latest updatedAt of a list endpoint, used as a cheap collection version.
+ * The extra constructors take the updatedAt of joined tables whose columns the list embeds.
+ */
+@Data
+public class CollectionVersionDTO {
+    private long count;
+    private LocalDateTime lastUpdated;
+
+    public CollectionVersionDTO(Long count, LocalDateTime lastUpdated) {
+        this.count = count != null ? count : 0;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public CollectionVersionDTO(Long count, LocalDateTime lastUpdated, LocalDateTime joinedUpdated) {
+        this(count, latest(lastUpdated, joinedUpdated));
+    }
+
+    public CollectionVersionDTO(Long count, LocalDateTime lastUpdated, LocalDateTime joinedUpdated,
+            LocalDateTime secondJoinedUpdated) {
+        this(count, latest(latest(lastUpdated, joinedUpdated), secondJoinedUpdated));
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.CREMIx.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk customer upsert, in total and per batch
+ */
+@Data
+public class CustomerBulkResultDTO {
+    private int created;
+    private int updated;
+    private int unchanged;
+    private int rejected;
+    private List<BatchResult> batches = new ArrayList<>();
+    private List<Rejection> rejections = new ArrayList<>();
+
+    public void add(BatchResult batch) {
+        batches.add(batch);
+        created += batch.getCreated();
+        updated += batch.getUpdated();
+        unchanged += batch.getUnchanged();
+        rejected += batch.getRejected();
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class BatchResult {
+        private int batch;
+        private int size;
+        private int created;
+        private int updated;
+        private int unchanged;
+        private int rejected;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Rejection {
+        // Position of the customer in the request body
+        private int index;
+        private String email;
+        private String reason;
+    }
+}
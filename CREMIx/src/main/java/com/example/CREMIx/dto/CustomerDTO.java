@@ -1,6 +1,7 @@
 package com.example.CREMIx.dto;
 
 import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.FieldSet;
 import com.example.CREMIx.model.Customer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,22 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CustomerDTO {
+    // Fields selectable through ?fields= on the customer list endpoint
+    public static final FieldSet FIELDS = new FieldSet()
+            .field("id", "id")
+            .field("name", "name")
+            .field("phoneNumber", "phoneNumber")
+            .field("email", "email")
+            .field("address", "address")
+            .field("city", "city")
+            .field("state", "state")
+            .field("zipCode", "zipCode")
+            .field("country", "country")
+            .field("website", "website")
+            .field("type", "type")
+            .field("hasPassword", "hasPassword")
+            .field("status", "status");
+
     private Long id;
     private String name;
     private String phoneNumber;
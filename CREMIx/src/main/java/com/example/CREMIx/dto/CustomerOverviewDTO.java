@@ -0,0 +1,32 @@
+package com.example.CREMIx.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Everything the customer page shows, fetched in one request through GET /api/customers/{id}/overview.
+ * Each list holds the newest records, up to the requested limit.
+ */
+@Data
+public class CustomerOverviewDTO {
+    private CustomerDTO customer;
+    private Section<LeadDTO> leads;
+    private Section<OpportunityDTO> opportunities;
+    private Section<QuotationDTO> quotations;
+    private Section<InvoiceDTO> invoices;
+    private Section<TicketDTO> tickets;
+    private Section<CallLogDTO> callLogs;
+    private Section<NoteDTO> notes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Section<T> {
+        private List<T> items;
+        // True when the customer has more records than the limit returned
+        private boolean hasMore;
+    }
+}
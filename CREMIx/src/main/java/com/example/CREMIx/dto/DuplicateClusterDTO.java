@@ -0,0 +1,31 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A group of customers that look like the same customer, for the duplicate review queue
+ */
+@Data
+public class DuplicateClusterDTO {
+    // Member ids joined with '-', stable while the members stay the same
+    private String clusterId;
+    // Best pair score in the cluster, 0 to 1
+    private double score;
+    private LocalDateTime detectedAt;
+    private List<CustomerDTO> customers;
+    private List<Match> matches;
+
+    @Data
+    @AllArgsConstructor
+    public static class Match {
+        private Long customerId;
+        private Long duplicateId;
+        private double score;
+        // Which fields agreed, e.g. "name 0.92", "same phone"
+        private List<String> reasons;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.CREMIx.dto;
+
+import com.example.CREMIx.misc.LogHistogram;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Duration summary in milliseconds; percentiles are approximate
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DurationsDTO {
+    private long count;
+    private double meanMs;
+    private long p50Ms;
+    private long p90Ms;
+    private long p99Ms;
+    private long maxMs;
+
+    public static DurationsDTO of(LogHistogram histogram) {
+        return new DurationsDTO(histogram.getCount(), histogram.getMean(), histogram.percentile(0.5),
+                histogram.percentile(0.9), histogram.percentile(0.99), histogram.getMax());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.CREMIx.dto;
+
+import java.time.YearMonth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Weighted pipeline of one employee for one expected close month (expected revenue times
+ * probability). Month totals leave the employee fields null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForecastDTO {
+    private Long employeeId;
+    private String employeeName;
+    private YearMonth month;
+    private int leadCount;
+    private double leadWeightedRevenue;
+    private int opportunityCount;
+    private double opportunityWeightedRevenue;
+    private double weightedRevenue;
+}
@@ -0,0 +1,45 @@
+package com.example.CREMIx.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.CREMIx.model.Opportunity;
+
+import lombok.Data;
+
+/**
+ * Opportunity funnel from the stage transition log: per stage flow and dwell time, and per employee velocity
+ */
+@Data
+public class FunnelDTO {
+    private List<StageStats> stages = new ArrayList<>();
+    private List<EmployeeVelocity> employees = new ArrayList<>();
+
+    @Data
+    public static class StageStats {
+        private Opportunity.Stage stage;
+        // Opportunities that entered this stage, creation included
+        private long entered;
+        // Moves out of this stage by target stage
+        private Map<Opportunity.Stage, Long> exits = new LinkedHashMap<>();
+        // Share of entries that moved on to each target stage
+        private Map<Opportunity.Stage, Double> conversionRates = new LinkedHashMap<>();
+        // Time spent in this stage before moving on
+        private DurationsDTO dwell;
+    }
+
+    @Data
+    public static class EmployeeVelocity {
+        private Long employeeId;
+        private String employeeName;
+        private long transitions;
+        private long won;
+        private long lost;
+        // Won share of the employee's won and lost opportunities
+        private double winRate;
+        // Creation to WON
+        private DurationsDTO timeToWin;
+    }
+}
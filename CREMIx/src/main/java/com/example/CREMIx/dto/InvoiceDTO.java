@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.example.CREMIx.misc.FieldSet;
 import com.example.CREMIx.model.Invoice;
 import com.example.CREMIx.model.Quotation;
 
@@ -13,6 +14,30 @@ import lombok.Data;
 
 @Data
 public class InvoiceDTO {
+    // Fields selectable through ?fields= on the invoice list endpoint (items are never included)
+    public static final FieldSet FIELDS = new FieldSet()
+            .field("id", "id")
+            .field("invoiceNumber", "invoiceNumber")
+            .field("customerName", "customer.name")
+            .field("customerEmail", "customer.email")
+            .field("employeeName", "employee.name")
+            .field("amount", "total")
+            .field("status", "status")
+            .fieldOrElse("title", "quotation.title", "Invoice")
+            .field("createdAt", "createdAt")
+            .field("updatedAt", "updatedAt")
+            .field("invoiceDate", "invoiceDate")
+            .field("dueDate", "dueDate")
+            .field("terms", "terms")
+            .field("subtotal", "subtotal")
+            .field("discount", "discount")
+            .field("taxRate", "taxRate")
+            .field("taxAmount", "taxAmount")
+            .field("total", "total")
+            .field("opportunityId", "opportunity.id")
+            .field("customerId", "customer.id")
+            .field("quotationId", "quotation.id");
+
     private Long id;
     private String invoiceNumber;
     private String customerName;
@@ -60,6 +85,35 @@ public class InvoiceDTO {
         this.quotationId = quotationId;
     }
 
+    // Constructor used in the repository for queries that select the columns directly; the items
+    // are loaded separately
+    public InvoiceDTO(Long id, String invoiceNumber, String customerName, String customerEmail, String employeeName,
+            String status, String title, LocalDateTime createdAt, LocalDateTime updatedAt, LocalDate invoiceDate,
+            LocalDate dueDate, String terms, Double subtotal, Double discount, Double taxRate, Double taxAmount,
+            Double total, Long customerId, Long quotationId) {
+        this.id = id;
+        this.invoiceNumber = invoiceNumber;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.employeeName = employeeName;
+        this.amount = total;
+        this.status = status;
+        this.title = title;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.invoiceDate = invoiceDate;
+        this.dueDate = dueDate;
+        this.terms = terms;
+        this.subtotal = subtotal;
+        this.discount = discount;
+        this.taxRate = taxRate;
+        this.taxAmount = taxAmount;
+        this.total = total;
+        this.items = new ArrayList<>();
+        this.customerId = customerId;
+        this.quotationId = quotationId;
+    }
+
     // Constructor used in the repository for queries
     public InvoiceDTO(Quotation quotation, Invoice invoice) {
         this.id = invoice.getId();
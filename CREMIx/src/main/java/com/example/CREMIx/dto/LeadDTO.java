@@ -1,13 +1,38 @@
 package com.example.CREMIx.dto;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+import com.example.CREMIx.misc.FieldSet;
 import com.example.CREMIx.model.Lead;
 
 import lombok.Data;
 
 @Data
 public class LeadDTO {
+    // Fields selectable through ?fields= on the lead list endpoint
+    public static final FieldSet FIELDS = new FieldSet()
+            .field("customerId", "customer.id")
+            .field("name", "customer.name")
+            .field("email", "customer.email")
+            .field("phoneNumber", "customer.phoneNumber")
+            .field("address", "customer.address")
+            .field("city", "customer.city")
+            .field("state", "customer.state")
+            .field("zipCode", "customer.zipCode")
+            .field("country", "customer.country")
+            .field("website", "customer.website")
+            .field("id", "id")
+            .field("requirement", "requirement")
+            .field("assignedTo", "employee.name")
+            .field("source", "source")
+            .field("conversionProbability", "probability")
+            .field("expectedRevenue", "expectedRevenue")
+            .field("expectedCloseDate", "expectedCloseDate")
+            .field("createdDate", "createdAt",
+                    value -> ((LocalDateTime) value).format(DateTimeFormatter.ofPattern("dd/MM/yy")));
+
     // customer
     private Long customerId;
     private String name;
@@ -27,13 +52,18 @@ public class LeadDTO {
     private String source;
     private Integer conversionProbability;
     private Double expectedRevenue;
+    private LocalDate expectedCloseDate;
     private String createdDate; // Formatted date field
 
     public LeadDTO() {}
 
+    /**
+     * Flat projection used by the lead list queries, so no Customer or Employee entity is loaded
+     */
     public LeadDTO(Long customerId, String name, String email, String phoneNumber, String address, String city,
             String state, Integer zipCode, String country, String website, Long id, String requirement,
-            String assignedTo, Integer conversionProbability, Double expectedRevenue, String source) {
+            String assignedTo, Integer conversionProbability, Double expectedRevenue, Lead.Source source,
+            LocalDate expectedCloseDate, LocalDateTime createdAt) {
         this.customerId = customerId;
         this.name = name;
         this.email = email;
@@ -50,7 +80,9 @@ public class LeadDTO {
         this.assignedTo = assignedTo;
         this.conversionProbability = conversionProbability;
         this.expectedRevenue = expectedRevenue;
-        this.source = source;
+        this.source = source != null ? source.name() : null;
+        this.expectedCloseDate = expectedCloseDate;
+        this.createdDate = formatCreatedDate(createdAt);
     }
 
     public LeadDTO(Lead lead) {
@@ -72,11 +104,13 @@ public class LeadDTO {
         this.conversionProbability = lead.getProbability();
         this.expectedRevenue = lead.getExpectedRevenue();
         this.source = lead.getSource().name();
+        this.expectedCloseDate = lead.getExpectedCloseDate();
         
-        // Format the creation date as dd/mm/yy
-        if (lead.getCreatedAt() != null) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yy");
-            this.createdDate = lead.getCreatedAt().format(formatter);
-        }
+        this.createdDate = formatCreatedDate(lead.getCreatedAt());
+    }
+
+    // Format the creation date as dd/mm/yy
+    private static String formatCreatedDate(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.format(DateTimeFormatter.ofPattern("dd/MM/yy")) : null;
     }
 }
@@ -0,0 +1,35 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Progress of a bulk lead import, polled through GET /api/leads/import/{jobId}
+ */
+@Data
+public class LeadImportStatusDTO {
+    private String jobId;
+    private String fileName;
+    private String format;
+    private String state;
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private long customersCreated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+
+    // Only the first errors are kept, failed holds the full count
+    private List<RowError> errors;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.CREMIx.model.Lead;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of a rep's ranked lead worklist, built straight from the query without loading leads
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadWorklistItemDTO {
+    private Long id;
+    private String requirement;
+    private Long customerId;
+    private String customerName;
+    private String assignedTo;
+    private Double expectedRevenue;
+    private Integer probability;
+    private Lead.Source source;
+    private Lead.Stage stage;
+    private Double score;
+    private LocalDateTime scoredAt;
+    private LocalDateTime createdAt;
+}
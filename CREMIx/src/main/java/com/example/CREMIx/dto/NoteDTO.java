@@ -2,6 +2,7 @@ package com.example.CREMIx.dto;
 
 import java.time.LocalDateTime;
 
+import com.example.CREMIx.misc.Location;
 import com.example.CREMIx.model.Note;
 
 import lombok.Data;
@@ -27,6 +28,10 @@ public class NoteDTO {
         this.locationId = locationId;
     }
 
+    public NoteDTO(Long id, String title, String description, LocalDateTime createdAt, Location location, Long locationId) {
+        this(id, title, description, createdAt, location.name(), locationId);
+    }
+
     public NoteDTO(NoteDTO note) {
         this.id = note.getId();
         this.title = note.getTitle();
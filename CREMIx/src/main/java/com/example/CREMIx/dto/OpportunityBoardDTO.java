@@ -0,0 +1,47 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.CREMIx.model.Opportunity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Opportunity board: one column per stage with its total count and the first cards
+ */
+@Data
+public class OpportunityBoardDTO {
+    private String sort;
+    private List<Column> columns = new ArrayList<>();
+
+    @Data
+    public static class Column {
+        private Opportunity.Stage stage;
+        // Active opportunities in the stage, not just the cards returned
+        private long count;
+        private List<Card> cards = new ArrayList<>();
+        // Pass to GET /api/opportunities/board/{stage} for the next cards; null when there are no more
+        private String nextCursor;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Card {
+        private Long id;
+        private Opportunity.Stage stage;
+        private Long customerId;
+        private String customerName;
+        private String requirement;
+        private String assignedTo;
+        private Double expectedRevenue;
+        private Integer probability;
+        // Expected revenue times probability
+        private Double weightedValue;
+        private LocalDateTime createdAt;
+    }
+}
@@ -27,6 +27,18 @@ public class QuotationDTO {
         this.id = id;
     }
 
+    // Constructor used in the repository for queries; the items are loaded separately
+    public QuotationDTO(Long id, String title, String description, LocalDateTime createdAt,
+            LocalDateTime validUntil, Double amount, Quotation.Stage stage) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.createdAt = createdAt;
+        this.validUntil = validUntil;
+        this.amount = amount;
+        this.stage = stage;
+    }
+
     public QuotationDTO(Quotation quotation) {
         this.id = quotation.getId();
         this.title = quotation.getTitle();
@@ -0,0 +1,28 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Outcome of one recycle-bin purge run
+ */
+@Data
+public class RetentionPurgeReportDTO {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    // Soft-deleted records last updated before this were purged
+    private LocalDateTime cutoff;
+    private int chunks;
+    // Rows hard-deleted per table, dependents included
+    private Map<String, Long> deleted = new LinkedHashMap<>();
+    private String error;
+
+    public void add(String table, int rows) {
+        if (rows > 0) {
+            deleted.merge(table, (long) rows, Long::sum);
+        }
+    }
+}
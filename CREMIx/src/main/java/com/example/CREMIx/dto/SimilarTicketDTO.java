@@ -0,0 +1,20 @@
+package com.example.CREMIx.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A past resolution suggested for a ticket, with its BM25 relevance score
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarTicketDTO {
+    private Long resolvedTicketId;
+    private Long originalTicketId;
+    private String title;
+    private String ticketDescription;
+    private String resolveDescription;
+    private double score;
+}
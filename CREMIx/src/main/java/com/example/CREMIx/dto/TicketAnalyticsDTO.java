@@ -0,0 +1,50 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.CREMIx.model.Ticket;
+
+import lombok.Data;
+
+/**
+ * Ticket handling times over a range of resolution days: creation to resolution (time to resolve)
+ * and creation to first assignment (first response), overall and broken down. Breakdowns by
+ * employee are left empty when filtering by priority and the other way round.
+ */
+@Data
+public class TicketAnalyticsDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private Long employeeId;
+    private Ticket.TicketPriority priority;
+    private DurationsDTO resolution;
+    private DurationsDTO firstResponse;
+    private List<EmployeeTimes> employees = new ArrayList<>();
+    private List<PriorityTimes> priorities = new ArrayList<>();
+    private List<DayTimes> days = new ArrayList<>();
+
+    @Data
+    public static class EmployeeTimes {
+        // Null for tickets resolved without an employee
+        private Long employeeId;
+        private String employeeName;
+        private DurationsDTO resolution;
+        private DurationsDTO firstResponse;
+    }
+
+    @Data
+    public static class PriorityTimes {
+        private Ticket.TicketPriority priority;
+        private DurationsDTO resolution;
+        private DurationsDTO firstResponse;
+    }
+
+    @Data
+    public static class DayTimes {
+        private LocalDate day;
+        private DurationsDTO resolution;
+        private DurationsDTO firstResponse;
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.CREMIx.dto;
 
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+import com.example.CREMIx.misc.FieldSet;
 import com.example.CREMIx.model.Ticket;
 
 import lombok.Data;
@@ -46,14 +48,54 @@ public class TicketDTO {
     private String employeeName;
     private String employeeEmail;
     private String status;
+    private String priority;
+    private String skill;
     private String createdAt; 
     private String updatedAt;  
+    private String assignedAt;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yy HH:mm");
+
+    // Fields selectable through ?fields= on the ticket list endpoint
+    public static final FieldSet FIELDS = new FieldSet()
+            .field("id", "id")
+            .field("subject", "subject")
+            .field("description", "description")
+            .field("customerId", "customer.id")
+            .field("customerName", "customer.name")
+            .field("customerEmail", "customer.email")
+            .field("employeeName", "employee.name")
+            .field("employeeEmail", "employee.email")
+            .field("status", "status")
+            .field("priority", "priority")
+            .field("skill", "skill")
+            .field("createdAt", "createdAt", value -> ((LocalDateTime) value).format(DATE_FORMATTER))
+            .field("updatedAt", "updatedAt", value -> ((LocalDateTime) value).format(DATE_FORMATTER));
     
     public TicketDTO() {
     }
     
+    // Constructor used in the repository for queries that select the columns directly
+    public TicketDTO(Long id, String subject, String description, Long customerId, String customerName,
+            String customerEmail, String employeeName, String employeeEmail, Ticket.TicketStatus status,
+            Ticket.TicketPriority priority, String skill, LocalDateTime createdAt, LocalDateTime updatedAt,
+            LocalDateTime assignedAt) {
+        this.id = id;
+        this.subject = subject;
+        this.description = description;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.employeeName = employeeName;
+        this.employeeEmail = employeeEmail;
+        this.status = status.name();
+        this.priority = priority != null ? priority.name() : null;
+        this.skill = skill;
+        this.createdAt = createdAt != null ? createdAt.format(DATE_FORMATTER) : null;
+        this.updatedAt = updatedAt != null ? updatedAt.format(DATE_FORMATTER) : null;
+        this.assignedAt = assignedAt != null ? assignedAt.format(DATE_FORMATTER) : null;
+    }
+
     public TicketDTO(Ticket ticket) {
         this.id = ticket.getId();
         this.subject = ticket.getSubject();
@@ -71,10 +113,13 @@ public class TicketDTO {
         }
 
         this.status = ticket.getStatus().name();
+        this.priority = ticket.getPriority() != null ? ticket.getPriority().name() : null;
+        this.skill = ticket.getSkill();
         
         // Format dates as strings in dd/MM/yy format
         this.createdAt = ticket.getCreatedAt() != null ? ticket.getCreatedAt().format(DATE_FORMATTER) : null;
         this.updatedAt = ticket.getUpdatedAt() != null ? ticket.getUpdatedAt().format(DATE_FORMATTER) : null;
+        this.assignedAt = ticket.getAssignedAt() != null ? ticket.getAssignedAt().format(DATE_FORMATTER) : null;
     }
 
     public void setTitle(String string) {
@@ -0,0 +1,34 @@
+package com.example.CREMIx.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change to a ticket, as pushed to live ticket subscribers
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketEventDTO {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        ASSIGNED,
+        ESCALATED,
+        RESOLVED,
+        CLOSED,
+    }
+
+    private Type type;
+    // The ticket after the change
+    private TicketDTO ticket;
+    private LocalDateTime occurredAt;
+
+    public TicketEventDTO(Type type, TicketDTO ticket) {
+        this(type, ticket, LocalDateTime.now());
+    }
+}
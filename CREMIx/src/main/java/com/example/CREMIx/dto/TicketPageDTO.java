@@ -0,0 +1,21 @@
+package com.example.CREMIx.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of an ordered ticket queue
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketPageDTO {
+    private List<TicketDTO> tickets;
+    private int page;
+    private int size;
+    // Tickets in the whole queue
+    private long total;
+}
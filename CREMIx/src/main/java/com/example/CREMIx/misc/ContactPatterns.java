@@ -0,0 +1,16 @@
+package com.example.CREMIx.misc;
+
+import java.util.regex.Pattern;
+
+/**
+ * Contact field rules matching the Customer entity constraints. Bulk writers check rows against
+ * these up front, so one bad row is rejected on its own instead of failing a whole batch.
+ */
+public final class ContactPatterns {
+
+    public static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    public static final Pattern PHONE = Pattern.compile("^(\\+?\\d{2})?[0-9]{10}$");
+
+    private ContactPatterns() {
+    }
+}
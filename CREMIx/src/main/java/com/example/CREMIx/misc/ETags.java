@@ -0,0 +1,64 @@
+package com.example.CREMIx.misc;
+
+import com.example.CREMIx.dto.CollectionVersionDTO;
+
+/**
+ * Strong entity tags built from @Version columns.
+ * A resource tag joins the versions of the entity and of every versioned entity its DTO embeds,
+ * so editing a lead's customer also changes the lead's tag.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Join versions in the same "v1.v2" form the repository findVersionTagById queries produce
+     */
+    public static String versions(long... versions) {
+        StringBuilder tag = new StringBuilder();
+        for (long version : versions) {
+            if (tag.length() > 0) {
+                tag.append('.');
+            }
+            tag.append(version);
+        }
+        return tag.toString();
+    }
+
+    public static String of(Long id, String versionTag) {
+        return "\"" + id + "-" + versionTag + "\"";
+    }
+
+    /**
+     * Tag for a list endpoint from its row count and latest change.
+     * @param variant Request parameter that changes the representation (fields=), may be null
+     */
+    public static String ofCollection(CollectionVersionDTO version, String variant) {
+        StringBuilder tag = new StringBuilder("\"c").append(version.getCount());
+        if (version.getLastUpdated() != null) {
+            tag.append('-').append(version.getLastUpdated().toString().replaceAll("[^0-9]", ""));
+        }
+        if (variant != null) {
+            tag.append('-').append(Integer.toHexString(variant.hashCode()));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Strong comparison of an If-Match header against the current tag.
+     * A missing header means the client did not ask for a conditional update.
+     */
+    public static boolean matches(String ifMatch, String etag) {
+        if (ifMatch == null) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.CREMIx.misc;
+
+/**
+ * Published after an entity is inserted, updated or removed, so in-memory indexes can stay in sync.
+ * Bulk writes that bypass JPA publish a single BULK event for the entity type instead.
+ */
+public class EntityChangeEvent {
+
+    public enum Action {
+        CREATED,
+        UPDATED,
+        DELETED,
+        BULK,
+    }
+
+    private final Class<?> entityType;
+    private final Object entity;
+    private final Action action;
+
+    public EntityChangeEvent(Object entity, Action action) {
+        this.entityType = entity.getClass();
+        this.entity = entity;
+        this.action = action;
+    }
+
+    private EntityChangeEvent(Class<?> entityType) {
+        this.entityType = entityType;
+        this.entity = null;
+        this.action = Action.BULK;
+    }
+
+    /**
+     * Many rows of this type changed outside JPA; listeners should reload rather than patch
+     */
+    public static EntityChangeEvent bulk(Class<?> entityType) {
+        return new EntityChangeEvent(entityType);
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * The changed entity, or null for a BULK event
+     */
+    public Object getEntity() {
+        return entity;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.CREMIx.misc;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that republishes entity writes as {@link EntityChangeEvent}s.
+ * Hibernate gets this listener from the Spring context, so it can use injected beans.
+ * Subscribers should use @TransactionalEventListener(AFTER_COMMIT) so they never see rolled back changes.
+ */
+@Component
+public class EntityChangePublisher {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onCreate(Object entity) {
+        eventPublisher.publishEvent(new EntityChangeEvent(entity, EntityChangeEvent.Action.CREATED));
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        eventPublisher.publishEvent(new EntityChangeEvent(entity, EntityChangeEvent.Action.UPDATED));
+    }
+
+    @PostRemove
+    public void onDelete(Object entity) {
+        eventPublisher.publishEvent(new EntityChangeEvent(entity, EntityChangeEvent.Action.DELETED));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.CREMIx.misc;
+
+/**
+ * Row formats for bulk exports and imports
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat fromString(String text) {
+        for (ExportFormat format : ExportFormat.values()) {
+            if (format.extension.equalsIgnoreCase(text) || format.name().equalsIgnoreCase(text)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + text);
+    }
+
+    /**
+     * Guess the format of an uploaded file from its extension
+     */
+    public static ExportFormat fromFileName(String fileName) {
+        String lower = fileName != null ? fileName.toLowerCase() : "";
+        if (lower.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the format of " + fileName + ", pass format=csv or format=ndjson");
+    }
+}
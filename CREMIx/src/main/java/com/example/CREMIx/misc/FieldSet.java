@@ -0,0 +1,78 @@
+package com.example.CREMIx.misc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The set of DTO properties a list endpoint can return through its fields= parameter.
+ * Each property maps to an entity attribute path ("name" or "customer.name"), so only the
+ * selected columns are read from the database.
+ */
+public final class FieldSet {
+
+    private final Map<String, String> paths = new LinkedHashMap<>();
+    private final Map<String, Function<Object, Object>> formatters = new HashMap<>();
+    private final Map<String, Object> fallbacks = new HashMap<>();
+
+    public FieldSet field(String name, String path) {
+        paths.put(name, path);
+        return this;
+    }
+
+    public FieldSet field(String name, String path, Function<Object, Object> formatter) {
+        paths.put(name, path);
+        formatters.put(name, formatter);
+        return this;
+    }
+
+    /**
+     * A property read as the fallback when its path is null, e.g. through an optional association
+     */
+    public FieldSet fieldOrElse(String name, String path, Object fallback) {
+        paths.put(name, path);
+        fallbacks.put(name, fallback);
+        return this;
+    }
+
+    /**
+     * Parse a comma separated fields parameter, keeping the requested order
+     * @throws IllegalArgumentException if a field is unknown or nothing was requested
+     */
+    public List<String> parse(String fields) {
+        List<String> selected = new ArrayList<>();
+        for (String raw : fields.split(",")) {
+            String name = raw.trim();
+            if (name.isEmpty() || selected.contains(name)) {
+                continue;
+            }
+            if (!paths.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ". Allowed fields: " + paths.keySet());
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No fields requested");
+        }
+        return selected;
+    }
+
+    public String pathOf(String name) {
+        return paths.get(name);
+    }
+
+    /**
+     * Value the query substitutes when the path is null, or null when there is none
+     */
+    public Object fallbackOf(String name) {
+        return fallbacks.get(name);
+    }
+
+    public Object format(String name, Object value) {
+        var formatter = formatters.get(name);
+        return formatter != null && value != null ? formatter.apply(value) : value;
+    }
+}
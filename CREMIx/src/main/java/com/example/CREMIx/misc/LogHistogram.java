@@ -0,0 +1,110 @@
+package com.example.CREMIx.misc;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative durations in log-scaled buckets: every power of two is split into
+ * four sub-buckets, so 256 counters cover the whole long range and a percentile read back is
+ * within about 19% of the true value. Recording and reading are O(1) in the number of samples.
+ * Histograms merge by adding bucket counts, so percentiles over many of them need no samples.
+ * Counters are only allocated up to the largest bucket used. Not thread-safe; callers synchronize.
+ */
+public class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_BUCKETS = 64 * SUB_BUCKETS;
+
+    private long[] counts = new long[0];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        int bucket = bucket(v);
+        grow(bucket + 1);
+        counts[bucket]++;
+        count++;
+        sum += v;
+        max = Math.max(max, v);
+    }
+
+    /**
+     * Add every sample of another histogram to this one
+     */
+    public void merge(LogHistogram other) {
+        grow(other.counts.length);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param quantile Between 0 and 1
+     * @return The midpoint of the bucket holding that quantile, capped at the largest value seen; 0 when empty
+     */
+    public long percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, (lowerBound(i) + upperBound(i)) / 2);
+            }
+        }
+        return max;
+    }
+
+    private void grow(int length) {
+        if (length > counts.length) {
+            counts = Arrays.copyOf(counts, Math.min(MAX_BUCKETS, Math.max(length, counts.length + SUB_BUCKETS)));
+        }
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return lowerBound(bucket) + width - 1;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.CREMIx.misc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures with LSH banding.
+ * The fraction of equal positions in two signatures estimates the Jaccard similarity of the
+ * shingle sets they came from. Cutting a signature into bands and hashing each band gives
+ * bucket keys: two sets share a bucket with high probability once their similarity passes
+ * roughly (1 / bands) ^ (1 / rows), so candidate pairs come from buckets, not from comparing
+ * every pair.
+ */
+public class MinHash {
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+
+    public MinHash(int bands, int rows, long seed) {
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new SplittableRandom(seed).longs(bands * rows).toArray();
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public long[] signature(Collection<String> shingles) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String shingle : shingles) {
+            long hash = fnv1a(shingle);
+            for (int i = 0; i < seeds.length; i++) {
+                long value = mix(hash ^ seeds[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * One bucket key per band; equal keys for the same band index make a candidate pair
+     */
+    public long[] bandKeys(long[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + signature[band * rows + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static long fnv1a(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // SplitMix64 finalizer, a cheap well-mixed 64 bit permutation
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
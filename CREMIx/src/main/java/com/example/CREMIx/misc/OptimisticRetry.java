@@ -0,0 +1,69 @@
+package com.example.CREMIx.misc;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs an idempotent state transition in its own transaction and, when a concurrent writer wins
+ * the @Version check, runs it again on freshly read state after a short jittered backoff.
+ * The transition has to re-read everything it checks, so a retry sees the other writer's result
+ * and can return it, apply itself on top, or refuse with IllegalStateException.
+ * Gives up with the last OptimisticLockingFailureException, which the API maps to 409.
+ * Inside a caller's transaction a retry cannot start over, so the transition runs once.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final TransactionTemplate transaction;
+
+    @Value("${concurrency.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${concurrency.retry.initial-backoff-ms:20}")
+    private long initialBackoffMs;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T run(String operation, Supplier<T> transition) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transition.get();
+        }
+        long backoff = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Commits here, so a lost @Version race surfaces inside this loop
+                return transaction.execute(status -> transition.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    logger.warn("{} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                logger.debug("{} lost a concurrent update, retrying (attempt {})", operation, attempt + 1);
+                sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+                backoff *= 2;
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.CREMIx.misc;
+
+/**
+ * Thrown when an If-Match header no longer matches the current version of a resource
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.CREMIx.misc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory state that follows committed changes and is now and then reseeded from the database.
+ * A reseed loads fresh state off to the side while changes keep landing on the live state; every
+ * change made meanwhile is also recorded and replayed onto the fresh state before it is swapped in.
+ * Applying a change, recording it and swapping happen under one monitor, so a change is never
+ * applied to state that has just been discarded. A reseed asked for while one is loading is not
+ * dropped: that load may already have read past rows a bulk write changes, so it loads once more.
+ * @param <S> The state
+ * @param <C> A committed change; replaying one the load already saw must be harmless
+ */
+public final class ReseedableState<S, C> {
+
+    private final BiConsumer<S, C> apply;
+
+    private volatile S current;
+
+    // Changes committed while a reseed is loading; guarded by this
+    private List<C> changesDuringReseed;
+
+    // Another reseed was asked for while one was loading; guarded by this
+    private boolean reseedAgain;
+
+    public ReseedableState(S initial, BiConsumer<S, C> apply) {
+        this.current = initial;
+        this.apply = apply;
+    }
+
+    /**
+     * The live state, for lock-free readers
+     */
+    public S get() {
+        return current;
+    }
+
+    /**
+     * Apply a committed change to the live state, and record it for the reseed in progress if any
+     */
+    public synchronized void apply(C change) {
+        apply.accept(current, change);
+        if (changesDuringReseed != null) {
+            changesDuringReseed.add(change);
+        }
+    }
+
+    /**
+     * Run an operation on the live state while no change is applied or swapped in
+     */
+    public synchronized <R> R locked(Function<S, R> operation) {
+        return operation.apply(current);
+    }
+
+    /**
+     * Start recording changes for a reseed
+     * @return false if another reseed is loading; it is told to load once more when it finishes
+     */
+    public synchronized boolean begin() {
+        if (changesDuringReseed != null) {
+            reseedAgain = true;
+            return false;
+        }
+        changesDuringReseed = new ArrayList<>();
+        return true;
+    }
+
+    /**
+     * Replay the recorded changes onto freshly loaded state and swap it in
+     * @return true if another reseed was asked for meanwhile; recording has started over and the
+     * caller has to load again and complete or abandon once more
+     */
+    public synchronized boolean complete(S fresh) {
+        changesDuringReseed.forEach(change -> apply.accept(fresh, change));
+        current = fresh;
+        return finish();
+    }
+
+    /**
+     * Give up a reseed whose load failed, keeping the live state
+     * @return true if another reseed was asked for meanwhile, as for {@link #complete}
+     */
+    public synchronized boolean abandon() {
+        return finish();
+    }
+
+    private boolean finish() {
+        if (reseedAgain) {
+            reseedAgain = false;
+            changesDuringReseed = new ArrayList<>();
+            return true;
+        }
+        changesDuringReseed = null;
+        return false;
+    }
+
+    /**
+     * Load, replay and swap on the calling thread, loading again for every request made meanwhile
+     * @return The state swapped in last, or null if another reseed was already loading; that one
+     * loads once more on this caller's behalf
+     * @throws RuntimeException whatever the last load threw, after abandoning the reseed
+     */
+    public S reseed(Supplier<S> load) {
+        if (!begin()) {
+            return null;
+        }
+        while (true) {
+            S fresh;
+            try {
+                fresh = load.get();
+            } catch (RuntimeException e) {
+                if (abandon()) {
+                    continue;
+                }
+                throw e;
+            }
+            if (!complete(fresh)) {
+                return fresh;
+            }
+        }
+    }
+}
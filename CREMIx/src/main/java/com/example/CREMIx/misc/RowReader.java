@@ -0,0 +1,167 @@
+package com.example.CREMIx.misc;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads import rows one at a time, the counterpart of {@link RowWriter}.
+ * Each row is returned as a map of column name to raw text, so validation stays with the importer.
+ */
+public abstract class RowReader implements Closeable {
+
+    protected final BufferedReader reader;
+    protected long rowNumber;
+
+    protected RowReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static RowReader open(ExportFormat format, InputStream in, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonRowReader(in, objectMapper);
+            case CSV -> new CsvRowReader(in);
+        };
+    }
+
+    /**
+     * Next row keyed by column name, or null at the end of the input
+     * @throws IllegalArgumentException if this row is malformed; reading can continue with the next row
+     */
+    public abstract Map<String, String> next() throws IOException;
+
+    /**
+     * 1-based number of the row last returned, not counting the CSV header
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class NdjsonRowReader extends RowReader {
+        private static final TypeReference<Map<String, Object>> ROW = new TypeReference<>() {};
+
+        private final ObjectMapper objectMapper;
+
+        NdjsonRowReader(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            rowNumber++;
+
+            Map<String, Object> values;
+            try {
+                values = objectMapper.readValue(line, ROW);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            values.forEach((key, value) -> row.put(key, value != null ? value.toString() : null));
+            return row;
+        }
+    }
+
+    private static final class CsvRowReader extends RowReader {
+        private final List<String> header;
+
+        CsvRowReader(InputStream in) throws IOException {
+            super(in);
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            // Excel writes a byte order mark in front of the first header
+            if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                names.set(0, names.get(0).substring(1));
+            }
+            this.header = names.stream().map(String::trim).toList();
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+            rowNumber++;
+
+            if (fields.size() > header.size()) {
+                throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + fields.size());
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(header.get(i), fields.get(i));
+            }
+            return row;
+        }
+
+        /**
+         * Read one RFC 4180 record; quoted fields may contain commas, doubled quotes and line breaks
+         */
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (c >= 0) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextChar = reader.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
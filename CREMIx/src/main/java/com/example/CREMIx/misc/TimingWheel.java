@@ -0,0 +1,112 @@
+package com.example.CREMIx.misc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel: one timer per key, each placed in the bucket of its deadline tick modulo
+ * the wheel size. Scheduling and cancelling are O(1); advancing visits one bucket per elapsed tick
+ * and fires the timers in it whose tick has come, leaving those due on a later turn of the wheel.
+ * Timers never fire early and at most one tick late. Not thread-safe; callers synchronize.
+ */
+public class TimingWheel<K> {
+
+    private static final class Timer<K> {
+        private final K key;
+        private final long tick;
+
+        Timer(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<Map<K, Timer<K>>> buckets;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+
+    // The next tick advance() processes; deadlines before it fire on that tick
+    private long nextTick;
+
+    /**
+     * @param wheelSize Number of buckets; a larger wheel means fewer timers left over per visited bucket
+     * @param tickMillis Resolution of the wheel
+     * @param startMillis Current time
+     */
+    public TimingWheel(int wheelSize, long tickMillis, long startMillis) {
+        if (wheelSize < 1 || tickMillis < 1) {
+            throw new IllegalArgumentException("Wheel size and tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.nextTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Set the deadline of a key, replacing any timer it already has
+     */
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Round up so a timer never fires before its deadline
+        long tick = Math.max(nextTick, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        Timer<K> timer = new Timer<>(key, tick);
+        timers.put(key, timer);
+        bucket(tick).put(key, timer);
+    }
+
+    public boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        bucket(timer.tick).remove(key);
+        return true;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Move the wheel up to the given time and remove every timer that is now due
+     * @return Keys of the expired timers
+     */
+    public List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        if (target - nextTick >= buckets.size()) {
+            // Fell behind by a whole turn or more: one sweep over every bucket covers it
+            for (Map<K, Timer<K>> bucket : buckets) {
+                expire(bucket, target, expired);
+            }
+            nextTick = target + 1;
+            return expired;
+        }
+        for (; nextTick <= target; nextTick++) {
+            expire(bucket(nextTick), nextTick, expired);
+        }
+        return expired;
+    }
+
+    private void expire(Map<K, Timer<K>> bucket, long upToTick, List<K> expired) {
+        Iterator<Timer<K>> iterator = bucket.values().iterator();
+        while (iterator.hasNext()) {
+            Timer<K> timer = iterator.next();
+            if (timer.tick <= upToTick) {
+                iterator.remove();
+                timers.remove(timer.key);
+                expired.add(timer.key);
+            }
+        }
+    }
+
+    private Map<K, Timer<K>> bucket(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+}
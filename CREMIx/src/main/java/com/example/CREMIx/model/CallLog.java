@@ -2,12 +2,16 @@ package com.example.CREMIx.model;
 
 import java.time.LocalDateTime;
 
+import com.example.CREMIx.misc.EntityChangePublisher;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -16,7 +20,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "call_logs")
+@Table(name = "call_logs", indexes = @Index(name = "idx_call_logs_customer_date", columnList = "customer_id, date_time"))
+@EntityListeners(EntityChangePublisher.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
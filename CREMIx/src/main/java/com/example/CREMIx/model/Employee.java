@@ -3,9 +3,12 @@ package com.example.CREMIx.model;
 import java.util.List;
 import java.util.Objects;
 
+import com.example.CREMIx.misc.EntityChangePublisher;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -20,6 +23,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(EntityChangePublisher.class)
 public class Employee {
 
     @Id
@@ -36,6 +40,9 @@ public class Employee {
     private String email;
     private String hashedPassword;
 
+    // Comma separated skill tags matched against Ticket.skill when dispatching tickets
+    private String skills;
+
     @OneToMany(mappedBy = "employee", cascade = CascadeType.ALL)
     private List<Lead> leads;
 
@@ -63,6 +70,10 @@ public class Employee {
         return hashedPassword;
     }
 
+    public String getSkills() {
+        return skills;
+    }
+
     public List<Lead> getLeads() {
         return leads;
     }
@@ -92,6 +103,10 @@ public class Employee {
         this.hashedPassword = hashedPassword;
     }
 
+    public void setSkills(String skills) {
+        this.skills = skills;
+    }
+
     public void setLeads(List<Lead> leads) {
         this.leads = leads;
     }
@@ -18,6 +18,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Entity
@@ -69,4 +70,8 @@ public class Invoice {
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "quotation_id", nullable = true)
     private Quotation quotation;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
 }
@@ -1,26 +1,37 @@
 package com.example.CREMIx.model;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.EntityChangePublisher;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Entity
-@Table(name = "leads")
+@EntityListeners(EntityChangePublisher.class)
+@Table(name = "leads", indexes = {
+    // Ranked worklists: active leads by score, overall and per rep
+    @Index(name = "idx_leads_status_score", columnList = "status, score, id"),
+    @Index(name = "idx_leads_employee_status_score", columnList = "employee_id, status, score, id")
+})
 @Data
 public class Lead {
 
@@ -75,6 +86,9 @@ public class Lead {
     @Enumerated(EnumType.STRING)
     private Stage stage = Stage.NEW;
 
+    // When the deal is expected to close, for the revenue forecast
+    private LocalDate expectedCloseDate;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
@@ -82,11 +96,22 @@ public class Lead {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "employee_id", nullable = false)
     private Employee employee;
+
+    // Written only by LeadScoringService, so a JPA save never overwrites a newer score
+    @Column(insertable = false, updatable = false)
+    private Double score;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime scoredAt;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
 }
@@ -4,17 +4,23 @@ import java.time.LocalDateTime;
 
 import org.hibernate.annotations.CreationTimestamp;
 
+import com.example.CREMIx.misc.EntityChangePublisher;
 import com.example.CREMIx.misc.Location;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
+@Table(indexes = @Index(name = "idx_note_location", columnList = "location, location_id"))
+@EntityListeners(EntityChangePublisher.class)
 @Data
 public class Note {
 
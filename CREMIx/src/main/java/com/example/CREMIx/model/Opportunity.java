@@ -6,24 +6,69 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.EntityChangePublisher;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Entity
+@EntityListeners(EntityChangePublisher.class)
+// Board columns: active opportunities of a stage, newest first
+@Table(indexes = @Index(name = "idx_opportunity_status_stage_created", columnList = "status, stage, created_at, id"))
+// Fetch plans per use case; every association is lazy otherwise
+@NamedEntityGraph(name = Opportunity.LIST_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "lead", subgraph = "lead"),
+        subgraphs = @NamedSubgraph(name = "lead", attributeNodes = {
+            @NamedAttributeNode("customer"),
+            @NamedAttributeNode("employee")
+        }))
+@NamedEntityGraph(name = Opportunity.DETAIL_GRAPH,
+        attributeNodes = {
+            @NamedAttributeNode(value = "lead", subgraph = "lead"),
+            @NamedAttributeNode("quotation"),
+            @NamedAttributeNode("employee"),
+            @NamedAttributeNode("customer")
+        },
+        subgraphs = @NamedSubgraph(name = "lead", attributeNodes = {
+            @NamedAttributeNode("customer"),
+            @NamedAttributeNode("employee")
+        }))
+@NamedEntityGraph(name = Opportunity.INVOICE_GRAPH,
+        attributeNodes = {
+            @NamedAttributeNode(value = "lead", subgraph = "lead"),
+            @NamedAttributeNode("employee"),
+            @NamedAttributeNode("customer")
+        },
+        subgraphs = @NamedSubgraph(name = "lead", attributeNodes = @NamedAttributeNode("customer")))
 @Data
 public class Opportunity {
 
+    // Lead with its customer and employee, as OpportunityDTO shows them
+    public static final String LIST_GRAPH = "Opportunity.list";
+    // Everything directly attached to the opportunity
+    public static final String DETAIL_GRAPH = "Opportunity.detail";
+    // What generating an invoice from the opportunity's quotation reads
+    public static final String INVOICE_GRAPH = "Opportunity.invoice";
+
+
     public enum Stage {
         NEW,
         WON,
@@ -41,6 +86,9 @@ public class Opportunity {
     @Enumerated(EnumType.STRING)
     private Stage stage = Stage.NEW;
 
+    // When the opportunity entered its current stage; null for rows older than stage tracking
+    private LocalDateTime stageChangedAt;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
@@ -48,17 +96,21 @@ public class Opportunity {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "lead_id", nullable = false)
     private Lead lead;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "quotation_id")
     private Quotation quotation;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Employee employee;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Customer customer;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
 }
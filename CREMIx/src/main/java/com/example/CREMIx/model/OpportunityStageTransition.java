@@ -0,0 +1,53 @@
+package com.example.CREMIx.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * One opportunity stage change. Append-only; written in batches by FunnelAnalyticsService.
+ */
+@Entity
+@Table(name = "opportunity_stage_transition", indexes = {
+    @Index(name = "idx_stage_transition_opportunity", columnList = "opportunity_id, changed_at"),
+    @Index(name = "idx_stage_transition_changed", columnList = "changed_at")
+})
+@Data
+public class OpportunityStageTransition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "opportunity_id", nullable = false)
+    private Long opportunityId;
+
+    @Column(name = "employee_id")
+    private Long employeeId;
+
+    // Null when the opportunity was created
+    @Enumerated(EnumType.STRING)
+    private Opportunity.Stage fromStage;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Opportunity.Stage toStage;
+
+    // When the opportunity entered fromStage
+    private LocalDateTime enteredAt;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+
+    // When the opportunity was created, for cycle times
+    private LocalDateTime openedAt;
+}
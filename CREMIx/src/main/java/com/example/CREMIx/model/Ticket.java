@@ -5,21 +5,28 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import com.example.CREMIx.misc.EntityChangePublisher;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.ToString;
 
 @Entity
-@Table(name = "ticket")
+@EntityListeners(EntityChangePublisher.class)
+// Escalated queue: open tickets by status and priority, oldest first
+@Table(name = "ticket", indexes = @Index(name = "idx_ticket_status_priority_created", columnList = "status, priority, created_at"))
 @Data
 public class Ticket {
 
@@ -56,10 +63,21 @@ public class Ticket {
     @Enumerated(EnumType.STRING)
     @Column(length = 20)
     private TicketPriority priority = TicketPriority.MEDIUM;
+
+    // Optional skill tag; only employees with this skill are dispatched the ticket
+    @Column(length = 50)
+    private String skill;
     
     @CreationTimestamp
     private LocalDateTime createdAt;
     
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    // First time the ticket was given to an employee, for first response analytics
+    private LocalDateTime assignedAt;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
 }
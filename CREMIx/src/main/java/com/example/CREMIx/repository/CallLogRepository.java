@@ -1,20 +1,43 @@
 package com.example.CREMIx.repository;
 
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.CallLogDTO;
 import com.example.CREMIx.model.CallLog;
 import com.example.CREMIx.model.CallLog.CallType;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CallLogRepository extends JpaRepository<CallLog, Long> {
     
     List<CallLog> findByCustomerId(Long customerId);
     
+    /**
+     * Most recent calls with a customer, for the customer overview
+     */
+    @Query("""
+        SELECT new com.example.CREMIx.dto.CallLogDTO(c.id, c.title, c.description, c.type, c.dateTime, c.minutes,
+               c.seconds, cu.name, e.name, cu.email, e.email)
+        FROM CallLog c
+        JOIN c.customer cu
+        JOIN c.employee e
+        WHERE cu.id = :customerId
+        ORDER BY c.dateTime DESC, c.id DESC
+        """)
+    List<CallLogDTO> findRecentByCustomerId(Long customerId, Pageable pageable);
+
     List<CallLog> findByEmployeeId(Long employeeId);
     
     List<CallLog> findByType(CallType type);
@@ -36,4 +59,23 @@ public interface CallLogRepository extends JpaRepository<CallLog, Long> {
     @Query("SELECT c FROM CallLog c WHERE c.customer.email = :email AND c.dateTime BETWEEN :startDate AND :endDate")
     List<CallLog> findByCustomerEmailAndDateTimeBetween(
         @Param("email") String email, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Stream every call log as a flat row for exports.
+     * Columns: id, title, description, type, dateTime, minutes, seconds, customerId, customerName, customerEmail,
+     * employeeName, employeeEmail
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingJdbcConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT c.id, c.title, c.description, c.type, c.dateTime, c.minutes, c.seconds,
+               cu.id, cu.name, cu.email, e.name, e.email
+        FROM CallLog c
+        JOIN c.customer cu
+        JOIN c.employee e
+        ORDER BY c.id
+        """)
+    Stream<Object[]> streamExportRows();
 }
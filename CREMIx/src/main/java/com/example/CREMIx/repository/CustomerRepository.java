@@ -1,19 +1,53 @@
 package com.example.CREMIx.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.CollectionVersionDTO;
+import com.example.CREMIx.misc.ActivityStatus;
 import com.example.CREMIx.model.Customer;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByEmail(String email);
     Optional<Customer> findByName(String name);
 
+    List<Customer> findByEmailIn(Collection<String> emails);
+
+    /**
+     * Customers for a bulk upsert. Loaded read-only: the upsert writes through JDBC,
+     * so Hibernate must not flush its own update for the merged entities.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    List<Customer> findForUpsertByEmailIn(Collection<String> emails);
+
+    List<Customer> findByNameIn(Collection<String> names);
+
+    /**
+     * (id, name) rows for IdentityResolver
+     */
+    @Query("SELECT c.id, c.name FROM Customer c WHERE c.name IN :names")
+    List<Object[]> findIdsByNameIn(Collection<String> names);
+
+    /**
+     * (id, email) rows for IdentityResolver
+     */
+    @Query("SELECT c.id, c.email FROM Customer c WHERE c.email IN :emails")
+    List<Object[]> findIdsByEmailIn(Collection<String> emails);
+
     @Query("SELECT c.name FROM Customer c WHERE c.type != 'DELETED'")
     List<String> findAllNames();
 
@@ -24,4 +58,64 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     @Query("SELECT c FROM Customer c WHERE c.status = 'DELETED'")
     List<Customer> findDeletedCustomers();
+
+    /**
+     * Ids for a bulk status change; customers have no creation time, so only status filters
+     */
+    @Query("SELECT c.id FROM Customer c WHERE c.status = :currentStatus ORDER BY c.id")
+    List<Long> findIdsForStatusChange(ActivityStatus currentStatus);
+
+    /**
+     * Set-based status change for one chunk of ids; bumps version and updatedAt like a JPA save would.
+     * Rows already in the target status are left alone.
+     * @return Number of rows changed
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        UPDATE Customer c
+        SET c.status = :status, c.updatedAt = :now, c.version = c.version + 1
+        WHERE c.id IN :ids AND c.status <> :status
+        """)
+    int updateStatusByIdIn(Collection<Long> ids, ActivityStatus status, LocalDateTime now);
+
+    /**
+     * Stream every customer as a flat row for exports.
+     * Columns: id, name, email, phoneNumber, address, city, state, zipCode, country, website, type, status
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingJdbcConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT c.id, c.name, c.email, c.phoneNumber, c.address, c.city, c.state, c.zipCode,
+               c.country, c.website, c.type, c.status
+        FROM Customer c
+        ORDER BY c.id
+        """)
+    Stream<Object[]> streamExportRows();
+
+    /**
+     * Fields compared by the duplicate detector for every active customer.
+     * Columns: id, name, email, phoneNumber, address, city
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+        SELECT c.id, c.name, c.email, c.phoneNumber, c.address, c.city
+        FROM Customer c
+        WHERE c.status = 'ACTIVE'
+        """)
+    List<Object[]> findDuplicateCheckRows();
+
+    /**
+     * Version tag for ETags, without loading the customer
+     */
+    @Query("SELECT CAST(c.version AS String) FROM Customer c WHERE c.id = :id")
+    Optional<String> findVersionTagById(Long id);
+
+    @Query("""
+        SELECT new com.example.CREMIx.dto.CollectionVersionDTO(COUNT(c), MAX(c.updatedAt))
+        FROM Customer c
+        WHERE c.status = 'ACTIVE'
+        """)
+    CollectionVersionDTO findActiveCollectionVersion();
 }
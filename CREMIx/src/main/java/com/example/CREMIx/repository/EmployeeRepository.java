@@ -1,5 +1,6 @@
 package com.example.CREMIx.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,22 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     Optional<Employee> findByEmail(String email);
     Optional<Employee> findByName(String name);
 
+    List<Employee> findByNameIn(Collection<String> names);
+
+    List<Employee> findByEmailIn(Collection<String> emails);
+
+    /**
+     * (id, name) rows for IdentityResolver
+     */
+    @Query("SELECT e.id, e.name FROM Employee e WHERE e.name IN :names")
+    List<Object[]> findIdsByNameIn(Collection<String> names);
+
+    /**
+     * (id, email) rows for IdentityResolver
+     */
+    @Query("SELECT e.id, e.email FROM Employee e WHERE e.email IN :emails")
+    List<Object[]> findIdsByEmailIn(Collection<String> emails);
+
     @Query("SELECT e.name FROM Employee e")
     List<String> findAllNames();
 }
@@ -2,15 +2,23 @@ package com.example.CREMIx.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.CollectionVersionDTO;
 import com.example.CREMIx.dto.InvoiceDTO;
 import com.example.CREMIx.model.Invoice;
 import com.example.CREMIx.model.Opportunity;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
@@ -40,6 +48,24 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
             """)
     List<InvoiceDTO> findByCustomerId(Long customerId);
 
+    /**
+     * Newest invoices of a customer. Unlike findByCustomerId this does not join quotation items,
+     * so it returns one row per invoice and includes invoices without a quotation. The items are
+     * left out; see QuotationRepository.findItemsByQuotationIdIn.
+     */
+    @Query("""
+            SELECT new com.example.CREMIx.dto.InvoiceDTO(i.id, i.invoiceNumber, c.name, c.email, e.name, i.status,
+                   COALESCE(q.title, 'Invoice'), i.createdAt, i.updatedAt, i.invoiceDate, i.dueDate, i.terms,
+                   i.subtotal, i.discount, i.taxRate, i.taxAmount, i.total, c.id, q.id)
+            FROM Invoice i
+            JOIN i.customer c
+            JOIN i.employee e
+            LEFT JOIN i.quotation q
+            WHERE c.id = :customerId
+            ORDER BY i.invoiceDate DESC, i.id DESC
+            """)
+    List<InvoiceDTO> findRecentByCustomerId(Long customerId, Pageable pageable);
+
     /**
      * Find invoices by customer email
      * @param email The customer's email address
@@ -57,4 +83,48 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Optional<Invoice> findByOpportunity(Opportunity opportunity);
     
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
+
+    /**
+     * Stream every invoice as a flat row for exports.
+     * Columns: id, invoiceNumber, status, title, invoiceDate, dueDate, terms, subtotal, discount, taxRate,
+     * taxAmount, total, createdAt, updatedAt, customerId, customerName, customerEmail, employeeName,
+     * quotationId, opportunityId
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingJdbcConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT i.id, i.invoiceNumber, i.status, i.title, i.invoiceDate, i.dueDate, i.terms, i.subtotal,
+                   i.discount, i.taxRate, i.taxAmount, i.total, i.createdAt, i.updatedAt,
+                   c.id, c.name, c.email, e.name, q.id, o.id
+            FROM Invoice i
+            LEFT JOIN i.customer c
+            LEFT JOIN i.employee e
+            LEFT JOIN i.quotation q
+            LEFT JOIN i.opportunity o
+            ORDER BY i.id
+            """)
+    Stream<Object[]> streamExportRows();
+
+    /**
+     * Version tag for ETags: invoice, quotation and customer versions, as embedded in InvoiceDTO
+     */
+    @Query("""
+            SELECT CONCAT(CAST(i.version AS String), '.', CAST(COALESCE(q.version, 0) AS String),
+                          '.', CAST(COALESCE(c.version, 0) AS String))
+            FROM Invoice i
+            LEFT JOIN i.quotation q
+            LEFT JOIN i.customer c
+            WHERE i.id = :id
+            """)
+    Optional<String> findVersionTagById(Long id);
+
+    @Query("""
+            SELECT new com.example.CREMIx.dto.CollectionVersionDTO(COUNT(i), MAX(i.updatedAt), MAX(q.updatedAt), MAX(c.updatedAt))
+            FROM Invoice i
+            LEFT JOIN i.quotation q
+            LEFT JOIN i.customer c
+            """)
+    CollectionVersionDTO findCollectionVersion();
 }
@@ -1,18 +1,34 @@
 package com.example.CREMIx.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.CollectionVersionDTO;
 import com.example.CREMIx.dto.LeadDTO;
+import com.example.CREMIx.dto.LeadWorklistItemDTO;
+import com.example.CREMIx.misc.ActivityStatus;
 import com.example.CREMIx.model.Lead;
 
+import jakarta.persistence.QueryHint;
+
 public interface LeadRepository extends JpaRepository<Lead, Long> {
     List<Lead> findByStatus(String status);
 
     @Query("""
-        SELECT new com.example.CREMIx.dto.LeadDTO(l)
+        SELECT new com.example.CREMIx.dto.LeadDTO(c.id, c.name, c.email, c.phoneNumber, c.address, c.city,
+               c.state, c.zipCode, c.country, c.website, l.id, l.requirement, e.name, l.probability,
+               l.expectedRevenue, l.source, l.expectedCloseDate, l.createdAt)
         FROM Lead l
         JOIN l.customer c
         JOIN l.employee e
@@ -21,7 +37,9 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
     List<LeadDTO> getAllLeadDetails();
 
     @Query("""
-        SELECT new com.example.CREMIx.dto.LeadDTO(l)
+        SELECT new com.example.CREMIx.dto.LeadDTO(c.id, c.name, c.email, c.phoneNumber, c.address, c.city,
+               c.state, c.zipCode, c.country, c.website, l.id, l.requirement, e.name, l.probability,
+               l.expectedRevenue, l.source, l.expectedCloseDate, l.createdAt)
         FROM Lead l
         JOIN l.customer c
         JOIN l.employee e
@@ -30,7 +48,9 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
     LeadDTO getLeadDetailsById(Long id); // Use the correct type for the ID field in your Lead entity
 
     @Query("""
-        SELECT new com.example.CREMIx.dto.LeadDTO(l)
+        SELECT new com.example.CREMIx.dto.LeadDTO(c.id, c.name, c.email, c.phoneNumber, c.address, c.city,
+               c.state, c.zipCode, c.country, c.website, l.id, l.requirement, e.name, l.probability,
+               l.expectedRevenue, l.source, l.expectedCloseDate, l.createdAt)
         FROM Lead l
         JOIN l.customer c
         JOIN l.employee e
@@ -38,11 +58,109 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
         """)
     List<LeadDTO> getDeletedLeadDetails();
 
+    /**
+     * Newest active leads of a customer, for the customer overview
+     */
+    @Query("""
+        SELECT new com.example.CREMIx.dto.LeadDTO(c.id, c.name, c.email, c.phoneNumber, c.address, c.city,
+               c.state, c.zipCode, c.country, c.website, l.id, l.requirement, e.name, l.probability,
+               l.expectedRevenue, l.source, l.expectedCloseDate, l.createdAt)
+        FROM Lead l
+        JOIN l.customer c
+        JOIN l.employee e
+        WHERE c.id = :customerId AND l.status = 'ACTIVE'
+        ORDER BY l.createdAt DESC, l.id DESC
+        """)
+    List<LeadDTO> findRecentByCustomerId(Long customerId, Pageable pageable);
+
     @Query("""
-        SELECT l
+        SELECT new com.example.CREMIx.dto.LeadDTO(c.id, c.name, c.email, c.phoneNumber, c.address, c.city,
+               c.state, c.zipCode, c.country, c.website, l.id, l.requirement, e.name, l.probability,
+               l.expectedRevenue, l.source, l.expectedCloseDate, l.createdAt)
         FROM Lead l
+        JOIN l.customer c
         JOIN l.employee e
         WHERE e.id = :employeeId
         """)
-    List<Lead> findByEmployeeId(Long employeeId);
+    List<LeadDTO> getLeadDetailsByEmployeeId(Long employeeId);
+
+    /**
+     * Ids for a bulk status change; null arguments do not filter
+     */
+    @Query("""
+        SELECT l.id FROM Lead l
+        WHERE (:currentStatus IS NULL OR l.status = :currentStatus)
+        AND (:createdFrom IS NULL OR l.createdAt >= :createdFrom)
+        AND (:createdTo IS NULL OR l.createdAt < :createdTo)
+        ORDER BY l.id
+        """)
+    List<Long> findIdsForStatusChange(ActivityStatus currentStatus, LocalDateTime createdFrom, LocalDateTime createdTo);
+
+    /**
+     * Set-based status change for one chunk of ids; bumps version and updatedAt like a JPA save would.
+     * Rows already in the target status are left alone.
+     * @return Number of rows changed
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        UPDATE Lead l
+        SET l.status = :status, l.updatedAt = :now, l.version = l.version + 1
+        WHERE l.id IN :ids AND l.status <> :status
+        """)
+    int updateStatusByIdIn(Collection<Long> ids, ActivityStatus status, LocalDateTime now);
+
+    /**
+     * Active scored leads, best score first. Keyset paged: pass the score and id of the last row
+     * seen to get the next page, which stays an index range scan however deep the page.
+     */
+    @Query("""
+        SELECT new com.example.CREMIx.dto.LeadWorklistItemDTO(l.id, l.requirement, c.id, c.name, e.name,
+               l.expectedRevenue, l.probability, l.source, l.stage, l.score, l.scoredAt, l.createdAt)
+        FROM Lead l
+        JOIN l.customer c
+        JOIN l.employee e
+        WHERE l.status = 'ACTIVE' AND l.score IS NOT NULL
+        AND (:employeeId IS NULL OR e.id = :employeeId)
+        AND (:afterScore IS NULL OR l.score < :afterScore OR (l.score = :afterScore AND l.id < :afterId))
+        ORDER BY l.score DESC, l.id DESC
+        """)
+    List<LeadWorklistItemDTO> findWorklist(Long employeeId, Double afterScore, Long afterId, Pageable pageable);
+
+    /**
+     * Stream every lead as a flat row for exports.
+     * Columns: id, requirement, expectedRevenue, probability, source, type, stage, status, createdAt, updatedAt,
+     * customerId, customerName, customerEmail, assignedTo
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingJdbcConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT l.id, l.requirement, l.expectedRevenue, l.probability, l.source, l.type, l.stage, l.status,
+               l.createdAt, l.updatedAt, c.id, c.name, c.email, e.name
+        FROM Lead l
+        JOIN l.customer c
+        JOIN l.employee e
+        ORDER BY l.id
+        """)
+    Stream<Object[]> streamExportRows();
+
+    /**
+     * Version tag for ETags: lead version, then the version of the customer embedded in LeadDTO
+     */
+    @Query("""
+        SELECT CONCAT(CAST(l.version AS String), '.', CAST(c.version AS String))
+        FROM Lead l
+        JOIN l.customer c
+        WHERE l.id = :id
+        """)
+    Optional<String> findVersionTagById(Long id);
+
+    @Query("""
+        SELECT new com.example.CREMIx.dto.CollectionVersionDTO(COUNT(l), MAX(l.updatedAt), MAX(c.updatedAt))
+        FROM Lead l
+        JOIN l.customer c
+        WHERE l.status = 'ACTIVE'
+        """)
+    CollectionVersionDTO findActiveCollectionVersion();
 }
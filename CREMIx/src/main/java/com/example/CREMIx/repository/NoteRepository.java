@@ -2,6 +2,7 @@ package com.example.CREMIx.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -34,6 +35,14 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
             """)
     List<NoteDTO> findByCustomerIdInCustomer(Long id);
 
+    @Query("""
+        SELECT new com.example.CREMIx.dto.NoteDTO(n.id, n.title, n.description, n.creationDate, n.location, n.locationId)
+        FROM Note n
+        WHERE n.location = com.example.CREMIx.misc.Location.CUSTOMER AND n.locationId = :id
+        ORDER BY n.creationDate DESC, n.id DESC
+            """)
+    List<NoteDTO> findRecentByCustomerId(Long id, Pageable pageable);
+
     default List<NoteDTO> findByLocationAndId(String location, Long id) {
         switch (location.toUpperCase()) {
             case "LEAD":
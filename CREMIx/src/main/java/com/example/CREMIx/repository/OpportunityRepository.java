@@ -1,43 +1,98 @@
 package com.example.CREMIx.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import com.example.CREMIx.dto.OpportunityDTO;
+import com.example.CREMIx.dto.CollectionVersionDTO;
+import com.example.CREMIx.misc.ActivityStatus;
 import com.example.CREMIx.model.Opportunity;
 import com.example.CREMIx.model.Quotation;
 
 @Repository
 public interface OpportunityRepository extends JpaRepository<Opportunity, Long> {
     
+    @EntityGraph(Opportunity.LIST_GRAPH)
+    List<Opportunity> findByStatus(ActivityStatus status);
+
+    @EntityGraph(Opportunity.LIST_GRAPH)
+    List<Opportunity> findByStageAndStatus(Opportunity.Stage stage, ActivityStatus status);
+
+    @EntityGraph(Opportunity.LIST_GRAPH)
+    List<Opportunity> findByEmployeeId(Long employeeId);
+
+    @EntityGraph(Opportunity.DETAIL_GRAPH)
+    Optional<Opportunity> findDetailById(Long id);
+
+    /**
+     * Newest active opportunities of a customer, linked directly or through their lead
+     */
+    @EntityGraph(Opportunity.LIST_GRAPH)
     @Query("""
-            SELECT o FROM Opportunity o
-            WHERE o.status = 'ACTIVE'
+            SELECT o
+            FROM Opportunity o
+            LEFT JOIN o.lead l
+            WHERE (o.customer.id = :customerId OR l.customer.id = :customerId)
+            AND o.status = 'ACTIVE'
+            ORDER BY o.createdAt DESC, o.id DESC
             """)
-    List<OpportunityDTO> findAllActiveOpportunityDTOs();
+    List<Opportunity> findRecentByCustomerId(Long customerId, Pageable pageable);
 
+    /**
+     * Ids for a bulk status change; null arguments do not filter
+     */
     @Query("""
-            SELECT o FROM Opportunity o
-            WHERE o.status = 'Deleted'
-            """)
-    List<OpportunityDTO> findAllDeletedOpportunityDTOs();
+        SELECT o.id FROM Opportunity o
+        WHERE (:currentStatus IS NULL OR o.status = :currentStatus)
+        AND (:createdFrom IS NULL OR o.createdAt >= :createdFrom)
+        AND (:createdTo IS NULL OR o.createdAt < :createdTo)
+        ORDER BY o.id
+        """)
+    List<Long> findIdsForStatusChange(ActivityStatus currentStatus, LocalDateTime createdFrom, LocalDateTime createdTo);
 
+    /**
+     * Set-based status change for one chunk of ids; bumps version and updatedAt like a JPA save would.
+     * Rows already in the target status are left alone.
+     * @return Number of rows changed
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("""
-            SELECT o FROM Opportunity o
-            WHERE o.stage = :stage
-            AND o.status = 'ACTIVE'
-            """)
-    List<OpportunityDTO> findActiveOpportunityDTOsByStage(String stage);
+        UPDATE Opportunity o
+        SET o.status = :status, o.updatedAt = :now, o.version = o.version + 1
+        WHERE o.id IN :ids AND o.status <> :status
+        """)
+    int updateStatusByIdIn(Collection<Long> ids, ActivityStatus status, LocalDateTime now);
 
+    @EntityGraph(Opportunity.INVOICE_GRAPH)
     Optional<Opportunity> findByQuotation(Quotation quotation);
 
-	@Query("""
-			SELECT o FROM Opportunity o
-			WHERE o.employee.id = :employeeId
-			""")
-    List<OpportunityDTO> findActiveOpportunityDTOsByEmployeeId(Long employeeId);
+    /**
+     * Version tag for ETags: opportunity, lead and lead customer versions, as embedded in OpportunityDTO
+     */
+    @Query("""
+            SELECT CONCAT(CAST(o.version AS String), '.', CAST(COALESCE(l.version, 0) AS String),
+                          '.', CAST(COALESCE(c.version, 0) AS String))
+            FROM Opportunity o
+            LEFT JOIN o.lead l
+            LEFT JOIN l.customer c
+            WHERE o.id = :id
+            """)
+    Optional<String> findVersionTagById(Long id);
+
+    @Query("""
+            SELECT new com.example.CREMIx.dto.CollectionVersionDTO(COUNT(o), MAX(o.updatedAt), MAX(l.updatedAt), MAX(c.updatedAt))
+            FROM Opportunity o
+            LEFT JOIN o.lead l
+            LEFT JOIN l.customer c
+            WHERE o.status = 'ACTIVE'
+            """)
+    CollectionVersionDTO findActiveCollectionVersion();
 }
@@ -1,11 +1,14 @@
 package com.example.CREMIx.repository;
 
 import com.example.CREMIx.dto.QuotationDTO;
+import com.example.CREMIx.model.QItem;
 import com.example.CREMIx.model.Quotation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -67,4 +70,40 @@ public interface QuotationRepository extends JpaRepository<Quotation, Long> {
             )
             """)
     List<Quotation> findByCustomerEmail(String email);
+
+    /**
+     * Newest quotations of a customer in any stage, linked directly or through an opportunity.
+     * The items are left out; see findItemsByQuotationIdIn.
+     */
+    @Query("""
+            SELECT new com.example.CREMIx.dto.QuotationDTO(q.id, q.title, q.description, q.createdAt, q.validUntil,
+                   q.total, q.stage)
+            FROM Quotation q
+            WHERE q.customer.id = :customerId
+            OR q IN (SELECT o.quotation FROM Opportunity o WHERE o.customer.id = :customerId AND o.quotation IS NOT NULL)
+            ORDER BY q.createdAt DESC, q.id DESC
+            """)
+    List<QuotationDTO> findRecentByCustomerId(Long customerId, Pageable pageable);
+
+    /**
+     * Items of several quotations with their products, in one statement
+     */
+    @Query("""
+            SELECT i
+            FROM QItem i
+            JOIN FETCH i.product
+            JOIN FETCH i.quotation q
+            WHERE q.id IN :quotationIds
+            ORDER BY i.id
+            """)
+    List<QItem> findItemsByQuotationIdIn(Collection<Long> quotationIds);
+
+    @Query("SELECT q.id FROM Opportunity o JOIN o.quotation q WHERE o.id = :opportunityId")
+    Optional<Long> findIdByOpportunityId(Long opportunityId);
+
+    /**
+     * Version tag for ETags, without loading the quotation and its items
+     */
+    @Query("SELECT CAST(q.version AS String) FROM Quotation q WHERE q.id = :id")
+    Optional<String> findVersionTagById(Long id);
 }
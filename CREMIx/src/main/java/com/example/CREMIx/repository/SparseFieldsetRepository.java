@@ -0,0 +1,87 @@
+package com.example.CREMIx.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Repository;
+
+import com.example.CREMIx.misc.FieldSet;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Runs projection queries that select only the columns behind the requested DTO fields.
+ * Associations are joined only when a selected field needs them.
+ */
+@Repository
+public class SparseFieldsetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<Map<String, Object>> findFields(Class<?> entityClass, FieldSet fieldSet, List<String> fields,
+            Map<String, Object> filters) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityClass);
+        Map<String, Join<?, ?>> joins = new HashMap<>();
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields) {
+            Expression<?> selection = resolve(root, joins, fieldSet.pathOf(field));
+            Object fallback = fieldSet.fallbackOf(field);
+            if (fallback != null) {
+                selection = cb.coalesce(selection, fallback);
+            }
+            selections.add(selection.alias(field));
+        }
+        query.multiselect(selections);
+
+        List<Predicate> predicates = new ArrayList<>();
+        filters.forEach((attribute, value) -> predicates.add(cb.equal(root.get(attribute), value)));
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.asc(root.get("id")));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, fieldSet.format(field, tuple.get(field)));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Path<?> resolve(Root<?> root, Map<String, Join<?, ?>> joins, String path) {
+        String[] parts = path.split("\\.");
+        From<?, ?> from = root;
+        StringBuilder joinPath = new StringBuilder();
+        for (int i = 0; i < parts.length - 1; i++) {
+            if (joinPath.length() > 0) {
+                joinPath.append('.');
+            }
+            joinPath.append(parts[i]);
+            From<?, ?> parent = from;
+            String attribute = parts[i];
+            // Left joins so optional associations (ticket employee, invoice quotation) don't drop rows
+            from = joins.computeIfAbsent(joinPath.toString(), key -> parent.join(attribute, JoinType.LEFT));
+        }
+        return from.get(parts[parts.length - 1]);
+    }
+}
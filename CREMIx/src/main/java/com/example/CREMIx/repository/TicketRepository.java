@@ -1,18 +1,47 @@
 package com.example.CREMIx.repository;
 
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.CollectionVersionDTO;
+import com.example.CREMIx.dto.TicketDTO;
 import com.example.CREMIx.model.Ticket;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByCustomerId(Long customerId);
     
+    /**
+     * Newest tickets of a customer, for the customer overview
+     */
+    @Query("""
+        SELECT new com.example.CREMIx.dto.TicketDTO(t.id, t.subject, t.description, c.id, c.name, c.email,
+               e.name, e.email, t.status, t.priority, t.skill, t.createdAt, t.updatedAt, t.assignedAt)
+        FROM Ticket t
+        JOIN t.customer c
+        LEFT JOIN t.employee e
+        WHERE c.id = :customerId
+        ORDER BY t.createdAt DESC, t.id DESC
+        """)
+    List<TicketDTO> findRecentByCustomerId(Long customerId, Pageable pageable);
+
     List<Ticket> findByStatus(Ticket.TicketStatus status);
+
+    @Query("SELECT new com.example.CREMIx.dto.TicketDTO(t) FROM Ticket t WHERE t.id IN :ids")
+    List<TicketDTO> findDTOsByIdIn(Collection<Long> ids);
     
     @Query("SELECT t FROM Ticket t WHERE t.customer.email = :email")
     List<Ticket> findByCustomerEmail(@Param("email") String email);
@@ -22,4 +51,41 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
     @Query("SELECT t FROM Ticket t WHERE t.employee.email = :email")
     List<Ticket> findByEmployeeEmail(String email);
+
+    /**
+     * Stream every ticket as a flat row for exports.
+     * Columns: id, subject, description, status, priority, createdAt, updatedAt, customerId, customerName,
+     * customerEmail, employeeName, employeeEmail
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = StreamingJdbcConfig.STREAMING_FETCH_SIZE),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT t.id, t.subject, t.description, t.status, t.priority, t.createdAt, t.updatedAt,
+               c.id, c.name, c.email, e.name, e.email
+        FROM Ticket t
+        LEFT JOIN t.customer c
+        LEFT JOIN t.employee e
+        ORDER BY t.id
+        """)
+    Stream<Object[]> streamExportRows();
+
+    /**
+     * Version tag for ETags: ticket version, then the version of its customer
+     */
+    @Query("""
+        SELECT CONCAT(CAST(t.version AS String), '.', CAST(COALESCE(c.version, 0) AS String))
+        FROM Ticket t
+        LEFT JOIN t.customer c
+        WHERE t.id = :id
+        """)
+    Optional<String> findVersionTagById(Long id);
+
+    @Query("""
+        SELECT new com.example.CREMIx.dto.CollectionVersionDTO(COUNT(t), MAX(t.updatedAt), MAX(c.updatedAt))
+        FROM Ticket t
+        LEFT JOIN t.customer c
+        """)
+    CollectionVersionDTO findCollectionVersion();
 }
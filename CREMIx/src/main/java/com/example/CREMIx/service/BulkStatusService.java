@@ -0,0 +1,112 @@
+package com.example.CREMIx.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.CREMIx.dto.BulkStatusRequestDTO;
+import com.example.CREMIx.dto.BulkStatusResultDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.repository.CustomerRepository;
+import com.example.CREMIx.repository.LeadRepository;
+import com.example.CREMIx.repository.OpportunityRepository;
+
+/**
+ * Bulk soft delete, restore and status change for customers, leads and opportunities.
+ * Records are picked by id list or filter and changed with set-based UPDATE statements in
+ * chunks, each chunk in its own transaction, instead of a load and save per record.
+ * One BULK change event per call tells caches and projections to refresh.
+ */
+@Service
+public class BulkStatusService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkStatusService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public BulkStatusResultDTO updateCustomerStatus(BulkStatusRequestDTO request, ActivityStatus status) {
+        if (request.getCreatedFrom() != null || request.getCreatedTo() != null) {
+            throw new IllegalArgumentException("Customers can only be selected by ids or currentStatus");
+        }
+        validate(request, status);
+        List<Long> ids = request.hasIds() ? request.getIds()
+                : customerRepository.findIdsForStatusChange(request.getCurrentStatus());
+        return update(Customer.class, status, ids,
+                (chunk, now) -> customerRepository.updateStatusByIdIn(chunk, status, now));
+    }
+
+    public BulkStatusResultDTO updateLeadStatus(BulkStatusRequestDTO request, ActivityStatus status) {
+        validate(request, status);
+        List<Long> ids = request.hasIds() ? request.getIds()
+                : leadRepository.findIdsForStatusChange(request.getCurrentStatus(), request.getCreatedFrom(),
+                        request.getCreatedTo());
+        return update(Lead.class, status, ids,
+                (chunk, now) -> leadRepository.updateStatusByIdIn(chunk, status, now));
+    }
+
+    public BulkStatusResultDTO updateOpportunityStatus(BulkStatusRequestDTO request, ActivityStatus status) {
+        validate(request, status);
+        List<Long> ids = request.hasIds() ? request.getIds()
+                : opportunityRepository.findIdsForStatusChange(request.getCurrentStatus(), request.getCreatedFrom(),
+                        request.getCreatedTo());
+        return update(Opportunity.class, status, ids,
+                (chunk, now) -> opportunityRepository.updateStatusByIdIn(chunk, status, now));
+    }
+
+    private static void validate(BulkStatusRequestDTO request, ActivityStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("status is required");
+        }
+        if (request.hasIds() == request.hasFilter()) {
+            // Neither would change every record, both is ambiguous
+            throw new IllegalArgumentException("Pass either ids or a filter (currentStatus, createdFrom, createdTo)");
+        }
+    }
+
+    private BulkStatusResultDTO update(Class<?> entityType, ActivityStatus status, List<Long> ids,
+            BiFunction<List<Long>, LocalDateTime, Integer> updateChunk) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        LocalDateTime now = LocalDateTime.now();
+        BulkStatusResultDTO result = new BulkStatusResultDTO(distinctIds.size(), 0, 0);
+        for (int start = 0; start < distinctIds.size(); start += CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(start, Math.min(start + CHUNK_SIZE, distinctIds.size()));
+            Integer affected = transaction.execute(tx -> updateChunk.apply(chunk, now));
+            result.setAffected(result.getAffected() + affected);
+            result.setChunks(result.getChunks() + 1);
+        }
+        if (result.getAffected() > 0) {
+            eventPublisher.publishEvent(EntityChangeEvent.bulk(entityType));
+        }
+        logger.info("Bulk status change of {} to {}: {} matched, {} changed", entityType.getSimpleName(), status,
+                result.getMatched(), result.getAffected());
+        return result;
+    }
+}
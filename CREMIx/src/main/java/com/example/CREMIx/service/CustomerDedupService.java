@@ -0,0 +1,411 @@
+package com.example.CREMIx.service;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.CREMIx.dto.CustomerDTO;
+import com.example.CREMIx.dto.DuplicateClusterDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.MinHash;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.repository.CustomerRepository;
+
+/**
+ * Background duplicate customer detection.
+ * Each active customer becomes a set of shingles (name and address trigrams, email domain, phone),
+ * summarised as a MinHash signature and cut into LSH bands. Only customers sharing a band bucket
+ * are compared, which keeps a scan close to linear in the number of customers. Candidate pairs are
+ * scored field by field, pairs above the threshold are joined into clusters, and the clusters form
+ * a review queue ordered by score.
+ */
+@Service
+public class CustomerDedupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerDedupService.class);
+
+    // 20 bands of 5 rows: pairs around 0.55 shingle similarity and up become candidates
+    private static final int BANDS = 20;
+    private static final int ROWS = 5;
+    // Buckets this large come from shingles almost everyone has; comparing them all is the O(n^2) we avoid
+    private static final int MAX_BUCKET_SIZE = 200;
+
+    // Field weights of the pair score
+    private static final double NAME_WEIGHT = 0.5;
+    private static final double PHONE_WEIGHT = 0.2;
+    private static final double DOMAIN_WEIGHT = 0.15;
+    private static final double ADDRESS_WEIGHT = 0.15;
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Set<String> LEGAL_SUFFIXES = Set.of(
+            "inc", "llc", "ltd", "limited", "corp", "corporation", "co", "company", "pvt", "plc", "gmbh", "sa");
+    // Sharing one of these says nothing about being the same customer
+    private static final Set<String> WEBMAIL_DOMAINS = Set.of(
+            "gmail.com", "yahoo.com", "hotmail.com", "outlook.com", "live.com", "icloud.com", "aol.com",
+            "protonmail.com", "rediffmail.com", "yahoo.co.in", "msn.com", "mail.com");
+
+    private final MinHash minHash = new MinHash(BANDS, ROWS, 0x5eedL);
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Value("${customers.dedup.threshold:0.75}")
+    private double threshold;
+
+    private volatile List<Cluster> clusters = List.of();
+
+    // Pairs a reviewer marked as different customers; kept in memory until restart
+    private final Set<Pair> dismissed = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean scanning = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("customer-dedup").daemon(true).factory());
+
+    /**
+     * Normalized fields of one customer
+     */
+    private record Profile(Long id, String name, String domain, String phone, String address) {
+    }
+
+    private record Pair(long first, long second) {
+        static Pair of(long a, long b) {
+            return a < b ? new Pair(a, b) : new Pair(b, a);
+        }
+    }
+
+    private record Cluster(String id, double score, List<Long> customerIds, List<DuplicateClusterDTO.Match> matches,
+            LocalDateTime detectedAt) {
+    }
+
+    @Scheduled(fixedDelayString = "${customers.dedup.interval-ms:3600000}",
+            initialDelayString = "${customers.dedup.initial-delay-ms:120000}")
+    public void scheduledScan() {
+        requestScan();
+    }
+
+    /**
+     * Start a scan in the background unless one is already running
+     * @return false if a scan was already queued or running
+     */
+    public boolean requestScan() {
+        if (!scanning.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(this::scan);
+        return true;
+    }
+
+    /**
+     * The review queue: clusters from the last scan, best first, with their current customer data.
+     * Customers deleted since the scan are dropped, and so are clusters left with one member.
+     */
+    public List<DuplicateClusterDTO> getDuplicateClusters() {
+        List<Cluster> current = clusters;
+        Set<Long> ids = current.stream().flatMap(c -> c.customerIds().stream()).collect(Collectors.toSet());
+        Map<Long, CustomerDTO> customers = customerRepository.findAllById(ids).stream()
+                .filter(customer -> customer.getStatus() == ActivityStatus.ACTIVE)
+                .collect(Collectors.toMap(Customer::getId, CustomerDTO::fromEntity));
+
+        List<DuplicateClusterDTO> result = new ArrayList<>();
+        for (Cluster cluster : current) {
+            List<CustomerDTO> members = cluster.customerIds().stream()
+                    .map(customers::get)
+                    .filter(customer -> customer != null)
+                    .toList();
+            if (members.size() < 2) {
+                continue;
+            }
+            DuplicateClusterDTO dto = new DuplicateClusterDTO();
+            dto.setClusterId(cluster.id());
+            dto.setScore(cluster.score());
+            dto.setDetectedAt(cluster.detectedAt());
+            dto.setCustomers(members);
+            dto.setMatches(cluster.matches().stream()
+                    .filter(m -> customers.containsKey(m.getCustomerId()) && customers.containsKey(m.getDuplicateId()))
+                    .toList());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    /**
+     * Mark every pair in a cluster as different customers, so later scans do not bring it back
+     */
+    public void dismissCluster(String clusterId) {
+        Cluster cluster = clusters.stream()
+                .filter(c -> c.id().equals(clusterId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Duplicate cluster not found with id: " + clusterId));
+        List<Long> ids = cluster.customerIds();
+        for (int i = 0; i < ids.size(); i++) {
+            for (int j = i + 1; j < ids.size(); j++) {
+                dismissed.add(Pair.of(ids.get(i), ids.get(j)));
+            }
+        }
+        clusters = clusters.stream().filter(c -> c != cluster).toList();
+    }
+
+    /**
+     * Runs once requestScan has set scanning
+     */
+    private void scan() {
+        try {
+            long start = System.currentTimeMillis();
+            List<Profile> profiles = customerRepository.findDuplicateCheckRows().stream()
+                    .map(CustomerDedupService::profile)
+                    .toList();
+            Set<Pair> candidates = candidatePairs(profiles);
+            Map<Long, Profile> byId = profiles.stream().collect(Collectors.toMap(Profile::id, Function.identity()));
+
+            LocalDateTime now = LocalDateTime.now();
+            Map<Long, Long> parent = new HashMap<>();
+            List<DuplicateClusterDTO.Match> matches = new ArrayList<>();
+            for (Pair pair : candidates) {
+                if (dismissed.contains(pair)) {
+                    continue;
+                }
+                DuplicateClusterDTO.Match match = score(byId.get(pair.first()), byId.get(pair.second()));
+                if (match.getScore() >= threshold) {
+                    matches.add(match);
+                    union(parent, pair.first(), pair.second());
+                }
+            }
+            clusters = cluster(parent, matches, now);
+            logger.info("Duplicate scan: {} customers, {} candidate pairs, {} clusters in {} ms",
+                    profiles.size(), candidates.size(), clusters.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Duplicate customer scan failed", e);
+        } finally {
+            scanning.set(false);
+        }
+    }
+
+    /**
+     * Pairs of customers sharing at least one LSH bucket
+     */
+    private Set<Pair> candidatePairs(List<Profile> profiles) {
+        List<Profile> hashed = new ArrayList<>();
+        List<long[]> bandKeys = new ArrayList<>();
+        for (Profile profile : profiles) {
+            List<String> shingles = shingles(profile);
+            if (shingles.size() >= 3) {
+                hashed.add(profile);
+                bandKeys.add(minHash.bandKeys(minHash.signature(shingles)));
+            }
+        }
+
+        Set<Pair> candidates = new HashSet<>();
+        int skipped = 0;
+        // One band at a time, so only one band's buckets are in memory
+        for (int band = 0; band < BANDS; band++) {
+            Map<Long, List<Long>> buckets = new HashMap<>();
+            for (int i = 0; i < hashed.size(); i++) {
+                buckets.computeIfAbsent(bandKeys.get(i)[band], k -> new ArrayList<>()).add(hashed.get(i).id());
+            }
+            for (List<Long> bucket : buckets.values()) {
+                if (bucket.size() < 2) {
+                    continue;
+                }
+                if (bucket.size() > MAX_BUCKET_SIZE) {
+                    skipped++;
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        candidates.add(Pair.of(bucket.get(i), bucket.get(j)));
+                    }
+                }
+            }
+        }
+        if (skipped > 0) {
+            logger.warn("Duplicate scan skipped {} oversized LSH buckets", skipped);
+        }
+        return candidates;
+    }
+
+    /**
+     * Weighted field similarity, averaged over the fields both customers have
+     */
+    private static DuplicateClusterDTO.Match score(Profile a, Profile b) {
+        List<String> reasons = new ArrayList<>();
+        double nameSimilarity = jaccard(trigrams(a.name()), trigrams(b.name()));
+        double total = NAME_WEIGHT * nameSimilarity;
+        double weights = NAME_WEIGHT;
+        reasons.add(String.format("name %.2f", nameSimilarity));
+
+        if (a.phone() != null && b.phone() != null) {
+            weights += PHONE_WEIGHT;
+            if (a.phone().equals(b.phone())) {
+                total += PHONE_WEIGHT;
+                reasons.add("same phone");
+            }
+        }
+        if (a.domain() != null && b.domain() != null) {
+            weights += DOMAIN_WEIGHT;
+            if (a.domain().equals(b.domain())) {
+                total += DOMAIN_WEIGHT;
+                reasons.add("same email domain");
+            }
+        }
+        if (a.address() != null && b.address() != null) {
+            double addressSimilarity = jaccard(trigrams(a.address()), trigrams(b.address()));
+            weights += ADDRESS_WEIGHT;
+            total += ADDRESS_WEIGHT * addressSimilarity;
+            reasons.add(String.format("address %.2f", addressSimilarity));
+        }
+        double score = Math.round(total / weights * 1000) / 1000.0;
+        return new DuplicateClusterDTO.Match(a.id(), b.id(), score, reasons);
+    }
+
+    private static List<Cluster> cluster(Map<Long, Long> parent, List<DuplicateClusterDTO.Match> matches,
+            LocalDateTime detectedAt) {
+        Map<Long, List<DuplicateClusterDTO.Match>> byRoot = new HashMap<>();
+        for (DuplicateClusterDTO.Match match : matches) {
+            byRoot.computeIfAbsent(find(parent, match.getCustomerId()), k -> new ArrayList<>()).add(match);
+        }
+        List<Cluster> result = new ArrayList<>();
+        for (List<DuplicateClusterDTO.Match> clusterMatches : byRoot.values()) {
+            Set<Long> members = new HashSet<>();
+            clusterMatches.forEach(m -> {
+                members.add(m.getCustomerId());
+                members.add(m.getDuplicateId());
+            });
+            List<Long> ids = members.stream().sorted().toList();
+            clusterMatches.sort(Comparator.comparingDouble(DuplicateClusterDTO.Match::getScore).reversed());
+            String id = ids.stream().map(String::valueOf).collect(Collectors.joining("-"));
+            result.add(new Cluster(id, clusterMatches.get(0).getScore(), ids, List.copyOf(clusterMatches), detectedAt));
+        }
+        result.sort(Comparator.comparingDouble(Cluster::score).reversed().thenComparing(Cluster::id));
+        return List.copyOf(result);
+    }
+
+    private static void union(Map<Long, Long> parent, long a, long b) {
+        long rootA = find(parent, a);
+        long rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent.put(Math.max(rootA, rootB), Math.min(rootA, rootB));
+        }
+    }
+
+    private static long find(Map<Long, Long> parent, long id) {
+        long root = id;
+        while (parent.containsKey(root)) {
+            root = parent.get(root);
+        }
+        // Path compression
+        long node = id;
+        while (node != root) {
+            long next = parent.get(node);
+            parent.put(node, root);
+            node = next;
+        }
+        return root;
+    }
+
+    private static Profile profile(Object[] row) {
+        String email = (String) row[2];
+        String domain = null;
+        if (email != null && email.contains("@")) {
+            domain = email.substring(email.lastIndexOf('@') + 1).trim().toLowerCase();
+            if (domain.isEmpty() || WEBMAIL_DOMAINS.contains(domain)) {
+                domain = null;
+            }
+        }
+        String phone = null;
+        if (row[3] != null) {
+            String digits = ((String) row[3]).replaceAll("\\D", "");
+            // Compare the local number so +91 9876543210 and 9876543210 agree
+            phone = digits.length() >= 7 ? digits.substring(Math.max(0, digits.length() - 10)) : null;
+        }
+        String address = normalize(join((String) row[4], (String) row[5]), false);
+        return new Profile((Long) row[0], normalize((String) row[1], true), domain, phone,
+                address.isEmpty() ? null : address);
+    }
+
+    /**
+     * Shingles for MinHash. Phone and domain are single values, so they are repeated to carry
+     * weight next to the dozens of name trigrams.
+     */
+    private static List<String> shingles(Profile profile) {
+        List<String> shingles = new ArrayList<>();
+        trigrams(profile.name()).forEach(t -> shingles.add("n:" + t));
+        if (profile.address() != null) {
+            trigrams(profile.address()).forEach(t -> shingles.add("a:" + t));
+        }
+        for (int copy = 0; copy < 4 && profile.phone() != null; copy++) {
+            shingles.add("p" + copy + ":" + profile.phone());
+        }
+        for (int copy = 0; copy < 2 && profile.domain() != null; copy++) {
+            shingles.add("d" + copy + ":" + profile.domain());
+        }
+        return shingles;
+    }
+
+    /**
+     * Lowercase, strip accents and punctuation, collapse spaces; optionally drop legal suffixes
+     * such as "Inc" so "Acme Inc." and "ACME" compare equal
+     */
+    private static String normalize(String text, boolean dropLegalSuffixes) {
+        if (text == null) {
+            return "";
+        }
+        String plain = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : NON_ALPHANUMERIC.split(plain.toLowerCase())) {
+            if (!word.isEmpty() && !(dropLegalSuffixes && LEGAL_SUFFIXES.contains(word))) {
+                words.add(word);
+            }
+        }
+        return String.join(" ", words);
+    }
+
+    private static String join(String address, String city) {
+        if (address == null) {
+            return city;
+        }
+        return city == null ? address : address + " " + city;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        String padded = " " + text + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String value : a) {
+            if (b.contains(value)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+}
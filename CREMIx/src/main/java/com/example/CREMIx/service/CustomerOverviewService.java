@@ -0,0 +1,172 @@
+package com.example.CREMIx.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.CREMIx.dto.CustomerDTO;
+import com.example.CREMIx.dto.CustomerOverviewDTO;
+import com.example.CREMIx.dto.InvoiceDTO;
+import com.example.CREMIx.dto.OpportunityDTO;
+import com.example.CREMIx.dto.QItemDTO;
+import com.example.CREMIx.dto.QuotationDTO;
+import com.example.CREMIx.repository.CallLogRepository;
+import com.example.CREMIx.repository.CustomerRepository;
+import com.example.CREMIx.repository.InvoiceRepository;
+import com.example.CREMIx.repository.LeadRepository;
+import com.example.CREMIx.repository.NoteRepository;
+import com.example.CREMIx.repository.OpportunityRepository;
+import com.example.CREMIx.repository.QuotationRepository;
+import com.example.CREMIx.repository.TicketRepository;
+
+/**
+ * Builds the customer page in one request. The customer is looked up first; each related
+ * collection is then loaded with one query apiece (two for quotations and invoices, whose items
+ * come in a second query), at the same time on virtual threads, so the response takes about as
+ * long as the slowest query instead of the sum of the round trips.
+ * Every section query holds a connection of its own, so the number running at once across all
+ * requests is capped well below the connection pool size; the rest wait for a permit.
+ */
+@Service
+public class CustomerOverviewService {
+
+    public static final int MAX_SECTION_LIMIT = 50;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    @Autowired
+    private QuotationRepository quotationRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private CallLogRepository callLogRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Semaphore queryPermits;
+
+    public CustomerOverviewService(@Value("${customers.overview.max-concurrent-queries:4}") int maxConcurrentQueries) {
+        this.queryPermits = new Semaphore(maxConcurrentQueries, true);
+    }
+
+    /**
+     * @param limit Maximum number of records per section, newest first
+     */
+    public CustomerOverviewDTO getCustomerOverview(Long id, int limit) {
+        int sectionLimit = Math.max(1, Math.min(limit, MAX_SECTION_LIMIT));
+
+        // Resolved before any section query starts, so a missing customer costs one lookup
+        CustomerDTO customer = customerRepository.findById(id)
+                .map(CustomerDTO::fromEntity)
+                .orElseThrow(() -> new RuntimeException("Customer not found with id: " + id));
+        var leads = section(pageable -> leadRepository.findRecentByCustomerId(id, pageable), sectionLimit);
+        var opportunities = section(pageable -> opportunityRepository.findRecentByCustomerId(id, pageable).stream()
+                .map(OpportunityDTO::new)
+                .toList(), sectionLimit);
+        var quotations = section(pageable -> withItems(quotationRepository.findRecentByCustomerId(id, pageable),
+                QuotationDTO::getId, QuotationDTO::setItems), sectionLimit);
+        var invoices = section(pageable -> withItems(invoiceRepository.findRecentByCustomerId(id, pageable),
+                InvoiceDTO::getQuotationId, InvoiceDTO::setItems), sectionLimit);
+        var tickets = section(pageable -> ticketRepository.findRecentByCustomerId(id, pageable), sectionLimit);
+        var callLogs = section(pageable -> callLogRepository.findRecentByCustomerId(id, pageable), sectionLimit);
+        var notes = section(pageable -> noteRepository.findRecentByCustomerId(id, pageable), sectionLimit);
+
+        try {
+            CustomerOverviewDTO overview = new CustomerOverviewDTO();
+            overview.setCustomer(customer);
+            overview.setLeads(leads.join());
+            overview.setOpportunities(opportunities.join());
+            overview.setQuotations(quotations.join());
+            overview.setInvoices(invoices.join());
+            overview.setTickets(tickets.join());
+            overview.setCallLogs(callLogs.join());
+            overview.setNotes(notes.join());
+            return overview;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<CustomerOverviewDTO.Section<T>> section(Function<Pageable, List<T>> query,
+            int limit) {
+        return fetch(() -> {
+            // One extra row tells whether there is more without a count query
+            List<T> rows = query.apply(PageRequest.of(0, limit + 1));
+            boolean hasMore = rows.size() > limit;
+            return new CustomerOverviewDTO.Section<>(hasMore ? rows.subList(0, limit) : rows, hasMore);
+        });
+    }
+
+    /**
+     * Fill in the quotation items of a section's rows with one more query for all of them
+     */
+    private <T> List<T> withItems(List<T> rows, Function<T, Long> quotationId,
+            BiConsumer<T, List<QItemDTO>> setItems) {
+        Set<Long> quotationIds = rows.stream()
+                .map(quotationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, List<QItemDTO>> items = quotationIds.isEmpty() ? Map.of()
+                : quotationRepository.findItemsByQuotationIdIn(quotationIds).stream()
+                        .collect(Collectors.groupingBy(item -> item.getQuotation().getId(),
+                                Collectors.mapping(QItemDTO::new, Collectors.toList())));
+        rows.forEach(row -> setItems.accept(row, items.getOrDefault(quotationId.apply(row), List.of())));
+        return rows;
+    }
+
+    /**
+     * Run a query on its own virtual thread, in a read-only transaction of its own since
+     * the request's persistence context does not reach other threads, once a permit is free
+     */
+    private <T> CompletableFuture<T> fetch(Supplier<T> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return CompletableFuture.supplyAsync(() -> {
+            queryPermits.acquireUninterruptibly();
+            try {
+                return transaction.execute(status -> query.get());
+            } finally {
+                queryPermits.release();
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,459 @@
+package com.example.CREMIx.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.dto.CustomerDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.repository.CustomerRepository;
+
+/**
+ * In-memory inverted index over active customers for the search box.
+ * Every field value is split into lowercase tokens; a sorted term dictionary maps each token to
+ * the customers (and which of their fields) containing it, so a query token can be looked up
+ * exactly, as a prefix (a range of the dictionary) or with one or two typos. For typos every
+ * term is also filed under the strings left after deleting one or two of its characters; two
+ * strings within that many edits of each other always share such a deletion, so a misspelt
+ * token only has to be compared with the terms filed under its own deletions.
+ * The index is loaded at startup and patched from committed customer changes; bulk writes that
+ * bypass JPA trigger a reload in the background.
+ */
+@Service
+public class CustomerSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> WEBSITE_NOISE = Set.of("http", "https", "www");
+
+    // How much a match counts, by how it matched
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.7;
+    private static final double FUZZY = 0.5;
+
+    // Shortest query token matched with typos; longer ones allow more edits, see maxEdits
+    private static final int FUZZY_MIN_LENGTH = 4;
+    // Shortest deletion a query token can look up
+    private static final int FUZZY_MIN_KEY_LENGTH = FUZZY_MIN_LENGTH - 1;
+
+    /**
+     * Searchable fields; a match in a field scores its weight
+     */
+    private enum Field {
+        NAME(3.0),
+        EMAIL(2.5),
+        PHONE(2.0),
+        WEBSITE(1.5),
+        CITY(1.0),
+        STATE(1.0),
+        COUNTRY(1.0);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+
+        int bit() {
+            return 1 << ordinal();
+        }
+
+        // Weight of the best field in a bit mask of fields
+        static double weightOf(int mask) {
+            double best = 0;
+            for (Field field : values()) {
+                if ((mask & field.bit()) != 0) {
+                    best = Math.max(best, field.weight);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * An indexed customer: what search returns, and the terms to unlink when it changes
+     */
+    private record Document(CustomerDTO customer, Map<String, Integer> terms) {
+    }
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> customer id -> bit mask of fields containing the term; guarded by lock
+    private NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // deletion of a term -> terms it was made from, for fuzzy matching; guarded by lock
+    private Map<String, Set<String>> deletions = new HashMap<>();
+    private Map<Long, Document> documents = new HashMap<>();
+
+    // Changes committed while a reload is running, replayed on top of the reloaded index
+    private List<EntityChangeEvent> changesDuringReload;
+
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("customer-search-reload").daemon(true).factory());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isFor(Customer.class)) {
+            return;
+        }
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            scheduleReload();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(event);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank active customers against a free-text query. Every query token has to match some
+     * field; a token matches a term exactly, as a prefix of it, or within an edit distance of
+     * one (two for long tokens).
+     * @param limit Maximum number of customers returned
+     * @return Matching customers, best first
+     */
+    public List<CustomerDTO> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                // The last token is usually still being typed, so it may be a one-letter prefix
+                boolean last = i == tokens.size() - 1;
+                Map<Long, Double> tokenScores = match(tokens.get(i), last);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue().reversed();
+            return scores.entrySet().stream()
+                    .sorted(ranking.thenComparing(entry -> documents.get(entry.getKey()).customer().getName(),
+                            String.CASE_INSENSITIVE_ORDER))
+                    .limit(limit)
+                    .map(entry -> documents.get(entry.getKey()).customer())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best score per customer for one query token. Caller holds the read lock.
+     */
+    private Map<Long, Double> match(String token, boolean allowShortPrefix) {
+        Map<Long, Double> scores = new HashMap<>();
+        Map<Long, Integer> exact = postings.get(token);
+        if (exact != null) {
+            exact.forEach((id, mask) -> scores.merge(id, Field.weightOf(mask) * EXACT, Math::max));
+        }
+        if (token.length() >= 2 || allowShortPrefix) {
+            // Every term starting with the token sorts between the token and token + Character.MAX_VALUE
+            postings.subMap(token, false, token + Character.MAX_VALUE, false).values()
+                    .forEach(ids -> ids.forEach((id, mask) -> scores.merge(id, Field.weightOf(mask) * PREFIX, Math::max)));
+        }
+        // Typos in numbers are not worth guessing at
+        if (token.length() >= FUZZY_MIN_LENGTH && !isDigits(token)) {
+            int maxEdits = maxEdits(token.length());
+            Set<String> candidates = new HashSet<>();
+            for (String deletion : deletionsOf(token, maxEdits)) {
+                candidates.addAll(deletions.getOrDefault(deletion, Set.of()));
+            }
+            for (String term : candidates) {
+                if (Math.abs(term.length() - token.length()) > maxEdits || term.equals(token)) {
+                    continue;
+                }
+                int edits = editDistance(token, term, maxEdits);
+                if (edits <= maxEdits) {
+                    double factor = FUZZY / edits;
+                    postings.get(term).forEach((id, mask) -> scores.merge(id, Field.weightOf(mask) * factor, Math::max));
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void scheduleReload() {
+        if (reloadQueued.compareAndSet(false, true)) {
+            reloader.execute(() -> {
+                reloadQueued.set(false);
+                reload();
+            });
+        }
+    }
+
+    /**
+     * Rebuild the index from the database off to the side and swap it in
+     */
+    private void reload() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            changesDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        NavigableMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+        Map<String, Set<String>> newDeletions = new HashMap<>();
+        Map<Long, Document> newDocuments = new HashMap<>();
+        try {
+            for (Customer customer : customerRepository.findAllActiveCustomers()) {
+                Document document = document(customer);
+                newDocuments.put(customer.getId(), document);
+                link(newPostings, newDeletions, customer.getId(), document);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to load the customer search index", e);
+            lock.writeLock().lock();
+            try {
+                changesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            deletions = newDeletions;
+            documents = newDocuments;
+            // Committed events carry the entity as committed, so replaying them in order is safe
+            // even when the load above already saw the change
+            changesDuringReload.forEach(this::apply);
+            changesDuringReload = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Customer search index loaded: {} customers, {} terms in {} ms",
+                newDocuments.size(), newPostings.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Patch the index with one committed change. Caller holds the write lock.
+     */
+    private void apply(EntityChangeEvent event) {
+        Customer customer = (Customer) event.getEntity();
+        if (customer.getId() == null) {
+            return;
+        }
+        Document old = documents.remove(customer.getId());
+        if (old != null) {
+            unlink(postings, deletions, customer.getId(), old);
+        }
+        // Archived and recycle-bin customers are not listed, so they are not searchable either
+        if (event.getAction() != EntityChangeEvent.Action.DELETED && customer.getStatus() == ActivityStatus.ACTIVE) {
+            Document document = document(customer);
+            documents.put(customer.getId(), document);
+            link(postings, deletions, customer.getId(), document);
+        }
+    }
+
+    private static Document document(Customer customer) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, Field.NAME, tokenize(customer.getName()));
+        addTerms(terms, Field.EMAIL, tokenize(customer.getEmail()));
+        addTerms(terms, Field.PHONE, phoneTokens(customer.getPhoneNumber()));
+        addTerms(terms, Field.WEBSITE, tokenize(customer.getWebsite()).stream()
+                .filter(token -> !WEBSITE_NOISE.contains(token))
+                .toList());
+        addTerms(terms, Field.CITY, tokenize(customer.getCity()));
+        addTerms(terms, Field.STATE, tokenize(customer.getState()));
+        addTerms(terms, Field.COUNTRY, tokenize(customer.getCountry()));
+        return new Document(CustomerDTO.fromEntity(customer), terms);
+    }
+
+    private static void addTerms(Map<String, Integer> terms, Field field, List<String> tokens) {
+        tokens.forEach(token -> terms.merge(token, field.bit(), (a, b) -> a | b));
+    }
+
+    private static void link(NavigableMap<String, Map<Long, Integer>> postings, Map<String, Set<String>> deletions,
+            Long id, Document document) {
+        document.terms().forEach((term, mask) -> postings.computeIfAbsent(term, t -> {
+            // A new term is filed under its deletions once, however many customers share it
+            fuzzyKeys(t).forEach(deletion -> deletions.computeIfAbsent(deletion, d -> new HashSet<>()).add(t));
+            return new HashMap<>();
+        }).put(id, mask));
+    }
+
+    private static void unlink(NavigableMap<String, Map<Long, Integer>> postings, Map<String, Set<String>> deletions,
+            Long id, Document document) {
+        for (String term : document.terms().keySet()) {
+            Map<Long, Integer> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                    for (String deletion : fuzzyKeys(term)) {
+                        Set<String> terms = deletions.get(deletion);
+                        if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                            deletions.remove(deletion);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Typos allowed in a query token of the given length
+     */
+    private static int maxEdits(int length) {
+        return length >= 8 ? 2 : 1;
+    }
+
+    /**
+     * The deletions a term is filed under: as many as the longest query token within reach of it
+     * may have typos, and none shorter than the shortest deletion a query token looks up
+     */
+    private static Set<String> fuzzyKeys(String term) {
+        if (term.length() < FUZZY_MIN_KEY_LENGTH || isDigits(term)) {
+            return Set.of();
+        }
+        // A term of six letters is within reach of eight letter tokens, which allow two edits
+        Set<String> keys = deletionsOf(term, maxEdits(term.length() + 2));
+        keys.removeIf(key -> key.length() < FUZZY_MIN_KEY_LENGTH);
+        return keys;
+    }
+
+    /**
+     * The string itself and every string left after deleting up to depth of its characters
+     */
+    private static Set<String> deletionsOf(String text, int depth) {
+        Set<String> result = new HashSet<>();
+        result.add(text);
+        Set<String> frontier = Set.of(text);
+        for (int round = 0; round < depth; round++) {
+            Set<String> next = new HashSet<>();
+            for (String value : frontier) {
+                for (int i = 0; i < value.length(); i++) {
+                    String deleted = value.substring(0, i) + value.substring(i + 1);
+                    if (result.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase())) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A phone number is one token of its digits, plus the local number without the
+     * country code so either form of the number can be typed
+     */
+    private static List<String> phoneTokens(String phoneNumber) {
+        if (phoneNumber == null) {
+            return List.of();
+        }
+        String digits = phoneNumber.replaceAll("\\D", "");
+        if (digits.isEmpty()) {
+            return List.of();
+        }
+        if (digits.length() > 10) {
+            return List.of(digits, digits.substring(digits.length() - 10));
+        }
+        return List.of(digits);
+    }
+
+    private static boolean isDigits(String token) {
+        return token.chars().allMatch(Character::isDigit);
+    }
+
+    /**
+     * Edit distance counting an adjacent transposition as one edit, giving up once
+     * it is certain to exceed max
+     * @return The distance, or max + 1 when it is larger than max
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -1,27 +1,82 @@
 package com.example.CREMIx.service;
 
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.CREMIx.dto.CustomerBulkResultDTO;
 import com.example.CREMIx.dto.CustomerDTO;
 import com.example.CREMIx.dto.CustomerRegistrationDTO;
 import com.example.CREMIx.dto.PasswordUpdateDTO;
 import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.ContactPatterns;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.ETags;
+import com.example.CREMIx.misc.PreconditionFailedException;
 import com.example.CREMIx.model.Customer;
 import com.example.CREMIx.repository.CustomerRepository;
+import com.example.CREMIx.repository.SparseFieldsetRepository;
 
 @Service
 public class CustomerService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CustomerService.class);
+
+    private static final int BULK_BATCH_SIZE = 500;
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    private static final String INSERT_CUSTOMER = """
+            INSERT INTO customer (name, phone_number, email, address, city, state, zip_code, country, website,
+                                  type, status, has_password, updated_at, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    // The version check keeps a bulk write from overwriting an edit made after the batch was read
+    private static final String UPDATE_CUSTOMER = """
+            UPDATE customer
+            SET name = ?, phone_number = ?, email = ?, address = ?, city = ?, state = ?, zip_code = ?,
+                country = ?, website = ?, type = ?, updated_at = ?, version = version + 1
+            WHERE id = ? AND version = ?
+            """;
+
     @Autowired
     private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Autowired
     private EmailService emailService;
+
+    @Autowired
+    private SparseFieldsetRepository sparseFieldsetRepository;
+
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
     
     // Create password encoder
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
@@ -33,6 +88,37 @@ public class CustomerService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Active customers with only the requested CustomerDTO fields
+     * @param fields Comma separated CustomerDTO property names
+     */
+    public List<Map<String, Object>> getAllCustomerFields(String fields) {
+        return sparseFieldsetRepository.findFields(Customer.class, CustomerDTO.FIELDS,
+                CustomerDTO.FIELDS.parse(fields), Map.of("status", ActivityStatus.ACTIVE));
+    }
+
+    /**
+     * ETag of a customer, read from its version column so a 304 needs no entity load
+     */
+    public Optional<String> getCustomerETag(Long id) {
+        return customerRepository.findVersionTagById(id).map(tag -> ETags.of(id, tag));
+    }
+
+    /**
+     * ETag of the active customer list
+     * @param fields The fields parameter of the request, since it changes the representation
+     */
+    public String getCustomersETag(String fields) {
+        return ETags.ofCollection(customerRepository.findActiveCollectionVersion(), fields);
+    }
+
+    /**
+     * Ranked search over active customers' name, email, phone, city, state, country and website
+     */
+    public List<CustomerDTO> searchCustomers(String query, int limit) {
+        return customerSearchIndex.search(query, Math.min(limit, MAX_SEARCH_RESULTS));
+    }
+
     public CustomerDTO getCustomerById(Long id) {
         return customerRepository.findById(id)
                 .map(CustomerDTO::fromEntity)
@@ -55,14 +141,197 @@ public class CustomerService {
     }
     
     public CustomerDTO updateCustomer(Long id, CustomerDTO customerDTO) {
+        return updateCustomer(id, customerDTO, null);
+    }
+
+    /**
+     * Update a customer only if it still matches the ETag the client last read
+     * @param ifMatch If-Match header, or null for an unconditional update
+     */
+    public CustomerDTO updateCustomer(Long id, CustomerDTO customerDTO, String ifMatch) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Customer not found with id: " + id));
+        if (!ETags.matches(ifMatch, ETags.of(id, ETags.versions(customer.getVersion())))) {
+            throw new PreconditionFailedException("Customer " + id + " was modified since it was read");
+        }
         
         updateCustomerFromDTO(customer, customerDTO);
         customer = customerRepository.save(customer);
         return CustomerDTO.fromEntity(customer);
     }
     
+    /**
+     * Create or update many customers, matched by email.
+     * Existing customers are looked up with one IN query per batch and merged with the same rules
+     * as a single update (only non-null fields overwrite); writes go out as JDBC batches.
+     * Each batch commits on its own, so a failure only affects that batch.
+     */
+    public CustomerBulkResultDTO bulkUpsertCustomers(List<CustomerDTO> customers) {
+        CustomerBulkResultDTO result = new CustomerBulkResultDTO();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int start = 0; start < customers.size(); start += BULK_BATCH_SIZE) {
+            int end = Math.min(start + BULK_BATCH_SIZE, customers.size());
+            int batchNumber = start / BULK_BATCH_SIZE + 1;
+            int offset = start;
+            List<CustomerDTO> batch = customers.subList(start, end);
+            List<CustomerBulkResultDTO.Rejection> rejections = new ArrayList<>();
+            CustomerBulkResultDTO.BatchResult batchResult;
+            try {
+                batchResult = transaction.execute(status -> upsertBatch(batch, offset, rejections));
+            } catch (RuntimeException e) {
+                String reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                logger.warn("Customer bulk batch {} failed: {}", batchNumber, reason);
+                rejections.clear();
+                batchResult = new CustomerBulkResultDTO.BatchResult();
+                batchResult.setRejected(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    rejections.add(new CustomerBulkResultDTO.Rejection(offset + i, batch.get(i).getEmail(), reason));
+                }
+            }
+            batchResult.setBatch(batchNumber);
+            batchResult.setSize(batch.size());
+            result.add(batchResult);
+            result.getRejections().addAll(rejections);
+        }
+        if (result.getCreated() + result.getUpdated() > 0) {
+            // Written through JDBC, so no JPA listener saw these rows
+            eventPublisher.publishEvent(EntityChangeEvent.bulk(Customer.class));
+        }
+        logger.info("Bulk customer upsert: {} created, {} updated, {} unchanged, {} rejected",
+                result.getCreated(), result.getUpdated(), result.getUnchanged(), result.getRejected());
+        return result;
+    }
+
+    private CustomerBulkResultDTO.BatchResult upsertBatch(List<CustomerDTO> batch, int offset,
+            List<CustomerBulkResultDTO.Rejection> rejections) {
+        CustomerBulkResultDTO.BatchResult result = new CustomerBulkResultDTO.BatchResult();
+
+        // Validate, and collect the emails to look up
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String reason = validateForUpsert(batch.get(i));
+            if (reason != null) {
+                rejections.add(new CustomerBulkResultDTO.Rejection(offset + i, batch.get(i).getEmail(), reason));
+                result.setRejected(result.getRejected() + 1);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        List<String> emails = accepted.stream().map(i -> batch.get(i).getEmail().trim()).distinct().toList();
+        Map<String, Customer> existing = new HashMap<>();
+        if (!emails.isEmpty()) {
+            customerRepository.findForUpsertByEmailIn(emails).forEach(c -> existing.put(emailKey(c.getEmail()), c));
+        }
+
+        // Merge in request order; repeated emails in one batch fold into the same record
+        Map<String, Customer> toInsert = new LinkedHashMap<>();
+        Map<String, Customer> toUpdate = new LinkedHashMap<>();
+        Map<String, Integer> updateIndex = new HashMap<>();
+        for (int i : accepted) {
+            CustomerDTO dto = batch.get(i);
+            String key = emailKey(dto.getEmail());
+            Customer customer = existing.get(key);
+            if (customer == null) {
+                customer = toInsert.get(key);
+                if (customer == null) {
+                    if (dto.getName() == null || dto.getName().isBlank()) {
+                        rejections.add(new CustomerBulkResultDTO.Rejection(offset + i, dto.getEmail(),
+                                "name is required to create a customer"));
+                        result.setRejected(result.getRejected() + 1);
+                        continue;
+                    }
+                    customer = new Customer();
+                    toInsert.put(key, customer);
+                    result.setCreated(result.getCreated() + 1);
+                } else {
+                    result.setUpdated(result.getUpdated() + 1);
+                }
+                updateCustomerFromDTO(customer, dto);
+                continue;
+            }
+            CustomerDTO before = CustomerDTO.fromEntity(customer);
+            updateCustomerFromDTO(customer, dto);
+            if (before.equals(CustomerDTO.fromEntity(customer))) {
+                result.setUnchanged(result.getUnchanged() + 1);
+            } else {
+                toUpdate.put(key, customer);
+                updateIndex.put(key, offset + i);
+                result.setUpdated(result.getUpdated() + 1);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Customer> inserts = new ArrayList<>(toInsert.values());
+        jdbcTemplate.batchUpdate(INSERT_CUSTOMER, inserts, inserts.size(), (ps, c) -> {
+            ps.setString(1, c.getName());
+            ps.setString(2, c.getPhoneNumber());
+            ps.setString(3, c.getEmail().trim());
+            ps.setString(4, c.getAddress());
+            ps.setString(5, c.getCity());
+            ps.setString(6, c.getState());
+            ps.setObject(7, c.getZipCode(), Types.INTEGER);
+            ps.setString(8, c.getCountry());
+            ps.setString(9, c.getWebsite());
+            ps.setString(10, c.getType().name());
+            ps.setString(11, c.getStatus().name());
+            ps.setBoolean(12, Boolean.TRUE.equals(c.getHasPassword()));
+            ps.setTimestamp(13, now);
+        });
+
+        List<Customer> updates = new ArrayList<>(toUpdate.values());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_CUSTOMER, updates, updates.size(), (ps, c) -> {
+            ps.setString(1, c.getName());
+            ps.setString(2, c.getPhoneNumber());
+            ps.setString(3, c.getEmail().trim());
+            ps.setString(4, c.getAddress());
+            ps.setString(5, c.getCity());
+            ps.setString(6, c.getState());
+            ps.setObject(7, c.getZipCode(), Types.INTEGER);
+            ps.setString(8, c.getCountry());
+            ps.setString(9, c.getWebsite());
+            ps.setString(10, c.getType().name());
+            ps.setTimestamp(11, now);
+            ps.setLong(12, c.getId());
+            ps.setLong(13, c.getVersion());
+        });
+        int stale = 0;
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count == 0) {
+                    Customer customer = updates.get(index);
+                    rejections.add(new CustomerBulkResultDTO.Rejection(updateIndex.get(emailKey(customer.getEmail())),
+                            customer.getEmail(),
+                            "Customer " + customer.getId() + " was modified during the upsert"));
+                    stale++;
+                }
+                index++;
+            }
+        }
+        result.setUpdated(result.getUpdated() - stale);
+        result.setRejected(result.getRejected() + stale);
+        return result;
+    }
+
+    private static String validateForUpsert(CustomerDTO dto) {
+        if (dto.getEmail() == null || dto.getEmail().isBlank()) {
+            return "email is required";
+        }
+        if (!ContactPatterns.EMAIL.matcher(dto.getEmail().trim()).matches()) {
+            return "Invalid email: " + dto.getEmail();
+        }
+        if (dto.getPhoneNumber() != null && !ContactPatterns.PHONE.matcher(dto.getPhoneNumber()).matches()) {
+            return "Invalid phone number: " + dto.getPhoneNumber();
+        }
+        return null;
+    }
+
+    // MySQL matches emails case-insensitively
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase();
+    }
+
     public CustomerDTO setCustomerPassword(Long id, PasswordUpdateDTO passwordDTO) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Customer not found with id: " + id));
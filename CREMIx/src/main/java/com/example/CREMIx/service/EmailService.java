@@ -1,5 +1,7 @@
 package com.example.CREMIx.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -7,9 +9,12 @@ import org.springframework.stereotype.Service;
 
 import com.example.CREMIx.dto.InvoiceDTO;
 import com.example.CREMIx.dto.QuotationDTO;
+import com.example.CREMIx.dto.TicketDTO;
 
 @Service
 public class EmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
     
     @Autowired
     private JavaMailSender emailSender;
@@ -147,4 +152,32 @@ public class EmailService {
         message.setText(emailContent);
         emailSender.send(message);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tell the assignee or the support lead that a ticket missed its SLA and was escalated
+     * @param to Recipient email address
+     * @param name Recipient name
+     * @param ticket The escalated ticket
+     * @param missed Which deadline was missed, e.g. "response"
+     */
+    public void sendSlaBreachNotification(String to, String name, TicketDTO ticket, String missed) {
+        logger.info("Sending SLA breach notification for ticket {} to {}", ticket.getId(), to);
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject("CREMIx - Ticket #" + ticket.getId() + " escalated after missing its SLA");
+        
+        String emailContent = "Hello " + name + ",\n\n" +
+                              "The following ticket missed its " + missed + " deadline and has been escalated to URGENT.\n\n" +
+                              "Ticket Details:\n" +
+                              "- Ticket: #" + ticket.getId() + " " + ticket.getSubject() + "\n" +
+                              "- Priority: " + ticket.getPriority() + "\n" +
+                              "- Customer: " + ticket.getCustomerName() + "\n" +
+                              "- Created: " + ticket.getCreatedAt() + "\n\n" +
+                              "Please follow up on this ticket in CREMIx as soon as possible.\n\n" +
+                              "Best regards,\n" +
+                              "The CREMIx Team";
+        
+        message.setText(emailContent);
+        emailSender.send(message);
+    }
+}
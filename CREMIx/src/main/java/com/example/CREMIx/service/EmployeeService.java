@@ -53,6 +53,9 @@ public class EmployeeService {
                     if (updatedEmployee.getPhone() != null) {
                         employee.setPhone(updatedEmployee.getPhone());
                     }
+                    if (updatedEmployee.getSkills() != null) {
+                        employee.setSkills(updatedEmployee.getSkills());
+                    }
                     
                     // Only update password if a new one is provided
                     if (updatedEmployee.getHashedPassword() != null && !updatedEmployee.getHashedPassword().trim().isEmpty()) {
@@ -92,6 +95,7 @@ public class EmployeeService {
         dto.setName(employee.getName());
         dto.setEmail(employee.getEmail());
         dto.setPhoneNumber(employee.getPhone());
+        dto.setSkills(employee.getSkills());
         return dto;
     }
     
@@ -105,6 +109,7 @@ public class EmployeeService {
         employee.setName(dto.getName());
         employee.setEmail(dto.getEmail());
         employee.setPhone(dto.getPhoneNumber());
+        employee.setSkills(dto.getSkills());
         return employee;
     }
 }
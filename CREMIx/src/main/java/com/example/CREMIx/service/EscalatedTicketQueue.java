@@ -0,0 +1,109 @@
+package com.example.CREMIx.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.dto.TicketPageDTO;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.model.Ticket;
+import com.example.CREMIx.repository.TicketRepository;
+
+/**
+ * Open escalated tickets (status URGENT, or priority HIGH or CRITICAL) in supervisor order:
+ * CRITICAL first, then URGENT, then HIGH, oldest first within each.
+ * The queue holds only the ordering keys. It is loaded once through the (status, priority,
+ * created_at) index and then kept current from committed ticket changes, so a page costs one
+ * primary key lookup for the tickets on it.
+ */
+@Service
+public class EscalatedTicketQueue {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String OPEN_ESCALATED = """
+            SELECT id, status, priority, skill, created_at, employee_id FROM ticket
+            WHERE status = 'URGENT'
+               OR (status IN ('NEW', 'IN_PROGRESS') AND priority IN ('HIGH', 'CRITICAL'))
+            """;
+
+    // Every escalated ticket waits in the same lane
+    private static final String LANE = "";
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    private final OrderedTicketQueue queue;
+
+    public EscalatedTicketQueue(JdbcTemplate jdbcTemplate) {
+        this.queue = new OrderedTicketQueue("escalated ticket queue", jdbcTemplate, OPEN_ESCALATED,
+                ticket -> rank(ticket.getStatus(), ticket.getPriority()), ticket -> LANE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        queue.reseed();
+    }
+
+    /**
+     * @param page Zero based
+     * @param size Tickets per page, at most MAX_PAGE_SIZE
+     */
+    public TicketPageDTO getPage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Long> ids = queue.ids(LANE, (long) page * size, size);
+        List<TicketDTO> tickets = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            Map<Long, TicketDTO> loaded = ticketRepository.findDTOsByIdIn(ids).stream()
+                    .collect(Collectors.toMap(TicketDTO::getId, Function.identity()));
+            for (Long id : ids) {
+                TicketDTO ticket = loaded.get(id);
+                // Deleted since the ids were read
+                if (ticket != null) {
+                    tickets.add(ticket);
+                }
+            }
+        }
+        return new TicketPageDTO(tickets, page, size, queue.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        queue.onEntityChange(event);
+    }
+
+    /**
+     * Position group of a ticket in the queue, or -1 when it does not belong there
+     */
+    private static int rank(Ticket.TicketStatus status, Ticket.TicketPriority priority) {
+        if (status == Ticket.TicketStatus.RESOLVED || status == Ticket.TicketStatus.CLOSED) {
+            return -1;
+        }
+        if (priority == Ticket.TicketPriority.CRITICAL) {
+            return 0;
+        }
+        if (status == Ticket.TicketStatus.URGENT) {
+            return 1;
+        }
+        if (priority == Ticket.TicketPriority.HIGH) {
+            return 2;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.CREMIx.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.example.CREMIx.misc.ExportFormat;
+
+public interface ExportService {
+    long exportCustomers(ExportFormat format, OutputStream out) throws IOException;
+
+    long exportLeads(ExportFormat format, OutputStream out) throws IOException;
+
+    long exportCallLogs(ExportFormat format, OutputStream out) throws IOException;
+
+    long exportTickets(ExportFormat format, OutputStream out) throws IOException;
+
+    long exportInvoices(ExportFormat format, OutputStream out) throws IOException;
+}
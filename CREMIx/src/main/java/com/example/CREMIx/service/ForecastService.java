@@ -0,0 +1,384 @@
+package com.example.CREMIx.service;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.ForecastDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.ReseedableState;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.model.Opportunity;
+
+/**
+ * Weighted pipeline forecast per employee and expected close month, held in memory.
+ * Open leads (active, NEW or CONTACTED) and open opportunities (active, NEW) each add their
+ * lead's expected revenue times probability to their employee's month. Committed lead and
+ * opportunity changes move just that record's share, so reading the forecast never scans
+ * either table. A full rebuild streams both tables row by row.
+ */
+@Service
+public class ForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForecastService.class);
+
+    private static final String OPEN_LEADS = """
+            SELECT id, employee_id, expected_revenue, probability, expected_close_date, created_at
+            FROM leads
+            WHERE status = 'ACTIVE' AND stage IN ('NEW', 'CONTACTED')
+            """;
+
+    private static final String OPEN_OPPORTUNITIES = """
+            SELECT o.id, o.employee_id, l.id, l.expected_revenue, l.probability, l.expected_close_date, l.created_at
+            FROM opportunity o
+            JOIN leads l ON o.lead_id = l.id
+            WHERE o.status = 'ACTIVE' AND o.stage = 'NEW' AND o.employee_id IS NOT NULL
+            """;
+
+    // The lead of a changed opportunity is a lazy proxy that may be detached by the time the change is applied
+    private static final String LEAD_VALUE = """
+            SELECT expected_revenue, probability, expected_close_date, created_at FROM leads WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    // Leads without an expected close date are assumed to close this many days after creation
+    @Value("${forecast.default-cycle-days:30}")
+    private int defaultCycleDays;
+
+    /**
+     * One record's share of the forecast
+     */
+    private record Share(long employeeId, YearMonth month, double amount) {
+    }
+
+    private record Key(long employeeId, YearMonth month) {
+    }
+
+    /**
+     * A committed lead or opportunity change, resolved to the shares it moves before it is applied
+     */
+    private sealed interface Change permits LeadChange, OpportunityChange {
+    }
+
+    /**
+     * @param share Null once the lead is no longer open
+     */
+    private record LeadChange(long leadId, Share share, YearMonth month, double amount, boolean deleted)
+            implements Change {
+    }
+
+    /**
+     * @param share Null once the opportunity is no longer open
+     */
+    private record OpportunityChange(long opportunityId, Long leadId, Share share) implements Change {
+    }
+
+    private static final class Cell {
+        private int leads;
+        private double leadAmount;
+        private int opportunities;
+        private double opportunityAmount;
+    }
+
+    /**
+     * Forecast cells plus the share each open record contributes, swapped as a whole on rebuild
+     */
+    private static final class State {
+        private final Map<Key, Cell> cells = new HashMap<>();
+        private final Map<Long, Share> leads = new HashMap<>();
+        private final Map<Long, Share> opportunities = new HashMap<>();
+        // Lead id of each open opportunity, so a lead edit reaches the opportunity it belongs to
+        private final Map<Long, Long> opportunityByLead = new HashMap<>();
+        private final Map<Long, Long> leadByOpportunity = new HashMap<>();
+
+        synchronized void putLead(long leadId, Share share) {
+            Share previous = share == null ? leads.remove(leadId) : leads.put(leadId, share);
+            move(previous, share, false);
+        }
+
+        synchronized void putOpportunity(long opportunityId, Long leadId, Share share) {
+            Share previous;
+            Long previousLead = share == null ? leadByOpportunity.remove(opportunityId)
+                    : leadByOpportunity.put(opportunityId, leadId);
+            if (previousLead != null) {
+                opportunityByLead.remove(previousLead);
+            }
+            if (share == null) {
+                previous = opportunities.remove(opportunityId);
+            } else {
+                previous = opportunities.put(opportunityId, share);
+                opportunityByLead.put(leadId, opportunityId);
+            }
+            move(previous, share, true);
+        }
+
+        /**
+         * The lead behind an open opportunity changed: keep the opportunity's employee, take the new amount and month
+         */
+        synchronized void updateOpportunityLead(long leadId, YearMonth month, double amount) {
+            Long opportunityId = opportunityByLead.get(leadId);
+            if (opportunityId == null) {
+                return;
+            }
+            Share previous = opportunities.get(opportunityId);
+            Share share = new Share(previous.employeeId(), month, amount);
+            opportunities.put(opportunityId, share);
+            move(previous, share, true);
+        }
+
+        private void move(Share previous, Share share, boolean opportunity) {
+            if (previous != null) {
+                add(previous, opportunity, -1);
+            }
+            if (share != null) {
+                add(share, opportunity, 1);
+            }
+        }
+
+        private void add(Share share, boolean opportunity, int sign) {
+            Key key = new Key(share.employeeId(), share.month());
+            Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+            if (opportunity) {
+                cell.opportunities += sign;
+                cell.opportunityAmount += sign * share.amount();
+            } else {
+                cell.leads += sign;
+                cell.leadAmount += sign * share.amount();
+            }
+            if (cell.leads == 0 && cell.opportunities == 0) {
+                cells.remove(key);
+            }
+        }
+
+        synchronized List<ForecastDTO> snapshot(YearMonth from, YearMonth to, Long employeeId) {
+            List<ForecastDTO> rows = new ArrayList<>();
+            cells.forEach((key, cell) -> {
+                if ((from != null && key.month().isBefore(from)) || (to != null && key.month().isAfter(to))
+                        || (employeeId != null && key.employeeId() != employeeId)) {
+                    return;
+                }
+                rows.add(new ForecastDTO(key.employeeId(), null, key.month(), cell.leads, cell.leadAmount,
+                        cell.opportunities, cell.opportunityAmount, cell.leadAmount + cell.opportunityAmount));
+            });
+            return rows;
+        }
+    }
+
+    private final ReseedableState<State, Change> state = new ReseedableState<>(new State(), ForecastService::apply);
+    private volatile Map<Long, String> employeeNames = Map.of();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("forecast-rebuild").daemon(true).factory());
+
+    public ForecastService(JdbcTemplate jdbcTemplate,
+            @Qualifier(StreamingJdbcConfig.STREAMING_JDBC_TEMPLATE) JdbcTemplate streamingJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    /**
+     * Rebuild in the background. While a rebuild is running the request is queued behind it, so
+     * rows a lead import or bulk change wrote after it read them are picked up by one more run.
+     */
+    public void requestRebuild() {
+        if (state.begin()) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Forecast rows per employee and month, by month then employee name
+     * @param from First month to include, or null
+     * @param to Last month to include, or null
+     * @param employeeId Only this employee, or null for everyone
+     */
+    public List<ForecastDTO> getForecast(YearMonth from, YearMonth to, Long employeeId) {
+        checkRange(from, to);
+        Map<Long, String> names = employeeNames;
+        List<ForecastDTO> rows = state.get().snapshot(from, to, employeeId);
+        rows.forEach(row -> row.setEmployeeName(names.get(row.getEmployeeId())));
+        rows.sort(Comparator.comparing(ForecastDTO::getMonth)
+                .thenComparing(ForecastDTO::getEmployeeName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    /**
+     * Forecast totals per month across all employees
+     */
+    public List<ForecastDTO> getMonthlyTotals(YearMonth from, YearMonth to) {
+        checkRange(from, to);
+        Map<YearMonth, ForecastDTO> totals = new TreeMap<>();
+        for (ForecastDTO row : state.get().snapshot(from, to, null)) {
+            ForecastDTO total = totals.computeIfAbsent(row.getMonth(), month -> {
+                ForecastDTO dto = new ForecastDTO();
+                dto.setMonth(month);
+                return dto;
+            });
+            total.setLeadCount(total.getLeadCount() + row.getLeadCount());
+            total.setLeadWeightedRevenue(total.getLeadWeightedRevenue() + row.getLeadWeightedRevenue());
+            total.setOpportunityCount(total.getOpportunityCount() + row.getOpportunityCount());
+            total.setOpportunityWeightedRevenue(total.getOpportunityWeightedRevenue() + row.getOpportunityWeightedRevenue());
+            total.setWeightedRevenue(total.getWeightedRevenue() + row.getWeightedRevenue());
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    private static void checkRange(YearMonth from, YearMonth to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Employee.class)) {
+            loadEmployeeNames();
+            return;
+        }
+        if (!event.isFor(Lead.class) && !event.isFor(Opportunity.class)) {
+            return;
+        }
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            requestRebuild();
+            return;
+        }
+        Change change = change(event);
+        if (change != null) {
+            state.apply(change);
+        }
+    }
+
+    private static void apply(State target, Change change) {
+        if (change instanceof LeadChange lead) {
+            target.putLead(lead.leadId(), lead.share());
+            if (!lead.deleted()) {
+                target.updateOpportunityLead(lead.leadId(), lead.month(), lead.amount());
+            }
+        } else if (change instanceof OpportunityChange opportunity) {
+            target.putOpportunity(opportunity.opportunityId(), opportunity.leadId(), opportunity.share());
+        }
+    }
+
+    /**
+     * Work out the shares an event moves; reads the lead of an opportunity, so this runs outside the state lock
+     */
+    private Change change(EntityChangeEvent event) {
+        boolean deleted = event.getAction() == EntityChangeEvent.Action.DELETED;
+        if (event.getEntity() instanceof Lead lead) {
+            boolean open = !deleted && lead.getStatus() == ActivityStatus.ACTIVE
+                    && (lead.getStage() == Lead.Stage.NEW || lead.getStage() == Lead.Stage.CONTACTED);
+            YearMonth month = closeMonth(lead.getExpectedCloseDate(), lead.getCreatedAt());
+            double amount = weighted(lead.getExpectedRevenue(), lead.getProbability());
+            return new LeadChange(lead.getId(), open && lead.getEmployee() != null
+                    ? new Share(lead.getEmployee().getId(), month, amount) : null, month, amount, deleted);
+        } else if (event.getEntity() instanceof Opportunity opportunity) {
+            Long leadId = opportunity.getLead() != null ? opportunity.getLead().getId() : null;
+            boolean open = !deleted && opportunity.getStatus() == ActivityStatus.ACTIVE
+                    && opportunity.getStage() == Opportunity.Stage.NEW
+                    && opportunity.getEmployee() != null && leadId != null;
+            Share share = null;
+            if (open) {
+                long employeeId = opportunity.getEmployee().getId();
+                share = jdbcTemplate.query(LEAD_VALUE, rs -> rs.next()
+                        ? new Share(employeeId, closeMonth(rs, 3, 4), weighted(rs.getDouble(1), rs.getInt(2)))
+                        : null, leadId);
+            }
+            return new OpportunityChange(opportunity.getId(), leadId, share);
+        }
+        return null;
+    }
+
+    /**
+     * Stream both tables into a fresh state and swap it in, again for every rebuild requested meanwhile;
+     * runs once requestRebuild has begun recording changes
+     */
+    private void rebuild() {
+        boolean again;
+        do {
+            long started = System.currentTimeMillis();
+            State fresh = new State();
+            try {
+                loadEmployeeNames();
+                streamingJdbcTemplate.query(OPEN_LEADS, rs -> {
+                    fresh.putLead(rs.getLong(1), new Share(rs.getLong(2), closeMonth(rs, 5, 6),
+                            weighted(rs.getDouble(3), rs.getInt(4))));
+                });
+                streamingJdbcTemplate.query(OPEN_OPPORTUNITIES, rs -> {
+                    fresh.putOpportunity(rs.getLong(1), rs.getLong(3), new Share(rs.getLong(2), closeMonth(rs, 6, 7),
+                            weighted(rs.getDouble(4), rs.getInt(5))));
+                });
+            } catch (RuntimeException e) {
+                logger.error("Forecast rebuild failed", e);
+                again = state.abandon();
+                continue;
+            }
+            again = state.complete(fresh);
+            logger.info("Forecast rebuilt from {} open leads and {} open opportunities in {} ms",
+                    fresh.leads.size(), fresh.opportunities.size(), System.currentTimeMillis() - started);
+        } while (again);
+    }
+
+    private void loadEmployeeNames() {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM employee", rs -> {
+            names.put(rs.getLong(1), rs.getString(2));
+        });
+        employeeNames = names;
+    }
+
+    private YearMonth closeMonth(ResultSet rs, int closeDateColumn, int createdAtColumn) throws SQLException {
+        Date closeDate = rs.getDate(closeDateColumn);
+        Timestamp createdAt = rs.getTimestamp(createdAtColumn);
+        return closeMonth(closeDate != null ? closeDate.toLocalDate() : null,
+                createdAt != null ? createdAt.toLocalDateTime() : null);
+    }
+
+    private YearMonth closeMonth(LocalDate expectedCloseDate, LocalDateTime createdAt) {
+        if (expectedCloseDate != null) {
+            return YearMonth.from(expectedCloseDate);
+        }
+        LocalDate created = createdAt != null ? createdAt.toLocalDate() : LocalDate.now();
+        return YearMonth.from(created.plusDays(defaultCycleDays));
+    }
+
+    private static double weighted(Double expectedRevenue, Integer probability) {
+        if (expectedRevenue == null || probability == null) {
+            return 0;
+        }
+        return expectedRevenue * probability / 100.0;
+    }
+}
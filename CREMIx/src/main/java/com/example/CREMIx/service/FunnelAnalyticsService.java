@@ -0,0 +1,273 @@
+package com.example.CREMIx.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.DurationsDTO;
+import com.example.CREMIx.dto.FunnelDTO;
+import com.example.CREMIx.misc.LogHistogram;
+import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.model.OpportunityStageTransition;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opportunity stage transition log and the funnel analytics kept over it.
+ * OpportunityService publishes a transition for every stage change; once its transaction commits
+ * the transition is folded into in-memory aggregates (transition counts, dwell time histograms per
+ * stage, per employee win counts and time to win) and queued for the log table, which is written
+ * in JDBC batches. The funnel endpoint reads only the aggregates. On startup the aggregates are
+ * rebuilt by streaming the log once.
+ * Transitions still queued when the process dies are lost from the log, never from the opportunity.
+ */
+@Service
+public class FunnelAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FunnelAnalyticsService.class);
+
+    private static final String INSERT_TRANSITION = """
+            INSERT INTO opportunity_stage_transition
+            (opportunity_id, employee_id, from_stage, to_stage, entered_at, changed_at, opened_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String ALL_TRANSITIONS = """
+            SELECT opportunity_id, employee_id, from_stage, to_stage, entered_at, changed_at, opened_at
+            FROM opportunity_stage_transition
+            """;
+
+    private static final Opportunity.Stage[] STAGES = Opportunity.Stage.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final TransactionTemplate transaction;
+
+    @Value("${analytics.stage-log.batch-size:500}")
+    private int batchSize;
+
+    private static final class EmployeeStats {
+        private long transitions;
+        private long won;
+        private long lost;
+        private final LogHistogram timeToWin = new LogHistogram();
+    }
+
+    /**
+     * Pre-aggregated funnel; all access synchronized on the instance
+     */
+    private static final class Funnel {
+        private final long[] entered = new long[STAGES.length];
+        private final long[][] exits = new long[STAGES.length][STAGES.length];
+        private final LogHistogram[] dwell = new LogHistogram[STAGES.length];
+        private final Map<Long, EmployeeStats> employees = new HashMap<>();
+
+        Funnel() {
+            for (int i = 0; i < dwell.length; i++) {
+                dwell[i] = new LogHistogram();
+            }
+        }
+
+        synchronized void add(OpportunityStageTransition transition) {
+            Opportunity.Stage from = transition.getFromStage();
+            Opportunity.Stage to = transition.getToStage();
+            entered[to.ordinal()]++;
+            if (from != null) {
+                exits[from.ordinal()][to.ordinal()]++;
+                if (transition.getEnteredAt() != null) {
+                    dwell[from.ordinal()].record(millis(transition.getEnteredAt(), transition.getChangedAt()));
+                }
+            }
+            if (transition.getEmployeeId() != null) {
+                EmployeeStats stats = employees.computeIfAbsent(transition.getEmployeeId(), id -> new EmployeeStats());
+                stats.transitions++;
+                if (to == Opportunity.Stage.WON) {
+                    stats.won++;
+                    if (transition.getOpenedAt() != null) {
+                        stats.timeToWin.record(millis(transition.getOpenedAt(), transition.getChangedAt()));
+                    }
+                } else if (to == Opportunity.Stage.LOST) {
+                    stats.lost++;
+                }
+            }
+        }
+
+        synchronized FunnelDTO toDTO(Map<Long, String> employeeNames) {
+            FunnelDTO funnel = new FunnelDTO();
+            for (Opportunity.Stage stage : STAGES) {
+                int i = stage.ordinal();
+                FunnelDTO.StageStats stats = new FunnelDTO.StageStats();
+                stats.setStage(stage);
+                stats.setEntered(entered[i]);
+                for (Opportunity.Stage target : STAGES) {
+                    long moved = exits[i][target.ordinal()];
+                    if (moved > 0) {
+                        stats.getExits().put(target, moved);
+                        stats.getConversionRates().put(target, entered[i] == 0 ? 0 : (double) moved / entered[i]);
+                    }
+                }
+                stats.setDwell(DurationsDTO.of(dwell[i]));
+                funnel.getStages().add(stats);
+            }
+            employees.forEach((employeeId, stats) -> {
+                FunnelDTO.EmployeeVelocity velocity = new FunnelDTO.EmployeeVelocity();
+                velocity.setEmployeeId(employeeId);
+                velocity.setEmployeeName(employeeNames.get(employeeId));
+                velocity.setTransitions(stats.transitions);
+                velocity.setWon(stats.won);
+                velocity.setLost(stats.lost);
+                long closed = stats.won + stats.lost;
+                velocity.setWinRate(closed == 0 ? 0 : (double) stats.won / closed);
+                velocity.setTimeToWin(DurationsDTO.of(stats.timeToWin));
+                funnel.getEmployees().add(velocity);
+            });
+            funnel.getEmployees().sort((a, b) -> Long.compare(b.getWon(), a.getWon()));
+            return funnel;
+        }
+
+        private static long millis(LocalDateTime from, LocalDateTime to) {
+            return Duration.between(from, to).toMillis();
+        }
+    }
+
+    private volatile Funnel funnel = new Funnel();
+
+    // Committed transitions not yet in the log table; guarded by this
+    private List<OpportunityStageTransition> pending = new ArrayList<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("funnel-rebuild").daemon(true).factory());
+
+    // Held while writing a batch or rebuilding, so a rebuild never sees a transition both in the table and in pending
+    private final Object logLock = new Object();
+
+    public FunnelAnalyticsService(JdbcTemplate jdbcTemplate,
+            @Qualifier(StreamingJdbcConfig.STREAMING_JDBC_TEMPLATE) JdbcTemplate streamingJdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(this::rebuild);
+    }
+
+    private void rebuild() {
+        synchronized (logLock) {
+            long started = System.currentTimeMillis();
+            Funnel fresh = new Funnel();
+            long[] rows = new long[1];
+            try {
+                streamingJdbcTemplate.query(ALL_TRANSITIONS, rs -> {
+                    OpportunityStageTransition transition = new OpportunityStageTransition();
+                    transition.setOpportunityId(rs.getLong(1));
+                    transition.setEmployeeId(rs.getObject(2, Long.class));
+                    transition.setFromStage(rs.getString(3) != null ? Opportunity.Stage.valueOf(rs.getString(3)) : null);
+                    transition.setToStage(Opportunity.Stage.valueOf(rs.getString(4)));
+                    transition.setEnteredAt(toLocalDateTime(rs.getTimestamp(5)));
+                    transition.setChangedAt(toLocalDateTime(rs.getTimestamp(6)));
+                    transition.setOpenedAt(toLocalDateTime(rs.getTimestamp(7)));
+                    fresh.add(transition);
+                    rows[0]++;
+                });
+            } catch (RuntimeException e) {
+                logger.error("Failed to rebuild funnel analytics from the stage transition log", e);
+                return;
+            }
+            synchronized (this) {
+                pending.forEach(fresh::add);
+                funnel = fresh;
+            }
+            logger.info("Funnel analytics rebuilt from {} stage transitions in {} ms", rows[0],
+                    System.currentTimeMillis() - started);
+        }
+    }
+
+    public FunnelDTO getFunnel() {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM employee", rs -> {
+            names.put(rs.getLong(1), rs.getString(2));
+        });
+        return funnel.toDTO(names);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStageTransition(OpportunityStageTransition transition) {
+        synchronized (this) {
+            funnel.add(transition);
+            pending.add(transition);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.stage-log.flush-interval-ms:2000}")
+    public void flush() {
+        synchronized (logLock) {
+            List<OpportunityStageTransition> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            try {
+                // One transaction, so a failed batch is retried whole rather than partly duplicated
+                transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_TRANSITION, batch, batchSize,
+                        (ps, transition) -> {
+                            ps.setLong(1, transition.getOpportunityId());
+                            ps.setObject(2, transition.getEmployeeId());
+                            ps.setString(3, transition.getFromStage() != null ? transition.getFromStage().name() : null);
+                            ps.setString(4, transition.getToStage().name());
+                            ps.setTimestamp(5, toTimestamp(transition.getEnteredAt()));
+                            ps.setTimestamp(6, toTimestamp(transition.getChangedAt()));
+                            ps.setTimestamp(7, toTimestamp(transition.getOpenedAt()));
+                        }));
+            } catch (RuntimeException e) {
+                // Put the batch back in front; the aggregates already count it
+                logger.error("Failed to write {} stage transitions, will retry", batch.size(), e);
+                synchronized (this) {
+                    batch.addAll(pending);
+                    pending = batch;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.CREMIx.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.repository.CustomerRepository;
+import com.example.CREMIx.repository.EmployeeRepository;
+
+/**
+ * Resolves the free-text employee and customer references in DTOs (assignedTo, customer name,
+ * email) to ids without a query per write. Hits are kept until a committed change to the entity
+ * evicts them; misses are remembered for a short time only, since rows written through JDBC
+ * bulk paths are announced with a coarse BULK event.
+ * Callers turn the id into a proxy with getReferenceById, so no SELECT is needed to link it.
+ * The stored spelling of a match is kept alongside its id, for responses that echo the reference.
+ */
+@Service
+public class IdentityResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdentityResolver.class);
+
+    private static final long NEGATIVE_TTL_MILLIS = 30_000;
+    private static final int MAX_ENTRIES = 50_000;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    /**
+     * A resolved reference: the id, and the value as stored on that record
+     */
+    public record Match(Long id, String value) {
+    }
+
+    private final Index employeesByName = new Index("employee name");
+    private final Index employeesByEmail = new Index("employee email");
+    private final Index customersByName = new Index("customer name");
+    private final Index customersByEmail = new Index("customer email");
+
+    public Optional<Long> employeeIdByName(String name) {
+        return employeeByName(name).map(Match::id);
+    }
+
+    /**
+     * Like employeeIdByName, with the employee's name as stored
+     */
+    public Optional<Match> employeeByName(String name) {
+        return single(employeesByName, name, keys -> employeeRepository.findIdsByNameIn(keys));
+    }
+
+    public Optional<Long> employeeIdByEmail(String email) {
+        return singleId(employeesByEmail, email, keys -> employeeRepository.findIdsByEmailIn(keys));
+    }
+
+    /**
+     * Customer names are not unique; when several customers share a name the oldest one wins
+     * and a warning is logged, matching what most callers expect from a name lookup.
+     */
+    public Optional<Long> customerIdByName(String name) {
+        return singleId(customersByName, name, keys -> customerRepository.findIdsByNameIn(keys));
+    }
+
+    public Optional<Long> customerIdByEmail(String email) {
+        return singleId(customersByEmail, email, keys -> customerRepository.findIdsByEmailIn(keys));
+    }
+
+    public Map<String, Long> employeeIdsByName(Collection<String> names) {
+        return batch(employeesByName, names, keys -> employeeRepository.findIdsByNameIn(keys));
+    }
+
+    public Map<String, Long> employeeIdsByEmail(Collection<String> emails) {
+        return batch(employeesByEmail, emails, keys -> employeeRepository.findIdsByEmailIn(keys));
+    }
+
+    public Map<String, Long> customerIdsByName(Collection<String> names) {
+        return batch(customersByName, names, keys -> customerRepository.findIdsByNameIn(keys));
+    }
+
+    public Map<String, Long> customerIdsByEmail(Collection<String> emails) {
+        return batch(customersByEmail, emails, keys -> customerRepository.findIdsByEmailIn(keys));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Employee.class)) {
+            evict(event, employeesByName, employeesByEmail);
+        } else if (event.isFor(Customer.class)) {
+            evict(event, customersByName, customersByEmail);
+        }
+    }
+
+    private void evict(EntityChangeEvent event, Index byName, Index byEmail) {
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            byName.clear();
+            byEmail.clear();
+            return;
+        }
+        Long id;
+        String name;
+        String email;
+        if (event.getEntity() instanceof Employee employee) {
+            id = employee.getId();
+            name = employee.getName();
+            email = employee.getEmail();
+        } else {
+            Customer customer = (Customer) event.getEntity();
+            id = customer.getId();
+            name = customer.getName();
+            email = customer.getEmail();
+        }
+        // Old keys via the id (renames), current keys for cached misses and new duplicates
+        byName.evict(id, name);
+        byEmail.evict(id, email);
+    }
+
+    private Optional<Long> singleId(Index index, String value, Function<Collection<String>, List<Object[]>> loader) {
+        return single(index, value, loader).map(Match::id);
+    }
+
+    private Optional<Match> single(Index index, String value, Function<Collection<String>, List<Object[]>> loader) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(matches(index, List.of(value), loader).get(value));
+    }
+
+    /**
+     * Resolve many values with one query for everything not already cached.
+     * @return Ids keyed by the values as passed in; unresolved values are absent
+     */
+    private Map<String, Long> batch(Index index, Collection<String> values,
+            Function<Collection<String>, List<Object[]>> loader) {
+        Map<String, Long> ids = new LinkedHashMap<>();
+        matches(index, values, loader).forEach((value, match) -> ids.put(value, match.id()));
+        return ids;
+    }
+
+    private Map<String, Match> matches(Index index, Collection<String> values,
+            Function<Collection<String>, List<Object[]>> loader) {
+        Map<String, Match> resolved = new LinkedHashMap<>();
+        Map<String, List<String>> missing = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (String value : values) {
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            String key = Index.key(value);
+            Entry entry = index.get(key, now);
+            if (entry == null) {
+                missing.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            } else if (entry.ids.length > 0) {
+                resolved.put(value, new Match(entry.ids[0], entry.value));
+            }
+        }
+        if (missing.isEmpty()) {
+            return resolved;
+        }
+
+        long generation = index.generation.get();
+        List<String> lookup = missing.values().stream().map(list -> list.get(0).trim()).toList();
+        Map<String, List<Long>> found = new HashMap<>();
+        Map<Long, String> stored = new HashMap<>();
+        for (Object[] row : loader.apply(lookup)) {
+            found.computeIfAbsent(Index.key((String) row[1]), k -> new ArrayList<>()).add((Long) row[0]);
+            stored.put((Long) row[0], (String) row[1]);
+        }
+
+        missing.forEach((key, originals) -> {
+            List<Long> ids = found.getOrDefault(key, Collections.emptyList());
+            long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+            if (sorted.length > 1) {
+                logger.warn("Ambiguous {} '{}' matches {} records {}, using id {}", index.label, originals.get(0),
+                        sorted.length, Arrays.toString(sorted), sorted[0]);
+            }
+            String value = sorted.length > 0 ? stored.get(sorted[0]) : null;
+            index.put(key, sorted, value, generation, now);
+            if (sorted.length > 0) {
+                originals.forEach(original -> resolved.put(original, new Match(sorted[0], value)));
+            }
+        });
+        return resolved;
+    }
+
+    private static final class Entry {
+        // Sorted ascending; empty for a cached miss
+        private final long[] ids;
+        // Stored value of the first id
+        private final String value;
+        private final long expiresAt;
+
+        Entry(long[] ids, String value, long expiresAt) {
+            this.ids = ids;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * One lookup key (normalized text) to ids, plus the reverse map so an entity change
+     * can find the keys that still point at it after a rename.
+     */
+    private static final class Index {
+        private final String label;
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<Long, Set<String>> keysById = new ConcurrentHashMap<>();
+        // Bumped on every eviction; a load that raced with one is not cached
+        private final AtomicLong generation = new AtomicLong();
+
+        Index(String label) {
+            this.label = label;
+        }
+
+        // MySQL compares with a case-insensitive collation
+        static String key(String value) {
+            return value.trim().toLowerCase();
+        }
+
+        Entry get(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt < now) {
+                entries.remove(key, entry);
+                return null;
+            }
+            return entry;
+        }
+
+        void put(String key, long[] ids, String value, long loadedAtGeneration, long now) {
+            if (entries.size() >= MAX_ENTRIES) {
+                clear();
+            }
+            synchronized (this) {
+                if (generation.get() != loadedAtGeneration) {
+                    return;
+                }
+                long expiresAt = ids.length == 0 ? now + NEGATIVE_TTL_MILLIS : Long.MAX_VALUE;
+                entries.put(key, new Entry(ids, value, expiresAt));
+                for (long id : ids) {
+                    keysById.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+            }
+        }
+
+        synchronized void evict(Long id, String currentValue) {
+            generation.incrementAndGet();
+            if (id != null) {
+                Set<String> keys = keysById.remove(id);
+                if (keys != null) {
+                    keys.forEach(entries::remove);
+                }
+            }
+            if (currentValue != null) {
+                entries.remove(key(currentValue));
+            }
+        }
+
+        synchronized void clear() {
+            generation.incrementAndGet();
+            entries.clear();
+            keysById.clear();
+        }
+    }
+}
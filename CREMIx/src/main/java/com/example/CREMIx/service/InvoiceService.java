@@ -1,13 +1,36 @@
 package com.example.CREMIx.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import com.example.CREMIx.dto.InvoiceDTO;
 
 public interface InvoiceService {
     List<InvoiceDTO> getAllInvoices();
+
+    /**
+     * Get all invoices with only the requested fields
+     * @param fields Comma separated InvoiceDTO property names
+     * @return One map per invoice keyed by field name
+     */
+    List<Map<String, Object>> getAllInvoiceFields(String fields);
+
     List<InvoiceDTO> getInvoicesByCustomerId(Long customerId);
     InvoiceDTO getInvoiceById(Long id);
+
+    /**
+     * ETag of an invoice, covering the quotation and customer details InvoiceDTO embeds
+     * @param id The ID of the invoice
+     * @return The ETag, or empty if the invoice does not exist
+     */
+    Optional<String> getInvoiceETag(Long id);
+
+    /**
+     * ETag of the invoice list
+     * @param fields The fields parameter of the request, since it changes the representation
+     */
+    String getInvoicesETag(String fields);
     
     /**
      * Create a new invoice for a customer
@@ -0,0 +1,340 @@
+package com.example.CREMIx.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.ReseedableState;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.model.Opportunity;
+
+/**
+ * Picks the employee for a new lead from in-memory workload counters, so routing a burst of
+ * leads never queries the database per lead.
+ * Each employee's open leads and opportunities are counted once from the database and then kept
+ * current from committed entity changes: every open record's owner is remembered, so a change
+ * only has to compare the old and new owner to move one count. A periodic reseed corrects
+ * anything written behind JPA's back. Open tickets come from OpenTicketCounter.
+ */
+@Service
+public class LeadAssignmentRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeadAssignmentRouter.class);
+
+    public enum Policy {
+        // Two random employees, the less loaded one wins: near least-loaded balance in O(1)
+        LEAST_LOADED,
+        // Employees in turn, as often as their configured weight
+        WEIGHTED_ROUND_ROBIN,
+    }
+
+    // How much one open record adds to an employee's load
+    private static final int LEAD_LOAD = 1;
+    private static final int OPPORTUNITY_LOAD = 2;
+    private static final int TICKET_LOAD = 1;
+
+    private static final String OPEN_LEADS = """
+            SELECT id, employee_id FROM leads
+            WHERE status = 'ACTIVE' AND stage IN ('NEW', 'CONTACTED')
+            """;
+    private static final String OPEN_OPPORTUNITIES = """
+            SELECT id, employee_id FROM opportunity
+            WHERE status = 'ACTIVE' AND stage = 'NEW' AND employee_id IS NOT NULL
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OpenTicketCounter openTicketCounter;
+
+    @Value("${leads.assignment.policy:LEAST_LOADED}")
+    private Policy defaultPolicy;
+
+    // Comma separated employee email=weight pairs for weighted round robin; unlisted employees weigh 1,
+    // weight 0 leaves an employee out of the round robin
+    @Value("${leads.assignment.weights:}")
+    private String weightConfig;
+
+    /**
+     * Open work of one employee
+     */
+    private static final class Load {
+        private final AtomicInteger leads = new AtomicInteger();
+        private final AtomicInteger opportunities = new AtomicInteger();
+
+        int weighted() {
+            return leads.get() * LEAD_LOAD + opportunities.get() * OPPORTUNITY_LOAD;
+        }
+    }
+
+    private enum Kind {
+        LEAD,
+        OPPORTUNITY;
+
+        AtomicInteger counter(Load load) {
+            return switch (this) {
+                case LEAD -> load.leads;
+                case OPPORTUNITY -> load.opportunities;
+            };
+        }
+    }
+
+    public record Member(Long id, String name, String email, int weight) {
+    }
+
+    /**
+     * Counters plus the owner of every open record, swapped as a whole on reseed
+     */
+    private static final class State {
+        private final Map<Long, Load> loads = new ConcurrentHashMap<>();
+        private final Map<Kind, Map<Long, Long>> owners = Map.of(
+                Kind.LEAD, new ConcurrentHashMap<>(),
+                Kind.OPPORTUNITY, new ConcurrentHashMap<>());
+
+        Load load(Long employeeId) {
+            return loads.computeIfAbsent(employeeId, id -> new Load());
+        }
+
+        /**
+         * Record the current owner of a record, or null once it is closed; moves at most two counts
+         */
+        void track(Kind kind, Long recordId, Long owner) {
+            Map<Long, Long> byRecord = owners.get(kind);
+            Long previous = owner == null ? byRecord.remove(recordId) : byRecord.put(recordId, owner);
+            if (Objects.equals(previous, owner)) {
+                return;
+            }
+            if (previous != null) {
+                kind.counter(load(previous)).decrementAndGet();
+            }
+            if (owner != null) {
+                kind.counter(load(owner)).incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Employees eligible for routing, with the round robin schedule precomputed from their weights
+     */
+    private record Roster(Member[] members, Member[] schedule) {
+    }
+
+    private final ReseedableState<State, EntityChangeEvent> state =
+            new ReseedableState<>(new State(), LeadAssignmentRouter::apply);
+    private volatile Roster roster = new Roster(new Member[0], new Member[0]);
+    private final AtomicLong cursor = new AtomicLong();
+
+    private final AtomicBoolean reseedQueued = new AtomicBoolean();
+    private final ExecutorService reseeder = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("lead-assignment-reseed").daemon(true).factory());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reseed();
+    }
+
+    @Scheduled(fixedDelayString = "${leads.assignment.reseed-interval-ms:600000}",
+            initialDelayString = "${leads.assignment.reseed-interval-ms:600000}")
+    public void scheduledReseed() {
+        reseed();
+    }
+
+    public Policy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Choose the employee for the next lead. Reads only in-memory state.
+     * @return Empty when there are no employees, or for round robin when none has a positive weight
+     */
+    public Optional<Member> pick(Policy policy) {
+        Roster current = roster;
+        Member[] members = current.members();
+        if (members.length == 0) {
+            return Optional.empty();
+        }
+        if (policy == Policy.WEIGHTED_ROUND_ROBIN) {
+            Member[] schedule = current.schedule();
+            if (schedule.length == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(schedule[(int) Math.floorMod(cursor.getAndIncrement(), (long) schedule.length)]);
+        }
+        if (members.length == 1) {
+            return Optional.of(members[0]);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(members.length);
+        int second = random.nextInt(members.length - 1);
+        if (second >= first) {
+            second++;
+        }
+        State counts = state.get();
+        int firstLoad = load(counts, members[first].id());
+        int secondLoad = load(counts, members[second].id());
+        return Optional.of(firstLoad <= secondLoad ? members[first] : members[second]);
+    }
+
+    /**
+     * Current weighted load per employee id, for diagnostics
+     */
+    public Map<Long, Integer> getLoads() {
+        Map<Long, Integer> loads = new HashMap<>();
+        state.get().loads.forEach((id, load) -> loads.put(id, load.weighted()));
+        openTicketCounter.getAll().forEach((id, tickets) -> loads.merge(id, tickets * TICKET_LOAD, Integer::sum));
+        return loads;
+    }
+
+    private int load(State counts, Long employeeId) {
+        return counts.load(employeeId).weighted() + openTicketCounter.get(employeeId) * TICKET_LOAD;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Employee.class)) {
+            loadRoster();
+            return;
+        }
+        if (!event.isFor(Lead.class) && !event.isFor(Opportunity.class)) {
+            return;
+        }
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            // Published on the thread that made the bulk write, often a request thread
+            scheduleReseed();
+            return;
+        }
+        state.apply(event);
+    }
+
+    private static void apply(State target, EntityChangeEvent event) {
+        boolean deleted = event.getAction() == EntityChangeEvent.Action.DELETED;
+        if (event.getEntity() instanceof Lead lead) {
+            boolean open = !deleted && lead.getStatus() == ActivityStatus.ACTIVE
+                    && (lead.getStage() == Lead.Stage.NEW || lead.getStage() == Lead.Stage.CONTACTED);
+            target.track(Kind.LEAD, lead.getId(), open ? employeeId(lead.getEmployee()) : null);
+        } else if (event.getEntity() instanceof Opportunity opportunity) {
+            boolean open = !deleted && opportunity.getStatus() == ActivityStatus.ACTIVE
+                    && opportunity.getStage() == Opportunity.Stage.NEW;
+            target.track(Kind.OPPORTUNITY, opportunity.getId(), open ? employeeId(opportunity.getEmployee()) : null);
+        }
+    }
+
+    private static Long employeeId(Employee employee) {
+        return employee != null ? employee.getId() : null;
+    }
+
+    private void scheduleReseed() {
+        if (reseedQueued.compareAndSet(false, true)) {
+            reseeder.execute(() -> {
+                reseedQueued.set(false);
+                reseed();
+            });
+        }
+    }
+
+    /**
+     * Count open work from the database into a fresh state and swap it in
+     */
+    private void reseed() {
+        State fresh;
+        try {
+            fresh = state.reseed(() -> {
+                State loaded = new State();
+                loadRoster();
+                seed(loaded, Kind.LEAD, OPEN_LEADS);
+                seed(loaded, Kind.OPPORTUNITY, OPEN_OPPORTUNITIES);
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to seed lead assignment counters", e);
+            return;
+        }
+        if (fresh == null) {
+            return;
+        }
+        logger.info("Lead assignment counters seeded for {} employees: {} open leads, {} opportunities",
+                roster.members().length, fresh.owners.get(Kind.LEAD).size(), fresh.owners.get(Kind.OPPORTUNITY).size());
+    }
+
+    private void seed(State target, Kind kind, String sql) {
+        jdbcTemplate.query(sql, rs -> {
+            target.track(kind, rs.getLong(1), rs.getLong(2));
+        });
+    }
+
+    private void loadRoster() {
+        Map<String, Integer> weights = parseWeights(weightConfig);
+        List<Member> members = jdbcTemplate.query("SELECT id, name, email FROM employee ORDER BY id",
+                (rs, rowNum) -> new Member(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        weights.getOrDefault(rs.getString(3) != null ? rs.getString(3).toLowerCase() : "", 1)));
+        roster = new Roster(members.toArray(Member[]::new), schedule(members));
+    }
+
+    /**
+     * Smooth weighted round robin (as in nginx), unrolled into one full cycle: weights 3 and 1
+     * give A A B A rather than A A A B, and picking is an index into the array. Members weighing 0
+     * are left out; with none weighing more the schedule is empty.
+     */
+    private static Member[] schedule(List<Member> all) {
+        List<Member> members = all.stream().filter(member -> member.weight() > 0).toList();
+        int total = members.stream().mapToInt(Member::weight).sum();
+        Member[] schedule = new Member[total];
+        int[] current = new int[members.size()];
+        for (int slot = 0; slot < total; slot++) {
+            int best = 0;
+            for (int i = 0; i < members.size(); i++) {
+                current[i] += members.get(i).weight();
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= total;
+            schedule[slot] = members.get(best);
+        }
+        return schedule;
+    }
+
+    private static Map<String, Integer> parseWeights(String config) {
+        Map<String, Integer> weights = new HashMap<>();
+        if (config == null || config.isBlank()) {
+            return weights;
+        }
+        for (String pair : config.split(",")) {
+            String[] parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid leads.assignment.weights entry: " + pair);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in leads.assignment.weights: " + pair);
+            }
+            weights.put(parts[0].trim().toLowerCase(), weight);
+        }
+        return weights;
+    }
+}
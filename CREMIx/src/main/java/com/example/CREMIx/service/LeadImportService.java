@@ -0,0 +1,456 @@
+package com.example.CREMIx.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.CREMIx.dto.LeadImportStatusDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.ContactPatterns;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.ExportFormat;
+import com.example.CREMIx.misc.RowReader;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk lead import. An upload is parsed and validated row by row, then handled in chunks:
+ * customers and employees for a whole chunk are resolved in one batch through {@link IdentityResolver},
+ * missing customers are created, and the leads are written with a single JDBC batch insert.
+ * Jobs run in the background; callers poll {@link #getStatus(String)} for progress.
+ */
+@Service
+public class LeadImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeadImportService.class);
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final long KEEP_FINISHED_MINUTES = 60;
+
+    private static final String INSERT_LEAD = """
+            INSERT INTO leads (requirement, expected_revenue, probability, source, status, type, stage,
+                               created_at, updated_at, customer_id, employee_id, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private IdentityResolver identityResolver;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate transaction;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2,
+            Thread.ofPlatform().name("lead-import-", 1).daemon(true).factory());
+
+    @Autowired
+    public LeadImportService(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Store the upload in a temp file and queue it for import
+     * @return The initial status, including the job id to poll
+     */
+    public LeadImportStatusDTO submit(MultipartFile file, ExportFormat format) throws IOException {
+        Path upload = Files.createTempFile("lead-import-", "." + format.getExtension());
+        file.transferTo(upload);
+
+        evictFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), format);
+        jobs.put(job.id, job);
+        executor.submit(() -> run(job, upload));
+        logger.info("Queued lead import {} for {}", job.id, job.fileName);
+        return job.snapshot();
+    }
+
+    public Optional<LeadImportStatusDTO> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::snapshot);
+    }
+
+    private void run(ImportJob job, Path upload) {
+        job.state = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        try (InputStream in = Files.newInputStream(upload);
+                RowReader reader = RowReader.open(job.format, in, objectMapper)) {
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (true) {
+                Map<String, String> values;
+                try {
+                    values = reader.next();
+                } catch (IllegalArgumentException e) {
+                    job.rowsRead.incrementAndGet();
+                    job.fail(reader.getRowNumber(), e.getMessage());
+                    continue;
+                }
+                if (values == null) {
+                    break;
+                }
+                job.rowsRead.incrementAndGet();
+
+                ImportRow row = parse(reader.getRowNumber(), values, job);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, job);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, job);
+            }
+            job.state = "COMPLETED";
+        } catch (Exception e) {
+            logger.error("Lead import {} failed", job.id, e);
+            job.state = "FAILED";
+            job.message = e.getMessage();
+        } finally {
+            if (job.imported.get() > 0) {
+                // Leads were written through JDBC, so no JPA listener saw them
+                eventPublisher.publishEvent(EntityChangeEvent.bulk(Lead.class));
+            }
+            job.finishedAt = LocalDateTime.now();
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException e) {
+                logger.warn("Could not delete import upload {}", upload);
+            }
+            logger.info("Lead import {} {}: {} rows read, {} imported, {} failed", job.id, job.state,
+                    job.rowsRead.get(), job.imported.get(), job.failed.get());
+        }
+    }
+
+    /**
+     * Parse and validate stage: turn raw text into typed values, rejecting the row on the first problem
+     */
+    private ImportRow parse(long rowNumber, Map<String, String> values, ImportJob job) {
+        try {
+            ImportRow row = new ImportRow(rowNumber);
+            row.name = required(values, "name");
+            row.requirement = required(values, "requirement");
+            row.assignedTo = required(values, "assignedTo");
+
+            row.email = text(values, "email");
+            if (row.email != null && !ContactPatterns.EMAIL.matcher(row.email).matches()) {
+                throw new IllegalArgumentException("Invalid email: " + row.email);
+            }
+            row.phoneNumber = text(values, "phoneNumber");
+            if (row.phoneNumber != null && !ContactPatterns.PHONE.matcher(row.phoneNumber).matches()) {
+                throw new IllegalArgumentException("Invalid phone number: " + row.phoneNumber);
+            }
+            row.address = text(values, "address");
+            row.city = text(values, "city");
+            row.state = text(values, "state");
+            row.country = text(values, "country");
+            row.website = text(values, "website");
+            String zipCode = text(values, "zipCode");
+            row.zipCode = zipCode != null ? Integer.valueOf(zipCode) : null;
+
+            String revenue = text(values, "expectedRevenue");
+            row.expectedRevenue = revenue != null ? Double.parseDouble(revenue) : 0.0;
+            if (row.expectedRevenue < 0) {
+                throw new IllegalArgumentException("expectedRevenue cannot be negative");
+            }
+            String probability = text(values, "conversionProbability");
+            if (probability == null) {
+                probability = text(values, "probability");
+            }
+            row.probability = probability != null ? Integer.parseInt(probability) : 0;
+            if (row.probability < 0 || row.probability > 100) {
+                throw new IllegalArgumentException("Probability must be between 0 and 100");
+            }
+            String source = text(values, "source");
+            row.source = source != null ? Lead.Source.valueOf(source.toUpperCase()) : Lead.Source.UNKNOWN;
+            String type = text(values, "type");
+            row.type = type != null ? Lead.Type.valueOf(type.toUpperCase()) : Lead.Type.INDIVIDUAL;
+            return row;
+        } catch (NumberFormatException e) {
+            job.fail(rowNumber, "Invalid number: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            job.fail(rowNumber, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Resolve and write a chunk in one transaction. If the batch fails, the rows are retried
+     * one by one so only the offending rows are reported.
+     */
+    private void importChunk(List<ImportRow> chunk, ImportJob job) {
+        try {
+            ChunkResult result = transaction.execute(status -> resolveAndWrite(chunk));
+            job.record(result);
+        } catch (RuntimeException e) {
+            logger.warn("Lead import {} chunk failed, retrying {} rows individually: {}", job.id, chunk.size(),
+                    rootMessage(e));
+            for (ImportRow row : chunk) {
+                try {
+                    ChunkResult result = transaction.execute(status -> resolveAndWrite(List.of(row)));
+                    job.record(result);
+                } catch (RuntimeException rowError) {
+                    job.fail(row.rowNumber, rootMessage(rowError));
+                }
+            }
+        }
+    }
+
+    private ChunkResult resolveAndWrite(List<ImportRow> rows) {
+        ChunkResult result = new ChunkResult();
+
+        // Resolve employees and customers for the whole chunk; the resolver queries only uncached values
+        Set<String> employeeNames = new HashSet<>();
+        Set<String> employeeEmails = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (ImportRow row : rows) {
+            (row.assignedTo.contains("@") ? employeeEmails : employeeNames).add(row.assignedTo);
+            if (row.email != null) {
+                emails.add(row.email);
+            }
+            names.add(row.name);
+        }
+        Map<String, Long> employees = new HashMap<>(identityResolver.employeeIdsByName(employeeNames));
+        employees.putAll(identityResolver.employeeIdsByEmail(employeeEmails));
+        // By email first (unique), then by name like enterLeadDetails does
+        Map<String, Long> customersByEmail = identityResolver.customerIdsByEmail(emails);
+        Map<String, Long> customersByName = identityResolver.customerIdsByName(names);
+
+        List<ImportRow> resolved = new ArrayList<>(rows.size());
+        List<Customer> newCustomers = new ArrayList<>();
+        Map<String, Customer> createdByEmail = new HashMap<>();
+        Map<String, Customer> createdByName = new HashMap<>();
+        for (ImportRow row : rows) {
+            row.employeeId = employees.get(row.assignedTo);
+            if (row.employeeId == null) {
+                result.errors.add(new LeadImportStatusDTO.RowError(row.rowNumber, "Employee not found: " + row.assignedTo));
+                continue;
+            }
+            row.customerId = row.email != null ? customersByEmail.get(row.email) : null;
+            if (row.customerId == null) {
+                row.customerId = customersByName.get(row.name);
+            }
+            if (row.customerId == null) {
+                // Rows in the same chunk for the same new customer share one record
+                row.customer = row.email != null ? createdByEmail.get(key(row.email)) : null;
+                if (row.customer == null) {
+                    row.customer = createdByName.get(key(row.name));
+                }
+                if (row.customer == null) {
+                    if (row.email == null) {
+                        result.errors.add(new LeadImportStatusDTO.RowError(row.rowNumber,
+                                "Customer " + row.name + " not found and no email given to create it"));
+                        continue;
+                    }
+                    row.customer = newCustomer(row);
+                    createdByEmail.put(key(row.email), row.customer);
+                    createdByName.putIfAbsent(key(row.name), row.customer);
+                    newCustomers.add(row.customer);
+                }
+            }
+            resolved.add(row);
+        }
+
+        // Write stage: new customers first so their ids exist, then one batch for the leads
+        customerRepository.saveAll(newCustomers);
+        customerRepository.flush();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_LEAD, resolved, resolved.size(), (ps, row) -> {
+            ps.setString(1, row.requirement);
+            ps.setDouble(2, row.expectedRevenue);
+            ps.setInt(3, row.probability);
+            ps.setString(4, row.source.name());
+            ps.setString(5, ActivityStatus.ACTIVE.name());
+            ps.setString(6, row.type.name());
+            ps.setString(7, Lead.Stage.NEW.name());
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+            ps.setLong(10, row.customerId != null ? row.customerId : row.customer.getId());
+            ps.setLong(11, row.employeeId);
+        });
+
+        result.imported = resolved.size();
+        result.customersCreated = newCustomers.size();
+        return result;
+    }
+
+    private static Customer newCustomer(ImportRow row) {
+        Customer customer = new Customer();
+        customer.setName(row.name);
+        customer.setEmail(row.email);
+        customer.setPhoneNumber(row.phoneNumber);
+        customer.setAddress(row.address);
+        customer.setCity(row.city);
+        customer.setState(row.state);
+        customer.setZipCode(row.zipCode);
+        customer.setCountry(row.country);
+        customer.setWebsite(row.website);
+        return customer;
+    }
+
+    // MySQL compares names and emails case-insensitively, so the lookup maps do too
+    private static String key(String value) {
+        return value == null ? null : value.trim().toLowerCase();
+    }
+
+    private static String text(Map<String, String> values, String column) {
+        String value = values.get(column);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String required(Map<String, String> values, String column) {
+        String value = text(values, column);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private static String rootMessage(Throwable e) {
+        return NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(KEEP_FINISHED_MINUTES);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private static final class ImportRow {
+        private final long rowNumber;
+        private String name;
+        private String email;
+        private String phoneNumber;
+        private String address;
+        private String city;
+        private String state;
+        private Integer zipCode;
+        private String country;
+        private String website;
+        private String requirement;
+        private String assignedTo;
+        private double expectedRevenue;
+        private int probability;
+        private Lead.Source source;
+        private Lead.Type type;
+
+        private Long customerId;
+        private Long employeeId;
+        // Set instead of customerId when the row creates its customer
+        private Customer customer;
+
+        ImportRow(long rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+    }
+
+    private static final class ChunkResult {
+        private long imported;
+        private long customersCreated;
+        private final List<LeadImportStatusDTO.RowError> errors = new ArrayList<>();
+    }
+
+    /**
+     * Mutable job state. Only the import thread writes it; status requests read it from other threads.
+     */
+    private static final class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final ExportFormat format;
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong customersCreated = new AtomicLong();
+        private final List<LeadImportStatusDTO.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile String state = "QUEUED";
+        private volatile String message;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        ImportJob(String id, String fileName, ExportFormat format) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        void fail(long row, String message) {
+            failed.incrementAndGet();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new LeadImportStatusDTO.RowError(row, message));
+            }
+        }
+
+        void record(ChunkResult result) {
+            imported.addAndGet(result.imported);
+            customersCreated.addAndGet(result.customersCreated);
+            result.errors.forEach(error -> fail(error.getRow(), error.getMessage()));
+        }
+
+        LeadImportStatusDTO snapshot() {
+            LeadImportStatusDTO status = new LeadImportStatusDTO();
+            status.setJobId(id);
+            status.setFileName(fileName);
+            status.setFormat(format.name());
+            status.setState(state);
+            status.setRowsRead(rowsRead.get());
+            status.setImported(imported.get());
+            status.setFailed(failed.get());
+            status.setCustomersCreated(customersCreated.get());
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(finishedAt);
+            status.setMessage(message);
+            synchronized (errors) {
+                status.setErrors(new ArrayList<>(errors));
+            }
+            return status;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.CREMIx.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.dto.LeadWorklistItemDTO;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.Location;
+import com.example.CREMIx.model.CallLog;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.model.Note;
+import com.example.CREMIx.repository.LeadRepository;
+
+/**
+ * Scores active leads from 0 to 100 out of their probability, expected revenue, source, age and
+ * recent call and note activity, and keeps the score in the indexed leads.score column.
+ * A full recompute (nightly, or on request) splits all active lead ids into fork-join tasks that
+ * each load, score and write one slice. Between full runs, committed calls, notes and lead edits
+ * queue just the affected leads for rescoring in the background.
+ */
+@Service
+public class LeadScoringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeadScoringService.class);
+
+    // Leaf size of the fork-join split, and the IN list size of every feature query
+    private static final int SLICE_SIZE = 1000;
+    // Each task holds a database connection while it runs, so stay well under the pool size
+    private static final int PARALLELISM = 4;
+
+    private static final int ACTIVITY_WINDOW_DAYS = 30;
+    private static final double FRESHNESS_DAYS = 30;
+    private static final double RECENCY_DAYS = 14;
+    // log10 of the revenue that earns the full revenue component (10 million)
+    private static final double REVENUE_LOG_SCALE = 7;
+
+    private static final double PROBABILITY_WEIGHT = 0.35;
+    private static final double REVENUE_WEIGHT = 0.20;
+    private static final double SOURCE_WEIGHT = 0.15;
+    private static final double FRESHNESS_WEIGHT = 0.10;
+    private static final double ACTIVITY_WEIGHT = 0.20;
+
+    private static final Map<Lead.Source, Double> SOURCE_SCORES = new EnumMap<>(Map.of(
+            Lead.Source.REFERRAL, 1.0,
+            Lead.Source.EVENT, 0.8,
+            Lead.Source.PHONE, 0.75,
+            Lead.Source.EMAIL, 0.6,
+            Lead.Source.WEBSITE, 0.6,
+            Lead.Source.INTERNET, 0.5,
+            Lead.Source.ADVERTISEMENT, 0.45,
+            Lead.Source.BROCHURE, 0.4));
+    private static final double DEFAULT_SOURCE_SCORE = 0.3;
+
+    private static final String FEATURES = """
+            SELECT l.id, l.probability, l.expected_revenue, l.source, l.created_at,
+                   (SELECT COUNT(*) FROM call_logs c WHERE c.customer_id = l.customer_id AND c.date_time >= :since),
+                   (SELECT MAX(c.date_time) FROM call_logs c WHERE c.customer_id = l.customer_id),
+                   (SELECT COUNT(*) FROM note n
+                    WHERE n.location = 'LEAD' AND n.location_id = l.id AND n.creation_date >= :since),
+                   (SELECT MAX(n.creation_date) FROM note n WHERE n.location = 'LEAD' AND n.location_id = l.id)
+            FROM leads l
+            WHERE l.id IN (:ids) AND l.status = 'ACTIVE'
+            """;
+
+    private static final String UPDATE_SCORE = "UPDATE leads SET score = :score, scored_at = :scoredAt WHERE id = :id";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    private final ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+    private final AtomicBoolean fullRunActive = new AtomicBoolean();
+
+    // Incremental work, coalesced until the background drain picks it up
+    private final Set<Long> pendingLeads = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingCustomers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean unscoredPending = new AtomicBoolean();
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("lead-scoring").daemon(true).factory());
+
+    private record Features(long id, int probability, double expectedRevenue, String source, LocalDateTime createdAt,
+            int recentCalls, LocalDateTime lastCall, int recentNotes, LocalDateTime lastNote) {
+    }
+
+    /**
+     * Ranked worklist of active leads, optionally for one rep
+     * @param afterScore Score of the last row of the previous page, with afterId, or null for the first page
+     */
+    public List<LeadWorklistItemDTO> getWorklist(Long employeeId, Double afterScore, Long afterId, int limit) {
+        if ((afterScore == null) != (afterId == null)) {
+            throw new IllegalArgumentException("afterScore and afterId go together");
+        }
+        return leadRepository.findWorklist(employeeId, afterScore, afterId,
+                PageRequest.of(0, Math.max(1, Math.min(limit, 200))));
+    }
+
+    @Scheduled(cron = "${leads.scoring.cron:0 0 2 * * *}")
+    public void scheduledRecompute() {
+        requestRecompute();
+    }
+
+    /**
+     * Start a full recompute in the background
+     * @return false if one is already queued or running
+     */
+    public boolean requestRecompute() {
+        if (!fullRunActive.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(this::recomputeAll);
+        return true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Lead.class)) {
+            if (event.getAction() == EntityChangeEvent.Action.BULK) {
+                // Bulk inserts leave the score empty
+                unscoredPending.set(true);
+            } else if (event.getAction() != EntityChangeEvent.Action.DELETED) {
+                pendingLeads.add(((Lead) event.getEntity()).getId());
+            }
+        } else if (event.getEntity() instanceof CallLog callLog && callLog.getCustomer() != null) {
+            pendingCustomers.add(callLog.getCustomer().getId());
+        } else if (event.getEntity() instanceof Note note && note.getLocation() == Location.LEAD) {
+            pendingLeads.add(note.getLocationId());
+        } else {
+            return;
+        }
+        if (drainQueued.compareAndSet(false, true)) {
+            executor.execute(this::drainPending);
+        }
+    }
+
+    /**
+     * Runs once requestRecompute has set fullRunActive
+     */
+    private void recomputeAll() {
+        try {
+            long start = System.currentTimeMillis();
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM leads WHERE status = 'ACTIVE' ORDER BY id",
+                    Map.of(), Long.class);
+            LocalDateTime now = LocalDateTime.now();
+            AtomicInteger scored = new AtomicInteger();
+            pool.invoke(new ScoreSlice(ids, 0, ids.size(), now, scored));
+            logger.info("Lead scores recomputed: {} leads in {} ms", scored.get(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Lead score recompute failed", e);
+        } finally {
+            fullRunActive.set(false);
+        }
+    }
+
+    /**
+     * Splits a range of lead ids in half until it is one slice, then scores that slice
+     */
+    private class ScoreSlice extends RecursiveAction {
+        private final List<Long> ids;
+        private final int from;
+        private final int to;
+        private final LocalDateTime now;
+        private final AtomicInteger scored;
+
+        ScoreSlice(List<Long> ids, int from, int to, LocalDateTime now, AtomicInteger scored) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.now = now;
+            this.scored = scored;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SLICE_SIZE) {
+                scored.addAndGet(scoreLeads(ids.subList(from, to), now));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScoreSlice(ids, from, middle, now, scored), new ScoreSlice(ids, middle, to, now, scored));
+        }
+    }
+
+    private void drainPending() {
+        drainQueued.set(false);
+        try {
+            Set<Long> leadIds = new HashSet<>(take(pendingLeads));
+            List<Long> customerIds = take(pendingCustomers);
+            if (!customerIds.isEmpty()) {
+                leadIds.addAll(jdbcTemplate.queryForList(
+                        "SELECT id FROM leads WHERE customer_id IN (:ids) AND status = 'ACTIVE'",
+                        Map.of("ids", customerIds), Long.class));
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = new ArrayList<>(leadIds);
+            for (int start = 0; start < ids.size(); start += SLICE_SIZE) {
+                scoreLeads(ids.subList(start, Math.min(start + SLICE_SIZE, ids.size())), now);
+            }
+            if (unscoredPending.getAndSet(false)) {
+                scoreUnscored(now);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Incremental lead rescoring failed", e);
+        }
+    }
+
+    private void scoreUnscored(LocalDateTime now) {
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM leads WHERE status = 'ACTIVE' AND score IS NULL ORDER BY id LIMIT :limit",
+                    Map.of("limit", SLICE_SIZE), Long.class);
+            if (ids.isEmpty() || scoreLeads(ids, now) == 0) {
+                return;
+            }
+        }
+    }
+
+    private static List<Long> take(Set<Long> pending) {
+        List<Long> taken = new ArrayList<>();
+        for (Long id : pending) {
+            if (pending.remove(id)) {
+                taken.add(id);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Load features for up to one slice of leads, score them and write the scores in one batch
+     * @return Number of leads scored; inactive or missing ids are skipped
+     */
+    private int scoreLeads(List<Long> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> params = Map.of("ids", ids, "since", Timestamp.valueOf(now.minusDays(ACTIVITY_WINDOW_DAYS)));
+        List<Features> rows = jdbcTemplate.query(FEATURES, params, (rs, rowNum) -> new Features(
+                rs.getLong(1),
+                rs.getInt(2),
+                rs.getDouble(3),
+                rs.getString(4),
+                toLocalDateTime(rs.getTimestamp(5)),
+                rs.getInt(6),
+                toLocalDateTime(rs.getTimestamp(7)),
+                rs.getInt(8),
+                toLocalDateTime(rs.getTimestamp(9))));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Timestamp scoredAt = Timestamp.valueOf(now);
+        @SuppressWarnings("unchecked")
+        Map<String, Object>[] batch = rows.stream()
+                .map(row -> Map.<String, Object>of("id", row.id(), "score", score(row, now), "scoredAt", scoredAt))
+                .toArray(Map[]::new);
+        jdbcTemplate.batchUpdate(UPDATE_SCORE, batch);
+        return rows.size();
+    }
+
+    private static double score(Features lead, LocalDateTime now) {
+        double probability = clamp(lead.probability() / 100.0);
+        double revenue = clamp(Math.log10(1 + Math.max(0, lead.expectedRevenue())) / REVENUE_LOG_SCALE);
+        double source = DEFAULT_SOURCE_SCORE;
+        if (lead.source() != null) {
+            source = SOURCE_SCORES.getOrDefault(Lead.Source.valueOf(lead.source()), DEFAULT_SOURCE_SCORE);
+        }
+        double freshness = lead.createdAt() != null ? Math.exp(-daysBetween(lead.createdAt(), now) / FRESHNESS_DAYS) : 0;
+
+        // Saturates: the first few touches count most
+        double engagement = 1 - Math.exp(-(lead.recentCalls() + lead.recentNotes()) / 3.0);
+        LocalDateTime lastActivity = latest(lead.lastCall(), lead.lastNote());
+        double recency = lastActivity != null ? Math.exp(-daysBetween(lastActivity, now) / RECENCY_DAYS) : 0;
+        double activity = (engagement + recency) / 2;
+
+        double score = 100 * (PROBABILITY_WEIGHT * probability
+                + REVENUE_WEIGHT * revenue
+                + SOURCE_WEIGHT * source
+                + FRESHNESS_WEIGHT * freshness
+                + ACTIVITY_WEIGHT * activity);
+        return Math.round(score * 100) / 100.0;
+    }
+
+    private static double daysBetween(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, Duration.between(from, to).toMinutes() / (24.0 * 60));
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -1,17 +1,22 @@
 package com.example.CREMIx.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.CREMIx.dto.LeadDTO;
 import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.misc.ETags;
+import com.example.CREMIx.misc.PreconditionFailedException;
 import com.example.CREMIx.model.Customer;
 import com.example.CREMIx.model.Lead;
 import com.example.CREMIx.repository.CustomerRepository;
 import com.example.CREMIx.repository.EmployeeRepository;
 import com.example.CREMIx.repository.LeadRepository;
+import com.example.CREMIx.repository.SparseFieldsetRepository;
 
 @Service
 public class LeadService {
@@ -25,25 +30,32 @@ public class LeadService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private SparseFieldsetRepository sparseFieldsetRepository;
+
+    @Autowired
+    private IdentityResolver identityResolver;
+
     
     public LeadDTO enterLeadDetails(LeadDTO leadDetails) {
         Lead lead = new Lead();
         lead.setRequirement(leadDetails.getRequirement());
         lead.setProbability(leadDetails.getConversionProbability());
         lead.setExpectedRevenue(leadDetails.getExpectedRevenue());
+        lead.setExpectedCloseDate(leadDetails.getExpectedCloseDate());
         lead.setSource(Lead.Source.valueOf(leadDetails.getSource()));
 
-        var employeeOption = employeeRepository.findByName(leadDetails.getAssignedTo().trim());
-        if (employeeOption.isPresent()) {
-            lead.setEmployee(employeeOption.get());
-            leadDetails.setAssignedTo(employeeOption.get().getName());
+        var employee = identityResolver.employeeByName(leadDetails.getAssignedTo().trim());
+        if (employee.isPresent()) {
+            lead.setEmployee(employeeRepository.getReferenceById(employee.get().id()));
+            leadDetails.setAssignedTo(employee.get().value());
         } else {
             throw new RuntimeException("Employee not found");
         }
 
-        var customerOption = customerRepository.findByName(leadDetails.getName());
-        if (customerOption.isPresent()) {
-            lead.setCustomer(customerOption.get());
+        var customerId = identityResolver.customerIdByName(leadDetails.getName());
+        if (customerId.isPresent()) {
+            lead.setCustomer(customerRepository.getReferenceById(customerId.get()));
         } else {
             var customer = new Customer();
             customer.setName(leadDetails.getName());
@@ -62,7 +74,8 @@ public class LeadService {
             lead.setCustomer(customer);
         }
         
-        leadRepository.save(lead);
+        lead = leadRepository.save(lead);
+        leadDetails.setId(lead.getId());
         return leadDetails;
     }
 
@@ -70,35 +83,75 @@ public class LeadService {
         return leadRepository.getAllLeadDetails();
     }
 
+    /**
+     * Active leads with only the requested LeadDTO fields
+     * @param fields Comma separated LeadDTO property names
+     */
+    public List<Map<String, Object>> getAllLeadFields(String fields) {
+        return sparseFieldsetRepository.findFields(Lead.class, LeadDTO.FIELDS, LeadDTO.FIELDS.parse(fields),
+                Map.of("status", ActivityStatus.ACTIVE));
+    }
+
+    /**
+     * ETag of a lead, covering the lead and the customer details LeadDTO embeds
+     */
+    public Optional<String> getLeadETag(Long id) {
+        return leadRepository.findVersionTagById(id).map(tag -> ETags.of(id, tag));
+    }
+
+    /**
+     * ETag of the active lead list
+     * @param fields The fields parameter of the request, since it changes the representation
+     */
+    public String getLeadsETag(String fields) {
+        return ETags.ofCollection(leadRepository.findActiveCollectionVersion(), fields);
+    }
+
     public LeadDTO getLeadDetailsById(Long id) {
         return leadRepository.getLeadDetailsById(id);
     } 
 
-    public List<Lead> findByEmployeeId(Long employeeId) {
-        return leadRepository.findByEmployeeId(employeeId);
+    public List<LeadDTO> findByEmployeeId(Long employeeId) {
+        return leadRepository.getLeadDetailsByEmployeeId(employeeId);
     }
 
     public LeadDTO updateLeadDetails(Long id, LeadDTO leadDetails) {
+        return updateLeadDetails(id, leadDetails, null);
+    }
+
+    /**
+     * Update a lead only if it still matches the ETag the client last read
+     * @param ifMatch If-Match header, or null for an unconditional update
+     */
+    public LeadDTO updateLeadDetails(Long id, LeadDTO leadDetails, String ifMatch) {
         System.out.println(leadDetails);
         var leadOption = leadRepository.findById(id);
 
         if (leadOption.isPresent()) {
             var lead = leadOption.get();
+            String current = ETags.of(id, ETags.versions(lead.getVersion(), lead.getCustomer().getVersion()));
+            if (!ETags.matches(ifMatch, current)) {
+                throw new PreconditionFailedException("Lead " + id + " was modified since it was read");
+            }
             lead.setRequirement(leadDetails.getRequirement());
             lead.setSource(Lead.Source.valueOf(leadDetails.getSource().toUpperCase()));
             lead.setProbability(leadDetails.getConversionProbability());
             lead.setExpectedRevenue(leadDetails.getExpectedRevenue()); 
+            lead.setExpectedCloseDate(leadDetails.getExpectedCloseDate());
 
-            var employeeOption = employeeRepository.findByName(leadDetails.getAssignedTo().trim());
-            if (employeeOption.isPresent()) {
-                lead.setEmployee(employeeOption.get());
-                leadDetails.setAssignedTo(employeeOption.get().getName());
+            var employee = identityResolver.employeeByName(leadDetails.getAssignedTo().trim());
+            if (employee.isPresent()) {
+                lead.setEmployee(employeeRepository.getReferenceById(employee.get().id()));
+                leadDetails.setAssignedTo(employee.get().value());
             } else {
                 throw new RuntimeException("Employee not found");
             }
 
+            // The customer's fields are overwritten below, so it is loaded in full (usually already
+            // in the persistence context as the lead's current customer)
             var customer = new Customer();
-            var customerOption = customerRepository.findByName(leadDetails.getName());
+            var customerOption = identityResolver.customerIdByName(leadDetails.getName())
+                    .flatMap(customerRepository::findById);
             if (customerOption.isPresent()) {
                 customer = customerOption.get();
             }
@@ -0,0 +1,166 @@
+package com.example.CREMIx.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.ReseedableState;
+import com.example.CREMIx.model.Ticket;
+
+/**
+ * Open tickets (NEW, IN_PROGRESS or URGENT) per assigned employee, for ticket dispatch limits and
+ * lead routing. Counted once from the database and then kept current from committed ticket changes:
+ * the assignee of every open ticket is remembered, so a change only moves one count from the old
+ * assignee to the new one. A periodic reseed corrects anything written behind JPA's back.
+ */
+@Service
+public class OpenTicketCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenTicketCounter.class);
+
+    private static final String OPEN_TICKETS = """
+            SELECT id, employee_id FROM ticket
+            WHERE status IN ('NEW', 'IN_PROGRESS', 'URGENT') AND employee_id IS NOT NULL
+            """;
+
+    /**
+     * A ticket's assignee while it is open, or null once it is closed or unassigned
+     */
+    private record Change(long ticketId, Long assignee) {
+    }
+
+    /**
+     * Counters plus the assignee of every open ticket, swapped as a whole on reseed
+     */
+    private static final class Counts {
+        private final Map<Long, Long> assignees = new ConcurrentHashMap<>();
+        private final Map<Long, AtomicInteger> open = new ConcurrentHashMap<>();
+
+        void track(Change change) {
+            Long previous = change.assignee() == null ? assignees.remove(change.ticketId())
+                    : assignees.put(change.ticketId(), change.assignee());
+            if (Objects.equals(previous, change.assignee())) {
+                return;
+            }
+            if (previous != null) {
+                open.computeIfAbsent(previous, id -> new AtomicInteger()).decrementAndGet();
+            }
+            if (change.assignee() != null) {
+                open.computeIfAbsent(change.assignee(), id -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReseedableState<Counts, Change> counts = new ReseedableState<>(new Counts(), Counts::track);
+
+    private final AtomicBoolean reseedQueued = new AtomicBoolean();
+    private final ExecutorService reseeder = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("open-ticket-reseed").daemon(true).factory());
+
+    public OpenTicketCounter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reseed();
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.open-count.reseed-interval-ms:600000}",
+            initialDelayString = "${tickets.open-count.reseed-interval-ms:600000}")
+    public void scheduledReseed() {
+        reseed();
+    }
+
+    /**
+     * Open tickets currently assigned to an employee
+     */
+    public int get(Long employeeId) {
+        AtomicInteger open = counts.get().open.get(employeeId);
+        return open != null ? open.get() : 0;
+    }
+
+    /**
+     * Open tickets per employee id, leaving out employees with none
+     */
+    public Map<Long, Integer> getAll() {
+        Map<Long, Integer> all = new HashMap<>();
+        counts.get().open.forEach((id, open) -> {
+            if (open.get() > 0) {
+                all.put(id, open.get());
+            }
+        });
+        return all;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isFor(Ticket.class)) {
+            return;
+        }
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            // Published on the thread that made the bulk write, often a request thread
+            scheduleReseed();
+            return;
+        }
+        Ticket ticket = (Ticket) event.getEntity();
+        if (ticket.getId() == null) {
+            return;
+        }
+        boolean open = event.getAction() != EntityChangeEvent.Action.DELETED
+                && ticket.getStatus() != Ticket.TicketStatus.RESOLVED
+                && ticket.getStatus() != Ticket.TicketStatus.CLOSED;
+        counts.apply(new Change(ticket.getId(),
+                open && ticket.getEmployee() != null ? ticket.getEmployee().getId() : null));
+    }
+
+    private void scheduleReseed() {
+        if (reseedQueued.compareAndSet(false, true)) {
+            reseeder.execute(() -> {
+                reseedQueued.set(false);
+                reseed();
+            });
+        }
+    }
+
+    /**
+     * Count open tickets from the database into fresh counters and swap them in
+     */
+    private void reseed() {
+        Counts fresh;
+        try {
+            fresh = counts.reseed(() -> {
+                Counts loaded = new Counts();
+                jdbcTemplate.query(OPEN_TICKETS, rs -> {
+                    loaded.track(new Change(rs.getLong(1), rs.getLong(2)));
+                });
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to count open tickets", e);
+            return;
+        }
+        if (fresh == null) {
+            return;
+        }
+        logger.info("Open ticket counters seeded: {} open assigned tickets", fresh.assignees.size());
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.CREMIx.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.CREMIx.dto.OpportunityBoardDTO;
+import com.example.CREMIx.misc.ETags;
+import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.repository.OpportunityRepository;
+
+/**
+ * Opportunity board: every stage column with its count and first cards from one windowed query,
+ * and further cards per column through keyset cursors.
+ */
+@Service
+public class OpportunityBoardService {
+
+    public static final int MAX_CARDS = 100;
+
+    public enum Sort {
+        // Highest expected revenue times probability first
+        VALUE("l.expected_revenue * l.probability / 100 DESC, o.id DESC",
+                "(l.expected_revenue * l.probability / 100 < :after OR (l.expected_revenue * l.probability / 100 = :after AND o.id < :afterId))"),
+        // Newest first
+        RECENT("o.created_at DESC, o.id DESC",
+                "(o.created_at < :after OR (o.created_at = :after AND o.id < :afterId))");
+
+        private final String orderBy;
+        private final String after;
+
+        Sort(String orderBy, String after) {
+            this.orderBy = orderBy;
+            this.after = after;
+        }
+    }
+
+    private static final String CARD_COLUMNS = """
+            o.id, o.stage, c.id AS customer_id, c.name AS customer_name, l.requirement, e.name AS assigned_to,
+            l.expected_revenue, l.probability, l.expected_revenue * l.probability / 100 AS weighted_value, o.created_at
+            """;
+
+    private static final String CARD_SOURCE = """
+            FROM opportunity o
+            JOIN leads l ON o.lead_id = l.id
+            JOIN customer c ON l.customer_id = c.id
+            LEFT JOIN employee e ON o.employee_id = e.id
+            WHERE o.status = 'ACTIVE'
+            """;
+
+    // Rank and count within each stage in one pass, keep the first cards of every stage
+    private static final String BOARD = """
+            SELECT * FROM (
+                SELECT %s,
+                       ROW_NUMBER() OVER (PARTITION BY o.stage ORDER BY %s) AS position,
+                       COUNT(*) OVER (PARTITION BY o.stage) AS stage_count
+                %s
+            ) ranked
+            WHERE position <= :limit
+            ORDER BY stage, position
+            """;
+
+    private static final String COLUMN_PAGE = """
+            SELECT %s
+            %s
+            AND o.stage = :stage AND %s
+            ORDER BY %s
+            LIMIT :limit
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    /**
+     * ETag of the board; changes with any active opportunity, its lead or its customer
+     */
+    public String getBoardETag(Sort sort, int perStage) {
+        return ETags.ofCollection(opportunityRepository.findActiveCollectionVersion(), "board:" + sort + ":" + perStage);
+    }
+
+    /**
+     * @param perStage Cards per column, at most MAX_CARDS
+     */
+    public OpportunityBoardDTO getBoard(Sort sort, int perStage) {
+        int limit = checkLimit(perStage);
+        Map<Opportunity.Stage, OpportunityBoardDTO.Column> columns = new EnumMap<>(Opportunity.Stage.class);
+        for (Opportunity.Stage stage : Opportunity.Stage.values()) {
+            OpportunityBoardDTO.Column column = new OpportunityBoardDTO.Column();
+            column.setStage(stage);
+            columns.put(stage, column);
+        }
+        String sql = BOARD.formatted(CARD_COLUMNS, sort.orderBy, CARD_SOURCE);
+        jdbcTemplate.query(sql, Map.of("limit", limit), rs -> {
+            OpportunityBoardDTO.Card card = card(rs);
+            OpportunityBoardDTO.Column column = columns.get(card.getStage());
+            column.setCount(rs.getLong("stage_count"));
+            column.getCards().add(card);
+        });
+        OpportunityBoardDTO board = new OpportunityBoardDTO();
+        board.setSort(sort.name());
+        for (OpportunityBoardDTO.Column column : columns.values()) {
+            if (column.getCount() > column.getCards().size()) {
+                column.setNextCursor(cursor(sort, column.getCards().get(column.getCards().size() - 1)));
+            }
+            board.getColumns().add(column);
+        }
+        return board;
+    }
+
+    /**
+     * The next cards of one column
+     * @param cursor nextCursor of the previous page, or null for the first page
+     */
+    public OpportunityBoardDTO.Column getColumn(Opportunity.Stage stage, Sort sort, String cursor, int limit) {
+        int pageSize = checkLimit(limit);
+        Map<String, Object> params = new HashMap<>();
+        params.put("stage", stage.name());
+        // One extra row tells whether there is another page
+        params.put("limit", pageSize + 1);
+        String after = "1 = 1";
+        if (cursor != null) {
+            after = sort.after;
+            decodeCursor(sort, cursor, params);
+        }
+        String sql = COLUMN_PAGE.formatted(CARD_COLUMNS, CARD_SOURCE, after, sort.orderBy);
+        List<OpportunityBoardDTO.Card> cards = jdbcTemplate.query(sql, params, (rs, rowNum) -> card(rs));
+
+        OpportunityBoardDTO.Column column = new OpportunityBoardDTO.Column();
+        column.setStage(stage);
+        column.setCount(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM opportunity WHERE status = 'ACTIVE' AND stage = :stage", params, Long.class));
+        if (cards.size() > pageSize) {
+            cards = cards.subList(0, pageSize);
+            column.setNextCursor(cursor(sort, cards.get(pageSize - 1)));
+        }
+        column.setCards(cards);
+        return column;
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_CARDS) {
+            throw new IllegalArgumentException("Cards per column must be between 1 and " + MAX_CARDS);
+        }
+        return limit;
+    }
+
+    private static OpportunityBoardDTO.Card card(ResultSet rs) throws SQLException {
+        return new OpportunityBoardDTO.Card(
+                rs.getLong("id"),
+                Opportunity.Stage.valueOf(rs.getString("stage")),
+                rs.getLong("customer_id"),
+                rs.getString("customer_name"),
+                rs.getString("requirement"),
+                rs.getString("assigned_to"),
+                rs.getObject("expected_revenue", Double.class),
+                rs.getObject("probability", Integer.class),
+                rs.getObject("weighted_value", Double.class),
+                rs.getObject("created_at", LocalDateTime.class));
+    }
+
+    /**
+     * Opaque cursor holding the sort key and id of the last card
+     */
+    private static String cursor(Sort sort, OpportunityBoardDTO.Card last) {
+        Object key = sort == Sort.VALUE ? last.getWeightedValue() : last.getCreatedAt();
+        String raw = sort.name() + "|" + key + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void decodeCursor(Sort sort, String cursor, Map<String, Object> params) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("Cursor does not belong to sort " + sort);
+            }
+            params.put("after", sort == Sort.VALUE ? Double.valueOf(parts[1]) : LocalDateTime.parse(parts[1]));
+            params.put("afterId", Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
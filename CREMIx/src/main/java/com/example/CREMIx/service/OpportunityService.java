@@ -1,17 +1,22 @@
 package com.example.CREMIx.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.CREMIx.dto.OpportunityDTO;
 import com.example.CREMIx.misc.ActivityStatus;
-import com.example.CREMIx.model.Customer;
-import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.misc.ETags;
+import com.example.CREMIx.misc.OptimisticRetry;
+import com.example.CREMIx.misc.PreconditionFailedException;
 import com.example.CREMIx.model.Lead;
 import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.model.OpportunityStageTransition;
 import com.example.CREMIx.model.Quotation;
 import com.example.CREMIx.repository.CustomerRepository;
 import com.example.CREMIx.repository.EmployeeRepository;
@@ -45,13 +50,22 @@ public class OpportunityService {
     @Autowired
     private InvoiceRepository invoiceRepository;
 
+    @Autowired
+    private IdentityResolver identityResolver;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
     /**
      * Get all active opportunities
      * @return List of OpportunityDTOs
      */
     public List<OpportunityDTO> getAllActiveOpportunities() {
         logger.info("Fetching all active opportunities");
-        return opportunityRepository.findAllActiveOpportunityDTOs();
+        return toDTOs(opportunityRepository.findByStatus(ActivityStatus.ACTIVE));
     }
     
     /**
@@ -60,9 +74,25 @@ public class OpportunityService {
      */
     public List<OpportunityDTO> getDeletedOpportunities() {
         logger.info("Fetching all deleted opportunities");
-        return opportunityRepository.findAllDeletedOpportunityDTOs();
+        return toDTOs(opportunityRepository.findByStatus(ActivityStatus.DELETED));
     }
     
+    /**
+     * ETag of the active opportunity list
+     */
+    public String getOpportunitiesETag() {
+        return ETags.ofCollection(opportunityRepository.findActiveCollectionVersion(), null);
+    }
+
+    /**
+     * ETag of an opportunity, covering the lead and customer details OpportunityDTO embeds
+     * @param id Opportunity ID
+     * @return The ETag, or empty if the opportunity does not exist
+     */
+    public Optional<String> getOpportunityETag(Long id) {
+        return opportunityRepository.findVersionTagById(id).map(tag -> ETags.of(id, tag));
+    }
+
     /**
      * Get opportunity by ID
      * @param id Opportunity ID
@@ -71,7 +101,7 @@ public class OpportunityService {
     public OpportunityDTO getOpportunityById(Long id) {
         logger.info("Fetching opportunity with ID: {}", id);
         System.out.println("\n\nOpportunity ID: " + id + "\n\n");
-        return opportunityRepository.findById(id)
+        return opportunityRepository.findDetailById(id)
                 .map(OpportunityDTO::new)
                 .orElseThrow(() -> new RuntimeException("Opportunity not found with ID: " + id));
     }
@@ -83,7 +113,7 @@ public class OpportunityService {
      */
     public List<OpportunityDTO> getOpportunitiesByStage(Opportunity.Stage stage) {
         logger.info("Fetching opportunities with stage: {}", stage);
-        return opportunityRepository.findActiveOpportunityDTOsByStage(stage.name());
+        return toDTOs(opportunityRepository.findByStageAndStatus(stage, ActivityStatus.ACTIVE));
     }
 
 
@@ -94,7 +124,7 @@ public class OpportunityService {
      */
     public List<OpportunityDTO> getOpportunitiesByEmployeeId(Long employeeId) {
         logger.info("Fetching opportunities for employee with ID: {}", employeeId);
-        return opportunityRepository.findActiveOpportunityDTOsByEmployeeId(employeeId);
+        return toDTOs(opportunityRepository.findByEmployeeId(employeeId));
     }
     
     /**
@@ -108,6 +138,7 @@ public class OpportunityService {
         
         Opportunity opportunity = new Opportunity();
         opportunity.setStage(opportunityDTO.getStage() != null ? opportunityDTO.getStage() : Opportunity.Stage.NEW);
+        opportunity.setStageChangedAt(LocalDateTime.now());
         opportunity.setStatus(ActivityStatus.ACTIVE);
         
         // Set lead
@@ -125,24 +156,25 @@ public class OpportunityService {
         
         // Set employee
         if (opportunityDTO.getLead().getAssignedTo() != null) {
-            Employee employee = employeeRepository.findByName(opportunityDTO.getLead().getAssignedTo())
+            Long employeeId = identityResolver.employeeIdByName(opportunityDTO.getLead().getAssignedTo())
                     .orElseThrow(() -> new RuntimeException("Employee not found with ID: " + opportunityDTO.getLead().getName()));
-            opportunity.setEmployee(employee);
+            opportunity.setEmployee(employeeRepository.getReferenceById(employeeId));
         } else {
             throw new RuntimeException("Assigned employee is required");
         }
         
         // Set customer
         if (opportunityDTO.getLead().getName() != null) {
-            Customer customer = customerRepository.findByName(opportunityDTO.getLead().getName())
+            Long customerId = identityResolver.customerIdByName(opportunityDTO.getLead().getName())
                     .orElseThrow(() -> new RuntimeException("Customer not found with ID: " + opportunityDTO.getLead().getName()));
-            opportunity.setCustomer(customer);
+            opportunity.setCustomer(customerRepository.getReferenceById(customerId));
         } else {
             throw new RuntimeException("Customer is required");
         }
         
         // Save opportunity
         opportunity = opportunityRepository.save(opportunity);
+        recordCreation(opportunity);
         logger.info("Created opportunity with ID: {}", opportunity.getId());
         
         return new OpportunityDTO(opportunity);
@@ -162,6 +194,7 @@ public class OpportunityService {
         
         Opportunity opportunity = new Opportunity();
         opportunity.setStage(Opportunity.Stage.NEW);
+        opportunity.setStageChangedAt(LocalDateTime.now());
         opportunity.setStatus(ActivityStatus.ACTIVE);
         opportunity.setLead(lead);
 
@@ -174,6 +207,7 @@ public class OpportunityService {
         
         // Save opportunity
         opportunity = opportunityRepository.save(opportunity);
+        recordCreation(opportunity);
         logger.info("Created opportunity from lead with ID: {}", leadId);
         
         return new OpportunityDTO(opportunity);
@@ -187,14 +221,29 @@ public class OpportunityService {
      */
     @Transactional
     public OpportunityDTO updateOpportunity(Long id, OpportunityDTO opportunityDTO) {
+        return updateOpportunity(id, opportunityDTO, null);
+    }
+
+    /**
+     * Update an opportunity only if it still matches the ETag the client last read
+     * @param id Opportunity ID
+     * @param opportunityDTO DTO with updated data
+     * @param ifMatch If-Match header, or null for an unconditional update
+     * @return Updated OpportunityDTO
+     */
+    @Transactional
+    public OpportunityDTO updateOpportunity(Long id, OpportunityDTO opportunityDTO, String ifMatch) {
         logger.info("Updating opportunity with ID: {}", id);
         
         Opportunity opportunity = opportunityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Opportunity not found with ID: " + id));
+        if (!ETags.matches(ifMatch, currentETag(opportunity))) {
+            throw new PreconditionFailedException("Opportunity " + id + " was modified since it was read");
+        }
         
         // Update stage if provided
         if (opportunityDTO.getStage() != null) {
-            opportunity.setStage(opportunityDTO.getStage());
+            changeStage(opportunity, opportunityDTO.getStage());
         }
         
         // Update lead if provided
@@ -210,18 +259,18 @@ public class OpportunityService {
         
         // Set employee
         if (opportunityDTO.getLead().getAssignedTo() != null) {
-            Employee employee = employeeRepository.findByName(opportunityDTO.getLead().getAssignedTo())
+            Long employeeId = identityResolver.employeeIdByName(opportunityDTO.getLead().getAssignedTo())
                     .orElseThrow(() -> new RuntimeException("Employee not found with ID: " + opportunityDTO.getLead().getName()));
-            opportunity.setEmployee(employee);
+            opportunity.setEmployee(employeeRepository.getReferenceById(employeeId));
         } else {
             throw new RuntimeException("Assigned employee is required");
         }
         
         // Set customer
         if (opportunityDTO.getLead().getName() != null) {
-            Customer customer = customerRepository.findByName(opportunityDTO.getLead().getName())
+            Long customerId = identityResolver.customerIdByName(opportunityDTO.getLead().getName())
                     .orElseThrow(() -> new RuntimeException("Customer not found with ID: " + opportunityDTO.getLead().getName()));
-            opportunity.setCustomer(customer);
+            opportunity.setCustomer(customerRepository.getReferenceById(customerId));
         } else {
             throw new RuntimeException("Customer is required");
         }
@@ -301,18 +350,65 @@ public class OpportunityService {
      * @param stage New stage
      * @return Updated OpportunityDTO
      */
-    @Transactional
     public OpportunityDTO updateOpportunityStage(Long id, Opportunity.Stage stage) {
         logger.info("Updating opportunity stage to {} for opportunity ID: {}", stage, id);
         
-        Opportunity opportunity = opportunityRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Opportunity not found with ID: " + id));
-        
-        opportunity.setStage(stage);
-        opportunity = opportunityRepository.save(opportunity);
+        OpportunityDTO updated = optimisticRetry.run("Update stage of opportunity " + id, () -> {
+            Opportunity opportunity = opportunityRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Opportunity not found with ID: " + id));
+            
+            // Already in the stage (e.g. a concurrent request got there first) is a no-op
+            changeStage(opportunity, stage);
+            return new OpportunityDTO(opportunityRepository.saveAndFlush(opportunity));
+        });
         
         logger.info("Updated opportunity stage to {} for opportunity ID: {}", stage, id);
         
-        return new OpportunityDTO(opportunity);
+        return updated;
+    }
+
+    /**
+     * Move an opportunity to a stage and log the transition for funnel analytics
+     */
+    private void changeStage(Opportunity opportunity, Opportunity.Stage stage) {
+        if (opportunity.getStage() == stage) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        OpportunityStageTransition transition = transition(opportunity, stage, now);
+        transition.setFromStage(opportunity.getStage());
+        transition.setEnteredAt(opportunity.getStageChangedAt() != null
+                ? opportunity.getStageChangedAt() : opportunity.getCreatedAt());
+        opportunity.setStage(stage);
+        opportunity.setStageChangedAt(now);
+        eventPublisher.publishEvent(transition);
+    }
+
+    private void recordCreation(Opportunity opportunity) {
+        eventPublisher.publishEvent(transition(opportunity, opportunity.getStage(), opportunity.getStageChangedAt()));
+    }
+
+    // Picked up by FunnelAnalyticsService once the transaction commits
+    private static OpportunityStageTransition transition(Opportunity opportunity, Opportunity.Stage stage,
+            LocalDateTime changedAt) {
+        OpportunityStageTransition transition = new OpportunityStageTransition();
+        transition.setOpportunityId(opportunity.getId());
+        transition.setEmployeeId(opportunity.getEmployee() != null ? opportunity.getEmployee().getId() : null);
+        transition.setToStage(stage);
+        transition.setChangedAt(changedAt);
+        transition.setOpenedAt(opportunity.getCreatedAt());
+        return transition;
+    }
+
+    private static List<OpportunityDTO> toDTOs(List<Opportunity> opportunities) {
+        return opportunities.stream().map(OpportunityDTO::new).toList();
+    }
+
+    // Same version order as OpportunityRepository.findVersionTagById
+    private String currentETag(Opportunity opportunity) {
+        Lead lead = opportunity.getLead();
+        long leadVersion = lead != null ? lead.getVersion() : 0;
+        long customerVersion = lead != null && lead.getCustomer() != null ? lead.getCustomer().getVersion() : 0;
+        return ETags.of(opportunity.getId(), ETags.versions(opportunity.getVersion(), leadVersion, customerVersion));
     }
 }
@@ -0,0 +1,221 @@
+package com.example.CREMIx.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.ReseedableState;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Ticket;
+
+/**
+ * Tickets in queue order: by rank group, then oldest first. Each ticket waits in one lane, and the
+ * owner decides its rank and lane; a rank below zero keeps it out of the queue.
+ * The queue holds only the ordering keys. It is loaded by one query selecting
+ * id, status, priority, skill, created_at and employee_id, and then kept current from committed
+ * ticket changes.
+ */
+final class OrderedTicketQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderedTicketQueue.class);
+
+    record Entry(long id, int rank, LocalDateTime createdAt, String lane) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::rank)
+            .thenComparing(Entry::createdAt)
+            .thenComparingLong(Entry::id);
+
+    // Sorts before every entry, for reading the head of a lane that may be emptied concurrently
+    private static final Entry MIN = new Entry(Long.MIN_VALUE, Integer.MIN_VALUE, LocalDateTime.MIN, "");
+
+    /**
+     * Ordered entries per lane plus the current entry of every queued ticket, swapped as a whole on reseed
+     */
+    private static final class Lanes {
+        private final Map<String, ConcurrentSkipListSet<Entry>> byLane = new ConcurrentHashMap<>();
+        private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+
+        private ConcurrentSkipListSet<Entry> lane(String lane) {
+            return byLane.computeIfAbsent(lane, l -> new ConcurrentSkipListSet<>(ORDER));
+        }
+
+        // Remove and re-add under one lock so a ticket is never queued twice
+        synchronized void put(long id, Entry entry) {
+            Entry previous = entry != null ? byId.put(id, entry) : byId.remove(id);
+            if (previous != null) {
+                lane(previous.lane()).remove(previous);
+            }
+            if (entry != null) {
+                lane(entry.lane()).add(entry);
+            }
+        }
+    }
+
+    private final String name;
+    private final JdbcTemplate jdbcTemplate;
+    private final String query;
+    private final ToIntFunction<Ticket> rank;
+    private final Function<Ticket, String> lane;
+
+    private final ReseedableState<Lanes, Ticket> lanes;
+
+    /**
+     * @param name What the queue is called in log messages
+     * @param query Candidate tickets for a reseed, in the column order given above
+     */
+    OrderedTicketQueue(String name, JdbcTemplate jdbcTemplate, String query, ToIntFunction<Ticket> rank,
+            Function<Ticket, String> lane) {
+        this.name = name;
+        this.jdbcTemplate = jdbcTemplate;
+        this.query = query;
+        this.rank = rank;
+        this.lane = lane;
+        this.lanes = new ReseedableState<>(new Lanes(), this::put);
+    }
+
+    /**
+     * Follow a committed change; a bulk write to tickets reloads the queue
+     */
+    void onEntityChange(EntityChangeEvent event) {
+        if (!event.isFor(Ticket.class)) {
+            return;
+        }
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            reseed();
+            return;
+        }
+        Ticket ticket = (Ticket) event.getEntity();
+        if (ticket.getId() == null) {
+            return;
+        }
+        boolean deleted = event.getAction() == EntityChangeEvent.Action.DELETED;
+        // A copy of the fields that matter, a deleted ticket as a status that is never queued
+        Ticket change = new Ticket();
+        change.setId(ticket.getId());
+        change.setStatus(deleted ? Ticket.TicketStatus.CLOSED : ticket.getStatus());
+        change.setPriority(ticket.getPriority());
+        change.setSkill(ticket.getSkill());
+        change.setCreatedAt(ticket.getCreatedAt());
+        change.setEmployee(ticket.getEmployee());
+        lanes.apply(change);
+    }
+
+    /**
+     * Best queued ticket among the given lanes, or null
+     */
+    Entry head(Set<String> among) {
+        Map<String, ConcurrentSkipListSet<Entry>> byLane = lanes.get().byLane;
+        Entry best = null;
+        for (String key : among) {
+            ConcurrentSkipListSet<Entry> queued = byLane.get(key);
+            Entry first = queued != null ? queued.ceiling(MIN) : null;
+            if (first != null && (best == null || ORDER.compare(first, best) < 0)) {
+                best = first;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Take an entry off the queue; true for exactly one caller
+     */
+    boolean claim(Entry entry) {
+        Lanes current = lanes.get();
+        if (!current.byId.remove(entry.id(), entry)) {
+            return false;
+        }
+        current.lane(entry.lane()).remove(entry);
+        return true;
+    }
+
+    /**
+     * Put back an entry claimed by a caller that could not use it
+     */
+    void requeue(Entry entry) {
+        lanes.get().put(entry.id(), entry);
+    }
+
+    /**
+     * Ids of one page of a lane, in queue order
+     */
+    List<Long> ids(String lane, long skip, int limit) {
+        ConcurrentSkipListSet<Entry> queued = lanes.get().byLane.get(lane);
+        if (queued == null) {
+            return List.of();
+        }
+        return queued.stream()
+                .skip(skip)
+                .limit(limit)
+                .map(Entry::id)
+                .toList();
+    }
+
+    /**
+     * Tickets queued in all lanes
+     */
+    int size() {
+        return lanes.get().byId.size();
+    }
+
+    void reseed() {
+        Lanes fresh;
+        try {
+            fresh = lanes.reseed(() -> {
+                Lanes loaded = new Lanes();
+                jdbcTemplate.query(query, rs -> {
+                    put(loaded, ticket(rs));
+                });
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to load the {}", name, e);
+            return;
+        }
+        if (fresh == null) {
+            return;
+        }
+        logger.info("Loaded the {} with {} tickets", name, fresh.byId.size());
+    }
+
+    private void put(Lanes target, Ticket ticket) {
+        int position = rank.applyAsInt(ticket);
+        target.put(ticket.getId(), position < 0 ? null
+                : new Entry(ticket.getId(), position, createdAt(ticket.getCreatedAt()), lane.apply(ticket)));
+    }
+
+    private static Ticket ticket(ResultSet rs) throws SQLException {
+        Ticket ticket = new Ticket();
+        ticket.setId(rs.getLong(1));
+        ticket.setStatus(Ticket.TicketStatus.valueOf(rs.getString(2)));
+        ticket.setPriority(rs.getString(3) != null ? Ticket.TicketPriority.valueOf(rs.getString(3)) : null);
+        ticket.setSkill(rs.getString(4));
+        Timestamp created = rs.getTimestamp(5);
+        ticket.setCreatedAt(created != null ? created.toLocalDateTime() : null);
+        Long employeeId = rs.getObject(6, Long.class);
+        if (employeeId != null) {
+            Employee employee = new Employee();
+            employee.setId(employeeId);
+            ticket.setEmployee(employee);
+        }
+        return ticket;
+    }
+
+    private static LocalDateTime createdAt(LocalDateTime value) {
+        return value != null ? value : LocalDateTime.MIN;
+    }
+}
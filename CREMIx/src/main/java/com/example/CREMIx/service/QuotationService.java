@@ -1,5 +1,6 @@
 package com.example.CREMIx.service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -11,6 +12,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.example.CREMIx.dto.InvoiceDTO;
 import com.example.CREMIx.dto.QuotationDTO;
+import com.example.CREMIx.misc.ETags;
+import com.example.CREMIx.misc.OptimisticRetry;
+import com.example.CREMIx.misc.PreconditionFailedException;
 import com.example.CREMIx.model.Customer;
 import com.example.CREMIx.model.Product;
 import com.example.CREMIx.model.QItem;
@@ -20,6 +24,8 @@ import com.example.CREMIx.repository.OpportunityRepository;
 import com.example.CREMIx.repository.ProductRepository;
 import com.example.CREMIx.repository.QuotationRepository;
 
+import jakarta.persistence.EntityNotFoundException;
+
 @Service
 public class QuotationService {
 
@@ -41,10 +47,31 @@ public class QuotationService {
     @Autowired
     private InvoiceService invoiceService;
 
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
     public Optional<QuotationDTO> getQuotationByOpportunity(Long opportunityId) {
         return quotationRepository.findByOpportunityId(opportunityId);
     }
 
+    /**
+     * ETag of the quotation attached to an opportunity
+     * @param opportunityId The ID of the opportunity
+     * @return The ETag, or empty if the opportunity has no quotation
+     */
+    public Optional<String> getQuotationETagByOpportunity(Long opportunityId) {
+        return quotationRepository.findIdByOpportunityId(opportunityId)
+                .flatMap(id -> quotationRepository.findVersionTagById(id).map(tag -> ETags.of(id, tag)));
+    }
+
+    /**
+     * ETag of a quotation
+     * @return The ETag, or empty if the quotation does not exist
+     */
+    public Optional<String> getQuotationETag(Long id) {
+        return quotationRepository.findVersionTagById(id).map(tag -> ETags.of(id, tag));
+    }
+
     public QuotationDTO createQuotation(Long opportunityId, QuotationDTO quotationDTO) {
         Quotation quotation = new Quotation();
         quotation.setTitle(quotationDTO.getTitle());
@@ -162,9 +189,21 @@ public class QuotationService {
     }
 
     public QuotationDTO updateQuotation(Long id, QuotationDTO quotationDTO) {
+        return updateQuotation(id, quotationDTO, null);
+    }
+
+    /**
+     * Update a quotation only if it still matches the ETag the client last read
+     * 
+     * @param ifMatch If-Match header, or null for an unconditional update
+     */
+    public QuotationDTO updateQuotation(Long id, QuotationDTO quotationDTO, String ifMatch) {
         Optional<Quotation> optionalQuotation = quotationRepository.findById(id);
         if (optionalQuotation.isPresent()) {
             Quotation quotation = optionalQuotation.get();
+            if (!ETags.matches(ifMatch, ETags.of(id, ETags.versions(quotation.getVersion())))) {
+                throw new PreconditionFailedException("Quotation " + id + " was modified since it was read");
+            }
             
             // Check if quotation can be modified
             if (quotation.getStage() == Quotation.Stage.ACCEPTED || 
@@ -199,7 +238,7 @@ public class QuotationService {
                 }
                 
                 if (product == null) {
-                    throw new RuntimeException("Product not found: " + 
+                    throw new EntityNotFoundException("Product not found: " + 
                         (item.getProduct().getId() != null ? "ID " + item.getProduct().getId() : 
                          "Name " + item.getProduct().getName()));
                 }
@@ -212,11 +251,13 @@ public class QuotationService {
                 updatedItems.add(qItem);
             }
             quotation.setItems(updatedItems);
+            // Item changes alone don't dirty the quotation row, touch it so the version moves
+            quotation.setUpdatedAt(LocalDateTime.now());
 
             var updatedQuotation = quotationRepository.save(quotation);
             return new QuotationDTO(updatedQuotation);
         } else {
-            throw new RuntimeException("Quotation not found");
+            throw new EntityNotFoundException("Quotation not found");
         }
     }
 
@@ -251,73 +292,72 @@ public class QuotationService {
     }
 
     /**
-     * Change the stage of a quotation from DRAFT to SENT
+     * Change the stage of a quotation from DRAFT to SENT. Sending an already sent quotation
+     * returns it unchanged without emailing the customer again.
      * @param id The ID of the quotation to send
      * @return The updated quotation DTO
-     * @throws IllegalStateException if the quotation is not in DRAFT stage
+     * @throws IllegalStateException if the quotation is past the SENT stage
      * @throws RuntimeException if the quotation is not found
      */
     public QuotationDTO sendQuotation(Long id) {
-        Optional<Quotation> optionalQuotation = quotationRepository.findById(id);
-        if (optionalQuotation.isPresent()) {
-            Quotation quotation = optionalQuotation.get();
-            
+        boolean[] sent = new boolean[1];
+        QuotationDTO sentQuotation = optimisticRetry.run("Send quotation " + id, () -> {
+            Quotation quotation = findQuotation(id);
+            sent[0] = false;
+            if (quotation.getStage() == Quotation.Stage.SENT) {
+                return new QuotationDTO(quotation);
+            }
             // Check if quotation is in DRAFT stage
             if (quotation.getStage() != Quotation.Stage.DRAFT) {
                 throw new IllegalStateException("Quotation must be in DRAFT stage to be sent");
             }
-            
-            // Update the stage to SENT
             quotation.setStage(Quotation.Stage.SENT);
-            
-            // Save the updated quotation
-            Quotation updatedQuotation = quotationRepository.save(quotation);
-            
-            // Send email notification to customer
+            sent[0] = true;
+            return new QuotationDTO(quotationRepository.saveAndFlush(quotation));
+        });
+
+        // Send email notification to customer, once the stage change has committed
+        if (sent[0]) {
             try {
-                var opportunity = opportunityRepository.findByQuotation(updatedQuotation)
+                Quotation quotation = findQuotation(id);
+                var opportunity = opportunityRepository.findByQuotation(quotation)
                     .orElseThrow(() -> new RuntimeException("No opportunity found for this quotation"));
                 
                 Customer customer = opportunity.getCustomer();
                 if (customer != null && customer.getEmail() != null) {
-                    QuotationDTO quotationDTO = new QuotationDTO(updatedQuotation);
-                    emailService.sendQuotationNotification(customer.getEmail(), customer.getName(), quotationDTO);
+                    emailService.sendQuotationNotification(customer.getEmail(), customer.getName(), sentQuotation);
                 }
             } catch (Exception e) {
                 // Log the error but don't disrupt the main flow
                 System.err.println("Failed to send quotation email notification: " + e.getMessage());
                 e.printStackTrace();
             }
-            
-            return new QuotationDTO(updatedQuotation);
-        } else {
-            throw new RuntimeException("Quotation not found with id: " + id);
         }
+        return sentQuotation;
     }
 
     /**
-     * Accept a quotation (change stage from SENT to ACCEPTED) and automatically generate invoice
+     * Accept a quotation (change stage from SENT to ACCEPTED) and automatically generate invoice.
+     * Accepting an already accepted quotation returns it without generating another invoice.
      * @param id The ID of the quotation to accept
      * @return The updated quotation DTO
      * @throws IllegalStateException if the quotation is not in SENT stage
      * @throws RuntimeException if the quotation is not found
      */
-    @Transactional
     public QuotationDTO acceptQuotation(Long id) {
-        Optional<Quotation> optionalQuotation = quotationRepository.findById(id);
-        if (optionalQuotation.isPresent()) {
-            Quotation quotation = optionalQuotation.get();
-            
+        return optimisticRetry.run("Accept quotation " + id, () -> {
+            Quotation quotation = findQuotation(id);
+            if (quotation.getStage() == Quotation.Stage.ACCEPTED || quotation.getStage() == Quotation.Stage.CONVERTED) {
+                return new QuotationDTO(quotation);
+            }
             // Check if quotation is in SENT stage
             if (quotation.getStage() != Quotation.Stage.SENT) {
                 throw new IllegalStateException("Quotation must be in SENT stage to be accepted");
             }
             
-            // Update the stage to ACCEPTED
+            // Update the stage to ACCEPTED; flushed now so a concurrent accept fails here, before any invoice exists
             quotation.setStage(Quotation.Stage.ACCEPTED);
-            
-            // Save the updated quotation
-            Quotation updatedQuotation = quotationRepository.save(quotation);
+            Quotation updatedQuotation = quotationRepository.saveAndFlush(quotation);
             
             // Automatically generate invoice from accepted quotation
             try {
@@ -335,36 +375,34 @@ public class QuotationService {
             }
             
             return new QuotationDTO(updatedQuotation);
-        } else {
-            throw new RuntimeException("Quotation not found with id: " + id);
-        }
+        });
     }
     
     /**
-     * Reject a quotation (change stage from SENT to REJECTED)
+     * Reject a quotation (change stage from SENT to REJECTED). Rejecting an already rejected
+     * quotation returns it unchanged.
      * @param id The ID of the quotation to reject
      * @return The updated quotation DTO
      * @throws IllegalStateException if the quotation is not in SENT stage
      * @throws RuntimeException if the quotation is not found
      */
     public QuotationDTO rejectQuotation(Long id) {
-        Optional<Quotation> optionalQuotation = quotationRepository.findById(id);
-        if (optionalQuotation.isPresent()) {
-            Quotation quotation = optionalQuotation.get();
-            
+        return optimisticRetry.run("Reject quotation " + id, () -> {
+            Quotation quotation = findQuotation(id);
+            if (quotation.getStage() == Quotation.Stage.REJECTED) {
+                return new QuotationDTO(quotation);
+            }
             // Check if quotation is in SENT stage
             if (quotation.getStage() != Quotation.Stage.SENT) {
                 throw new IllegalStateException("Quotation must be in SENT stage to be rejected");
             }
-            
-            // Update the stage to REJECTED
             quotation.setStage(Quotation.Stage.REJECTED);
-            
-            // Save the updated quotation
-            Quotation updatedQuotation = quotationRepository.save(quotation);
-            return new QuotationDTO(updatedQuotation);
-        } else {
-            throw new RuntimeException("Quotation not found with id: " + id);
-        }
+            return new QuotationDTO(quotationRepository.saveAndFlush(quotation));
+        });
+    }
+
+    private Quotation findQuotation(Long id) {
+        return quotationRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Quotation not found with id: " + id));
     }
 }
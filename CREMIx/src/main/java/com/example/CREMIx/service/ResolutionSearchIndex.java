@@ -0,0 +1,308 @@
+package com.example.CREMIx.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.SimilarTicketDTO;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.ReseedableState;
+import com.example.CREMIx.model.ResolvedTicket;
+import com.example.CREMIx.model.Ticket;
+
+/**
+ * In-memory BM25 index over resolved tickets, for suggesting past resolutions to a new ticket.
+ * A resolved ticket is one document of its title, problem description and resolution, the title
+ * counting double and the resolution half, since the query is a ticket's own subject and description.
+ * Loaded once at startup by streaming the table and then extended with every committed resolution;
+ * bulk deletes of tickets or resolutions reload it, replaying resolutions committed meanwhile.
+ */
+@Service
+public class ResolutionSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResolutionSearchIndex.class);
+
+    // Standard BM25 parameters: term frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double RESOLUTION_WEIGHT = 0.5;
+
+    // Words too common in tickets to say anything about similarity
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "cannot", "do", "does", "for", "from",
+            "has", "have", "i", "if", "in", "is", "it", "its", "me", "my", "no", "not", "of", "on", "or", "our",
+            "please", "so", "that", "the", "their", "there", "this", "to", "was", "we", "were", "when", "with", "you");
+
+    private static final String ALL_RESOLUTIONS = """
+            SELECT id, original_ticket_id, title, ticket_description, resolve_description
+            FROM resolved_ticket
+            """;
+
+    /**
+     * An indexed resolution: what a suggestion shows, plus its weighted term frequencies and length
+     */
+    private record Document(SimilarTicketDTO summary, Map<String, Double> terms, double length) {
+    }
+
+    /**
+     * Postings, documents and their total length; all access under the instance's lock
+     */
+    private static final class Index {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // term -> resolved ticket id -> weighted term frequency
+        private final Map<String, Map<Long, Double>> postings = new HashMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+        private double totalLength;
+
+        /**
+         * Index a resolution, replacing what was indexed under its id
+         */
+        void put(SimilarTicketDTO summary) {
+            Document document = document(summary);
+            lock.writeLock().lock();
+            try {
+                unindex(summary.getResolvedTicketId());
+                documents.put(summary.getResolvedTicketId(), document);
+                document.terms().forEach((term, tf) ->
+                        postings.computeIfAbsent(term, t -> new HashMap<>()).put(summary.getResolvedTicketId(), tf));
+                totalLength += document.length();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                unindex(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void unindex(Long id) {
+            Document old = documents.remove(id);
+            if (old == null) {
+                return;
+            }
+            for (String term : old.terms().keySet()) {
+                Map<Long, Double> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            totalLength -= old.length();
+        }
+
+        List<SimilarTicketDTO> search(List<String> tokens, Long excludeTicketId, int limit) {
+            lock.readLock().lock();
+            try {
+                int count = documents.size();
+                if (count == 0) {
+                    return List.of();
+                }
+                double averageLength = totalLength / count;
+                Map<Long, Double> scores = new HashMap<>();
+                for (String token : tokens) {
+                    Map<Long, Double> ids = postings.get(token);
+                    if (ids == null) {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (count - ids.size() + 0.5) / (ids.size() + 0.5));
+                    ids.forEach((id, tf) -> {
+                        double norm = K1 * (1 - B + B * documents.get(id).length() / averageLength);
+                        scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                    });
+                }
+
+                // Keep the best few in a min-heap instead of sorting every match
+                PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    if (excludeTicketId != null
+                            && excludeTicketId.equals(documents.get(entry.getKey()).summary().getOriginalTicketId())) {
+                        continue;
+                    }
+                    best.add(entry);
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+                List<SimilarTicketDTO> results = new ArrayList<>(best.size());
+                while (!best.isEmpty()) {
+                    Map.Entry<Long, Double> entry = best.poll();
+                    SimilarTicketDTO summary = documents.get(entry.getKey()).summary();
+                    results.add(0, new SimilarTicketDTO(summary.getResolvedTicketId(), summary.getOriginalTicketId(),
+                            summary.getTitle(), summary.getTicketDescription(), summary.getResolveDescription(),
+                            entry.getValue()));
+                }
+                return results;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return documents.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int terms() {
+            lock.readLock().lock();
+            try {
+                return postings.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final ReseedableState<Index, EntityChangeEvent> index =
+            new ReseedableState<>(new Index(), ResolutionSearchIndex::apply);
+
+    // Loads run one at a time on this thread; requests made while one is queued share it
+    private final AtomicBoolean loadQueued = new AtomicBoolean();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("resolution-search-load").daemon(true).factory());
+
+    public ResolutionSearchIndex(
+            @Qualifier(StreamingJdbcConfig.STREAMING_JDBC_TEMPLATE) JdbcTemplate streamingJdbcTemplate) {
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleLoad();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            // Resolutions may have been deleted with their tickets
+            if (event.isFor(ResolvedTicket.class) || event.isFor(Ticket.class)) {
+                scheduleLoad();
+            }
+            return;
+        }
+        if (event.isFor(ResolvedTicket.class)) {
+            index.apply(event);
+        }
+    }
+
+    /**
+     * Past resolutions most similar to a ticket's text
+     * @param excludeTicketId Ticket whose own resolution is left out, or null
+     * @param limit Maximum number of suggestions
+     * @return Suggestions, most similar first; empty when no term matches
+     */
+    public List<SimilarTicketDTO> findSimilar(String text, Long excludeTicketId, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(text)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return index.get().search(tokens, excludeTicketId, limit);
+    }
+
+    private void scheduleLoad() {
+        if (loadQueued.compareAndSet(false, true)) {
+            loader.execute(() -> {
+                loadQueued.set(false);
+                load();
+            });
+        }
+    }
+
+    /**
+     * Build the index from the database off to the side and swap it in
+     */
+    private void load() {
+        long start = System.currentTimeMillis();
+        Index fresh;
+        try {
+            fresh = index.reseed(() -> {
+                Index loaded = new Index();
+                streamingJdbcTemplate.query(ALL_RESOLUTIONS, rs -> {
+                    loaded.put(new SimilarTicketDTO(rs.getLong(1), rs.getObject(2, Long.class),
+                            rs.getString(3), rs.getString(4), rs.getString(5), 0));
+                });
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to load the resolution search index", e);
+            return;
+        }
+        if (fresh == null) {
+            return;
+        }
+        logger.info("Resolution search index loaded: {} resolved tickets, {} terms in {} ms",
+                fresh.size(), fresh.terms(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Patch an index with one committed change; re-applying a change the load already saw
+     * replaces the document with itself
+     */
+    private static void apply(Index index, EntityChangeEvent event) {
+        ResolvedTicket resolved = (ResolvedTicket) event.getEntity();
+        if (resolved.getId() == null) {
+            return;
+        }
+        if (event.getAction() == EntityChangeEvent.Action.DELETED) {
+            index.remove(resolved.getId());
+        } else {
+            index.put(new SimilarTicketDTO(resolved.getId(),
+                    resolved.getOriginalTicket() != null ? resolved.getOriginalTicket().getId() : null,
+                    resolved.getTitle(), resolved.getTicketDescription(), resolved.getResolveDescription(), 0));
+        }
+    }
+
+    private static Document document(SimilarTicketDTO summary) {
+        Map<String, Double> terms = new HashMap<>();
+        addTerms(terms, summary.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, summary.getTicketDescription(), DESCRIPTION_WEIGHT);
+        addTerms(terms, summary.getResolveDescription(), RESOLUTION_WEIGHT);
+        double length = terms.values().stream().mapToDouble(Double::doubleValue).sum();
+        return new Document(summary, terms, length);
+    }
+
+    private static void addTerms(Map<String, Double> terms, String text, double weight) {
+        tokenize(text).forEach(token -> terms.merge(token, weight, Double::sum));
+    }
+
+    private static List<String> tokenize(String text) {
+        return CustomerSearchIndex.tokenize(text).stream()
+                .filter(token -> token.length() > 1 && !STOP_WORDS.contains(token))
+                .toList();
+    }
+}
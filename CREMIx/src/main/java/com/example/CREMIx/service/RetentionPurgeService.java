@@ -0,0 +1,283 @@
+package com.example.CREMIx.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.CREMIx.dto.RetentionPurgeReportDTO;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.model.CallLog;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Invoice;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.model.Note;
+import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.model.QItem;
+import com.example.CREMIx.model.Quotation;
+import com.example.CREMIx.model.ResolvedTicket;
+import com.example.CREMIx.model.Ticket;
+
+/**
+ * Hard-deletes recycle-bin records (status DELETED) once they are older than the retention period.
+ * Opportunities go first, then leads, then customers, each in chunks that commit on their own so a
+ * run never holds long locks. Dependent rows are removed child first: notes, invoices, opportunities,
+ * quotation items, quotations, leads, tickets and call logs.
+ * A customer is purged only once nothing of theirs is still in use or within its retention period.
+ * The deletion time is taken from updated_at, which the soft delete sets. Records soft-deleted before
+ * the column existed have none; each run stamps them first, so their retention period starts then.
+ * Every entity type deleted is announced with a BULK change event, since the deletes bypass JPA.
+ */
+@Service
+public class RetentionPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionPurgeService.class);
+
+    private static final String DELETED_OPPORTUNITIES = """
+            SELECT id FROM opportunity
+            WHERE status = 'DELETED' AND updated_at < :cutoff
+            ORDER BY id LIMIT :limit
+            """;
+
+    // A lead still referenced by an opportunity stays until that opportunity is purged
+    private static final String DELETED_LEADS = """
+            SELECT l.id FROM leads l
+            WHERE l.status = 'DELETED' AND l.updated_at < :cutoff
+            AND NOT EXISTS (SELECT 1 FROM opportunity o WHERE o.lead_id = l.id)
+            ORDER BY l.id LIMIT :limit
+            """;
+
+    // Purging a customer takes everything of theirs, so a customer is kept while any lead or opportunity
+    // is outside the recycle bin or still within its retention period, any quotation changed within it,
+    // or any ticket or invoice is still open
+    private static final String DELETED_CUSTOMERS = """
+            SELECT c.id FROM customer c
+            WHERE c.status = 'DELETED' AND c.updated_at < :cutoff
+            AND NOT EXISTS (SELECT 1 FROM leads l WHERE l.customer_id = c.id
+                            AND (l.status <> 'DELETED' OR l.updated_at >= :cutoff))
+            AND NOT EXISTS (SELECT 1 FROM opportunity o LEFT JOIN leads ol ON o.lead_id = ol.id
+                            WHERE (o.customer_id = c.id OR ol.customer_id = c.id)
+                            AND (o.status <> 'DELETED' OR o.updated_at >= :cutoff))
+            AND NOT EXISTS (SELECT 1 FROM quotation q WHERE q.customer_id = c.id AND q.updated_at >= :cutoff)
+            AND NOT EXISTS (SELECT 1 FROM ticket t WHERE t.customer_id = c.id
+                            AND (t.status IS NULL OR t.status NOT IN ('RESOLVED', 'CLOSED')))
+            AND NOT EXISTS (SELECT 1 FROM invoice i WHERE i.customer_id = c.id
+                            AND (i.status IS NULL OR UPPER(i.status) NOT IN ('PAID', 'CANCELLED', 'CANCELED')))
+            ORDER BY c.id LIMIT :limit
+            """;
+
+    // Recycle-bin tables whose updated_at may predate the column
+    private static final List<String> SOFT_DELETED_TABLES = List.of("opportunity", "leads", "customer");
+
+    // Entity behind each table the purge deletes from, in the order the BULK events go out
+    private static final Map<String, Class<?>> ENTITIES = entities();
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${retention.deleted-days:30}")
+    private int retentionDays;
+
+    @Value("${retention.purge.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${retention.purge.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RetentionPurgeReportDTO lastReport;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("retention-purge").daemon(true).factory());
+
+    @Scheduled(cron = "${retention.purge.cron:0 30 3 * * *}")
+    public void scheduledPurge() {
+        if (enabled && running.compareAndSet(false, true)) {
+            executor.execute(this::purgeWhileRunning);
+        }
+    }
+
+    public Optional<RetentionPurgeReportDTO> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    /**
+     * Purge everything past the retention period now
+     * @return The report, or empty if a purge is already running
+     */
+    public Optional<RetentionPurgeReportDTO> purge() {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        return Optional.of(purgeWhileRunning());
+    }
+
+    /**
+     * The purge itself, once the caller has set running; clears it when done
+     */
+    private RetentionPurgeReportDTO purgeWhileRunning() {
+        RetentionPurgeReportDTO report = new RetentionPurgeReportDTO();
+        report.setStartedAt(LocalDateTime.now());
+        report.setCutoff(report.getStartedAt().minusDays(retentionDays));
+        try {
+            stampMissingDeletionTimes(report.getStartedAt());
+            purgeInChunks(DELETED_OPPORTUNITIES, report,
+                    (ids, counts) -> deleteOpportunities(ids, Set.of(), Set.of(), counts));
+            purgeInChunks(DELETED_LEADS, report, this::deleteLeads);
+            purgeInChunks(DELETED_CUSTOMERS, report, this::deleteCustomers);
+        } catch (RuntimeException e) {
+            logger.error("Recycle-bin purge failed", e);
+            report.setError(e.getMessage());
+        } finally {
+            report.setFinishedAt(LocalDateTime.now());
+            lastReport = report;
+            running.set(false);
+        }
+        // Written through JDBC, so in-memory indexes of every type touched have to reload
+        ENTITIES.forEach((table, type) -> {
+            if (report.getDeleted().containsKey(table)) {
+                eventPublisher.publishEvent(EntityChangeEvent.bulk(type));
+            }
+        });
+        logger.info("Recycle-bin purge of records deleted before {}: {} in {} chunks", report.getCutoff(),
+                report.getDeleted(), report.getChunks());
+        return report;
+    }
+
+    private void stampMissingDeletionTimes(LocalDateTime now) {
+        for (String table : SOFT_DELETED_TABLES) {
+            int rows = jdbcTemplate.update("UPDATE " + table + " SET updated_at = :now"
+                    + " WHERE status = 'DELETED' AND updated_at IS NULL", Map.of("now", now));
+            if (rows > 0) {
+                logger.info("Stamped {} {} rows deleted before deletion times were kept", rows, table);
+            }
+        }
+    }
+
+    private void purgeInChunks(String selectIds, RetentionPurgeReportDTO report,
+            BiConsumer<List<Long>, RetentionPurgeReportDTO> deleteChunk) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Map<String, Object> params = Map.of("cutoff", report.getCutoff(), "limit", chunkSize);
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(selectIds, params, Long.class);
+            if (ids.isEmpty()) {
+                return;
+            }
+            // Counted separately so a chunk that rolls back does not show up in the report
+            RetentionPurgeReportDTO counts = new RetentionPurgeReportDTO();
+            transaction.executeWithoutResult(status -> deleteChunk.accept(ids, counts));
+            counts.getDeleted().forEach((table, rows) -> report.getDeleted().merge(table, rows, Long::sum));
+            report.setChunks(report.getChunks() + 1);
+            if (ids.size() < chunkSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete opportunities with their quotations and invoices, plus any extra quotations and invoices given
+     */
+    private void deleteOpportunities(Collection<Long> opportunityIds, Collection<Long> extraQuotationIds,
+            Collection<Long> extraInvoiceIds, RetentionPurgeReportDTO report) {
+        Set<Long> quotationIds = new LinkedHashSet<>(extraQuotationIds);
+        quotationIds.addAll(select("SELECT quotation_id FROM opportunity WHERE id IN (:ids) AND quotation_id IS NOT NULL",
+                opportunityIds));
+        Set<Long> invoiceIds = new LinkedHashSet<>(extraInvoiceIds);
+        invoiceIds.addAll(select("SELECT id FROM invoice WHERE opportunity_id IN (:ids)", opportunityIds));
+        invoiceIds.addAll(select("SELECT id FROM invoice WHERE quotation_id IN (:ids)", quotationIds));
+
+        deleteNotes("OPPORTUNITY", opportunityIds, report);
+        deleteNotes("QUOTATION", quotationIds, report);
+        deleteNotes("INVOICE", invoiceIds, report);
+        delete(report, "invoice", "DELETE FROM invoice WHERE id IN (:ids)", invoiceIds);
+        delete(report, "opportunity", "DELETE FROM opportunity WHERE id IN (:ids)", opportunityIds);
+        delete(report, "qitem", "DELETE FROM qitem WHERE quotation_id IN (:ids)", quotationIds);
+        delete(report, "quotation", "DELETE FROM quotation WHERE id IN (:ids)", quotationIds);
+    }
+
+    private void deleteLeads(Collection<Long> leadIds, RetentionPurgeReportDTO report) {
+        deleteNotes("LEAD", leadIds, report);
+        delete(report, "leads", "DELETE FROM leads WHERE id IN (:ids)", leadIds);
+    }
+
+    private void deleteCustomers(Collection<Long> customerIds, RetentionPurgeReportDTO report) {
+        List<Long> opportunityIds = select("""
+                SELECT o.id FROM opportunity o JOIN leads l ON o.lead_id = l.id
+                WHERE o.customer_id IN (:ids) OR l.customer_id IN (:ids)
+                """, customerIds);
+        List<Long> quotationIds = select("SELECT id FROM quotation WHERE customer_id IN (:ids)", customerIds);
+        List<Long> invoiceIds = select("SELECT id FROM invoice WHERE customer_id IN (:ids)", customerIds);
+        deleteOpportunities(opportunityIds, quotationIds, invoiceIds, report);
+
+        deleteLeads(select("SELECT id FROM leads WHERE customer_id IN (:ids)", customerIds), report);
+
+        List<Long> ticketIds = select("SELECT id FROM ticket WHERE customer_id IN (:ids)", customerIds);
+        delete(report, "resolved_ticket", "DELETE FROM resolved_ticket WHERE original_ticket_id IN (:ids)", ticketIds);
+        delete(report, "ticket", "DELETE FROM ticket WHERE id IN (:ids)", ticketIds);
+        delete(report, "call_logs", "DELETE FROM call_logs WHERE customer_id IN (:ids)", customerIds);
+        deleteNotes("CUSTOMER", customerIds, report);
+        delete(report, "customer", "DELETE FROM customer WHERE id IN (:ids)", customerIds);
+    }
+
+    private void deleteNotes(String location, Collection<Long> ids, RetentionPurgeReportDTO report) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        report.add("note", jdbcTemplate.update("DELETE FROM note WHERE location = :location AND location_id IN (:ids)",
+                Map.of("location", location, "ids", ids)));
+    }
+
+    private void delete(RetentionPurgeReportDTO report, String table, String sql, Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            report.add(table, jdbcTemplate.update(sql, Map.of("ids", ids)));
+        }
+    }
+
+    private List<Long> select(String sql, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.queryForList(sql, Map.of("ids", ids), Long.class);
+    }
+
+    private static Map<String, Class<?>> entities() {
+        Map<String, Class<?>> entities = new LinkedHashMap<>();
+        entities.put("note", Note.class);
+        entities.put("invoice", Invoice.class);
+        entities.put("opportunity", Opportunity.class);
+        entities.put("qitem", QItem.class);
+        entities.put("quotation", Quotation.class);
+        entities.put("leads", Lead.class);
+        entities.put("resolved_ticket", ResolvedTicket.class);
+        entities.put("ticket", Ticket.class);
+        entities.put("call_logs", CallLog.class);
+        entities.put("customer", Customer.class);
+        return entities;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.CREMIx.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.config.StreamingJdbcConfig;
+import com.example.CREMIx.dto.DurationsDTO;
+import com.example.CREMIx.dto.TicketAnalyticsDTO;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.LogHistogram;
+import com.example.CREMIx.misc.ReseedableState;
+import com.example.CREMIx.model.ResolvedTicket;
+import com.example.CREMIx.model.Ticket;
+
+/**
+ * Time to resolve and first response percentiles for resolved tickets.
+ * Every resolution is recorded into small log-bucketed histograms keyed by resolution day and
+ * employee, and by resolution day and priority. A query over any range of days merges the
+ * histograms of those days instead of reading tickets, so its cost depends on the number of days
+ * and employees, not on the number of tickets. Rebuilt by streaming the resolutions once at
+ * startup, then extended with every committed resolution.
+ */
+@Service
+public class TicketAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketAnalyticsService.class);
+
+    private static final String ALL_RESOLUTIONS = """
+            SELECT rt.resolved_at, COALESCE(rt.employee_id, t.employee_id), t.priority, t.created_at, t.assigned_at
+            FROM resolved_ticket rt
+            JOIN ticket t ON rt.original_ticket_id = t.id
+            """;
+
+    /**
+     * One resolved ticket, as recorded
+     * @param firstResponseMs Null when the ticket has no assignment time
+     */
+    private record Resolution(LocalDate day, Long employeeId, Ticket.TicketPriority priority,
+            long resolutionMs, Long firstResponseMs) {
+    }
+
+    /**
+     * Both histograms of one cell
+     */
+    private static final class Times {
+        private final LogHistogram resolution = new LogHistogram();
+        private final LogHistogram firstResponse = new LogHistogram();
+
+        void record(Resolution resolved) {
+            resolution.record(resolved.resolutionMs());
+            if (resolved.firstResponseMs() != null) {
+                firstResponse.record(resolved.firstResponseMs());
+            }
+        }
+
+        void merge(Times other) {
+            resolution.merge(other.resolution);
+            firstResponse.merge(other.firstResponse);
+        }
+    }
+
+    /**
+     * Histogram cells per day; all access synchronized on the instance
+     */
+    private static final class Store {
+        // Employee id may be null for tickets resolved without one
+        private final NavigableMap<LocalDate, Map<Long, Times>> byEmployee = new TreeMap<>();
+        private final NavigableMap<LocalDate, Map<Ticket.TicketPriority, Times>> byPriority = new TreeMap<>();
+
+        synchronized void add(Resolution resolved) {
+            byEmployee.computeIfAbsent(resolved.day(), day -> new HashMap<>())
+                    .computeIfAbsent(resolved.employeeId(), id -> new Times())
+                    .record(resolved);
+            byPriority.computeIfAbsent(resolved.day(), day -> new EnumMap<>(Ticket.TicketPriority.class))
+                    .computeIfAbsent(resolved.priority(), priority -> new Times())
+                    .record(resolved);
+        }
+
+        synchronized TicketAnalyticsDTO query(LocalDate from, LocalDate to, Long employeeId,
+                Ticket.TicketPriority priority, Map<Long, String> employeeNames) {
+            Times total = new Times();
+            Map<Long, Times> employees = new HashMap<>();
+            Map<Ticket.TicketPriority, Times> priorities = new EnumMap<>(Ticket.TicketPriority.class);
+            TicketAnalyticsDTO analytics = new TicketAnalyticsDTO();
+
+            // Overall and daily figures come from whichever family the filter applies to
+            if (priority == null) {
+                for (Map.Entry<LocalDate, Map<Long, Times>> day : range(byEmployee, from, to).entrySet()) {
+                    Times daily = new Times();
+                    day.getValue().forEach((id, times) -> {
+                        if (employeeId == null || employeeId.equals(id)) {
+                            daily.merge(times);
+                            employees.computeIfAbsent(id, key -> new Times()).merge(times);
+                        }
+                    });
+                    addDay(analytics, day.getKey(), daily, total);
+                }
+            }
+            if (employeeId == null) {
+                boolean daysCounted = priority == null;
+                for (Map.Entry<LocalDate, Map<Ticket.TicketPriority, Times>> day : range(byPriority, from, to).entrySet()) {
+                    Times daily = new Times();
+                    day.getValue().forEach((key, times) -> {
+                        if (priority == null || priority == key) {
+                            daily.merge(times);
+                            priorities.computeIfAbsent(key, k -> new Times()).merge(times);
+                        }
+                    });
+                    if (!daysCounted) {
+                        addDay(analytics, day.getKey(), daily, total);
+                    }
+                }
+            }
+
+            analytics.setFrom(from);
+            analytics.setTo(to);
+            analytics.setEmployeeId(employeeId);
+            analytics.setPriority(priority);
+            analytics.setResolution(DurationsDTO.of(total.resolution));
+            analytics.setFirstResponse(DurationsDTO.of(total.firstResponse));
+            employees.forEach((id, times) -> {
+                TicketAnalyticsDTO.EmployeeTimes row = new TicketAnalyticsDTO.EmployeeTimes();
+                row.setEmployeeId(id);
+                row.setEmployeeName(id != null ? employeeNames.get(id) : null);
+                row.setResolution(DurationsDTO.of(times.resolution));
+                row.setFirstResponse(DurationsDTO.of(times.firstResponse));
+                analytics.getEmployees().add(row);
+            });
+            analytics.getEmployees().sort((a, b) -> Long.compare(b.getResolution().getCount(), a.getResolution().getCount()));
+            priorities.forEach((key, times) -> {
+                TicketAnalyticsDTO.PriorityTimes row = new TicketAnalyticsDTO.PriorityTimes();
+                row.setPriority(key);
+                row.setResolution(DurationsDTO.of(times.resolution));
+                row.setFirstResponse(DurationsDTO.of(times.firstResponse));
+                analytics.getPriorities().add(row);
+            });
+            return analytics;
+        }
+
+        private static void addDay(TicketAnalyticsDTO analytics, LocalDate day, Times daily, Times total) {
+            if (daily.resolution.getCount() == 0) {
+                return;
+            }
+            total.merge(daily);
+            TicketAnalyticsDTO.DayTimes row = new TicketAnalyticsDTO.DayTimes();
+            row.setDay(day);
+            row.setResolution(DurationsDTO.of(daily.resolution));
+            row.setFirstResponse(DurationsDTO.of(daily.firstResponse));
+            analytics.getDays().add(row);
+        }
+
+        private static <V> NavigableMap<LocalDate, V> range(NavigableMap<LocalDate, V> days, LocalDate from, LocalDate to) {
+            if (from != null && to != null) {
+                return days.subMap(from, true, to, true);
+            }
+            if (from != null) {
+                return days.tailMap(from, true);
+            }
+            return to != null ? days.headMap(to, true) : days;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final ReseedableState<Store, Resolution> store = new ReseedableState<>(new Store(), Store::add);
+
+    // Startup rebuilds stream the whole resolution table, so they do not hold up the application
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("ticket-analytics-rebuild").daemon(true).factory());
+
+    public TicketAnalyticsService(JdbcTemplate jdbcTemplate,
+            @Qualifier(StreamingJdbcConfig.STREAMING_JDBC_TEMPLATE) JdbcTemplate streamingJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = streamingJdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(this::rebuild);
+    }
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        long[] rows = new long[1];
+        Store fresh;
+        try {
+            fresh = store.reseed(() -> {
+                // Counts the last load only, when reseed loads again for a request made meanwhile
+                rows[0] = 0;
+                Store loaded = new Store();
+                streamingJdbcTemplate.query(ALL_RESOLUTIONS, rs -> {
+                    Resolution resolved = resolution(toLocalDateTime(rs.getTimestamp(1)), rs.getObject(2, Long.class),
+                            rs.getString(3) != null ? Ticket.TicketPriority.valueOf(rs.getString(3)) : null,
+                            toLocalDateTime(rs.getTimestamp(4)), toLocalDateTime(rs.getTimestamp(5)));
+                    if (resolved != null) {
+                        loaded.add(resolved);
+                        rows[0]++;
+                    }
+                });
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to rebuild ticket analytics", e);
+            return;
+        }
+        if (fresh == null) {
+            return;
+        }
+        logger.info("Ticket analytics rebuilt from {} resolutions in {} ms", rows[0], System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Handling times of tickets resolved between two days, for one employee or one priority at most
+     * @param from First resolution day, or null
+     * @param to Last resolution day, or null
+     */
+    public TicketAnalyticsDTO getAnalytics(LocalDate from, LocalDate to, Long employeeId, Ticket.TicketPriority priority) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (employeeId != null && priority != null) {
+            throw new IllegalArgumentException("Filter by employee or by priority, not both");
+        }
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM employee", rs -> {
+            names.put(rs.getLong(1), rs.getString(2));
+        });
+        return store.get().query(from, to, employeeId, priority, names);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isFor(ResolvedTicket.class) || event.getAction() != EntityChangeEvent.Action.CREATED) {
+            return;
+        }
+        ResolvedTicket resolvedTicket = (ResolvedTicket) event.getEntity();
+        Ticket ticket = resolvedTicket.getOriginalTicket();
+        if (ticket == null) {
+            return;
+        }
+        Long employeeId = resolvedTicket.getEmployee() != null ? resolvedTicket.getEmployee().getId()
+                : ticket.getEmployee() != null ? ticket.getEmployee().getId() : null;
+        Resolution resolved = resolution(resolvedTicket.getResolvedAt(), employeeId, ticket.getPriority(),
+                ticket.getCreatedAt(), ticket.getAssignedAt());
+        if (resolved != null) {
+            store.apply(resolved);
+        }
+    }
+
+    /**
+     * @return Null when the times needed are missing
+     */
+    private static Resolution resolution(LocalDateTime resolvedAt, Long employeeId, Ticket.TicketPriority priority,
+            LocalDateTime createdAt, LocalDateTime assignedAt) {
+        if (resolvedAt == null || createdAt == null) {
+            return null;
+        }
+        Function<LocalDateTime, Long> sinceCreation = time -> Duration.between(createdAt, time).toMillis();
+        return new Resolution(resolvedAt.toLocalDate(), employeeId,
+                priority != null ? priority : Ticket.TicketPriority.MEDIUM,
+                sinceCreation.apply(resolvedAt), assignedAt != null ? sinceCreation.apply(assignedAt) : null);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.CREMIx.service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.dto.TicketEventDTO;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.OptimisticRetry;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Ticket;
+import com.example.CREMIx.repository.EmployeeRepository;
+import com.example.CREMIx.repository.TicketRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Pull dispatch of unassigned tickets: agents ask for their next ticket instead of picking from a list.
+ * Unassigned NEW and URGENT tickets wait in one ordered queue per skill tag (CRITICAL first, then
+ * URGENT, then by priority, oldest first). A claim looks only at the heads of the untagged queue and
+ * the agent's skill queues, takes the best one by removing it, which exactly one agent can do, and
+ * then assigns it under the ticket's @Version, so agents on other instances cannot double assign it
+ * either. Agents already holding tickets.dispatch.max-open-per-agent open tickets, counting their
+ * claims still in flight, get nothing new.
+ * The queues are loaded once at startup and follow committed ticket changes.
+ */
+@Service
+public class TicketDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketDispatcher.class);
+
+    // Heads found already taken or changed before one claim gives up
+    private static final int MAX_CLAIM_ATTEMPTS = 20;
+
+    // Queue of tickets without a skill tag
+    private static final String ANY_SKILL = "";
+
+    private static final String UNASSIGNED = """
+            SELECT id, status, priority, skill, created_at, employee_id FROM ticket
+            WHERE status IN ('NEW', 'URGENT') AND employee_id IS NULL
+            """;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private OpenTicketCounter openTicketCounter;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${tickets.dispatch.max-open-per-agent:10}")
+    private int maxOpenPerAgent;
+
+    // One lane per skill tag
+    private final OrderedTicketQueue queue;
+
+    // Claims in flight per employee, reserving their slots before the open ticket count catches up
+    private final Map<Long, AtomicInteger> claiming = new ConcurrentHashMap<>();
+
+    public TicketDispatcher(JdbcTemplate jdbcTemplate) {
+        this.queue = new OrderedTicketQueue("ticket dispatch queue", jdbcTemplate, UNASSIGNED,
+                ticket -> ticket.getEmployee() != null ? -1 : rank(ticket.getStatus(), ticket.getPriority()),
+                ticket -> skill(ticket.getSkill()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        queue.reseed();
+    }
+
+    /**
+     * Assign the next ticket the employee can handle to them
+     * @return Empty when no queued ticket matches the employee's skills
+     * @throws EntityNotFoundException if the employee does not exist
+     * @throws IllegalStateException if the employee already has the maximum of open tickets
+     */
+    public Optional<TicketDTO> claimNext(Long employeeId) {
+        Employee employee = employeeRepository.findById(employeeId)
+                .orElseThrow(() -> new EntityNotFoundException("Employee not found with id: " + employeeId));
+        // Reserve the slot before counting, so concurrent claims by one employee see each other
+        AtomicInteger inFlight = claiming.computeIfAbsent(employeeId, id -> new AtomicInteger());
+        int others = inFlight.getAndIncrement();
+        try {
+            // A claim that committed is already counted as open before its reservation is released
+            int open = openTicketCounter.get(employeeId);
+            if (open + others >= maxOpenPerAgent) {
+                throw new IllegalStateException("Employee " + employeeId + " already has " + open
+                        + " open tickets and " + others + " being claimed");
+            }
+            Set<String> skills = skills(employee.getSkills());
+            for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+                OrderedTicketQueue.Entry candidate = queue.head(skills);
+                if (candidate == null) {
+                    return Optional.empty();
+                }
+                if (!queue.claim(candidate)) {
+                    // Another agent took it first
+                    continue;
+                }
+                TicketDTO claimed;
+                try {
+                    claimed = assign(candidate.id(), employeeId, skills);
+                } catch (RuntimeException e) {
+                    queue.requeue(candidate);
+                    throw e;
+                }
+                if (claimed != null) {
+                    logger.info("Dispatched ticket {} to employee {}", candidate.id(), employeeId);
+                    return Optional.of(claimed);
+                }
+            }
+            logger.warn("Employee {} found no claimable ticket in {} attempts", employeeId, MAX_CLAIM_ATTEMPTS);
+            return Optional.empty();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return The assigned ticket, or null if it was assigned, closed or retagged since it was queued
+     */
+    private TicketDTO assign(Long ticketId, Long employeeId, Set<String> skills) {
+        return optimisticRetry.run("Dispatch ticket " + ticketId, () -> {
+            Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
+            if (ticket == null || ticket.getEmployee() != null || rank(ticket.getStatus(), ticket.getPriority()) < 0
+                    || !skills.contains(skill(ticket.getSkill()))) {
+                return null;
+            }
+            ticket.setEmployee(employeeRepository.getReferenceById(employeeId));
+            ticket.setStatus(Ticket.TicketStatus.IN_PROGRESS);
+            ticket.setUpdatedAt(LocalDateTime.now());
+            if (ticket.getAssignedAt() == null) {
+                ticket.setAssignedAt(ticket.getUpdatedAt());
+            }
+            TicketDTO dto = new TicketDTO(ticketRepository.saveAndFlush(ticket));
+            eventPublisher.publishEvent(new TicketEventDTO(TicketEventDTO.Type.ASSIGNED, dto));
+            return dto;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        queue.onEntityChange(event);
+    }
+
+    /**
+     * Position group of an unassigned ticket, or -1 when it is not waiting for an agent
+     */
+    private static int rank(Ticket.TicketStatus status, Ticket.TicketPriority priority) {
+        if (status != Ticket.TicketStatus.NEW && status != Ticket.TicketStatus.URGENT) {
+            return -1;
+        }
+        if (priority == Ticket.TicketPriority.CRITICAL) {
+            return 0;
+        }
+        if (status == Ticket.TicketStatus.URGENT) {
+            return 1;
+        }
+        if (priority == null) {
+            return 3;
+        }
+        return switch (priority) {
+            case HIGH -> 2;
+            case MEDIUM -> 3;
+            default -> 4;
+        };
+    }
+
+    private static String skill(String tag) {
+        return tag != null && !tag.isBlank() ? tag.trim().toLowerCase() : ANY_SKILL;
+    }
+
+    /**
+     * The queues an employee may take from: untagged tickets plus one per skill
+     */
+    private static Set<String> skills(String tags) {
+        Set<String> skills = new HashSet<>();
+        skills.add(ANY_SKILL);
+        if (tags != null) {
+            for (String tag : tags.split(",")) {
+                skills.add(skill(tag));
+            }
+        }
+        return skills;
+    }
+}
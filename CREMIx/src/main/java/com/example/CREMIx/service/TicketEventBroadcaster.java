@@ -0,0 +1,167 @@
+package com.example.CREMIx.service;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.dto.TicketEventDTO;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes committed ticket events to live subscribers over server-sent events, so agent and
+ * portal screens stop polling the ticket lists.
+ * Every subscriber has a filter and a bounded buffer. Publishing only offers the event to the
+ * buffers of matching subscribers; a virtual thread per subscriber drains its buffer to the
+ * socket, so one slow client never holds up the others. A client whose buffer fills up has
+ * fallen too far behind and is disconnected; EventSource reconnects and the client reloads.
+ */
+@Service
+public class TicketEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketEventBroadcaster.class);
+
+    /**
+     * Which tickets a subscriber wants; null criteria match everything
+     */
+    public record Filter(Long customerId, String customerEmail, String employeeEmail, Set<String> statuses) {
+
+        boolean matches(TicketDTO ticket) {
+            return (customerId == null || customerId.equals(ticket.getCustomerId()))
+                    && (customerEmail == null || customerEmail.equalsIgnoreCase(ticket.getCustomerEmail()))
+                    && (employeeEmail == null || employeeEmail.equalsIgnoreCase(ticket.getEmployeeEmail()))
+                    && (statuses == null || statuses.isEmpty() || statuses.contains(ticket.getStatus()));
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        // Set while a drain is scheduled or running, so at most one thread writes to the emitter
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Filter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!buffer.offer(event)) {
+                evict(this);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                subscribers.remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event offered after the last poll but before the flag was cleared
+            if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Value("${tickets.live.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${tickets.live.max-subscribers:2000}")
+    private int maxSubscribers;
+
+    @Value("${tickets.live.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    /**
+     * Open a live channel for tickets matching the filter
+     * @throws IllegalStateException if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(Filter filter) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many live ticket subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        // Sent right away so proxies and the browser see the stream open
+        subscriber.offer(SseEmitter.event().comment("subscribed"));
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTicketEvent(TicketEventDTO event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long id = sequence.incrementAndGet();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.filter.matches(event.getTicket())) {
+                subscriber.offer(SseEmitter.event().id(Long.toString(id)).name(event.getType().name()).data(event));
+            }
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and finds clients that are gone
+     */
+    @Scheduled(fixedDelayString = "${tickets.live.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        sender.shutdown();
+    }
+
+    private void evict(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            logger.info("Disconnecting live ticket subscriber that fell {} events behind", bufferSize);
+            // Off this thread: completing waits for a send that may be stuck on the slow socket
+            sender.execute(subscriber.emitter::complete);
+        }
+    }
+}
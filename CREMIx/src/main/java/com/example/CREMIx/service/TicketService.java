@@ -1,13 +1,21 @@
 package com.example.CREMIx.service;
 
+import com.example.CREMIx.dto.SimilarTicketDTO;
 import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.dto.TicketPageDTO;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface TicketService {
     List<TicketDTO> getAllTickets();
+    List<Map<String, Object>> getAllTicketFields(String fields);
     TicketDTO getTicketById(Long id);
+    Optional<String> getTicketETag(Long id);
+    String getTicketsETag(String fields);
     TicketDTO createTicket(TicketDTO ticketDTO);
     TicketDTO updateTicket(Long id, TicketDTO ticketDTO);
+    TicketDTO updateTicket(Long id, TicketDTO ticketDTO, String ifMatch);
     void deleteTicket(Long id);
 
     List<TicketDTO> getTicketsByCustomerId(Long customerId);
@@ -21,5 +29,6 @@ public interface TicketService {
     TicketDTO approveTicket(Long ticketId);
     TicketDTO denyTicket(Long ticketId);
     TicketDTO escalateTicket(Long ticketId);
-    List<TicketDTO> getEscalatedTickets();
+    TicketPageDTO getEscalatedTickets(int page, int size);
+    List<SimilarTicketDTO> getSimilarResolutions(Long ticketId, int limit);
 }
@@ -0,0 +1,278 @@
+package com.example.CREMIx.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.dto.TicketEventDTO;
+import com.example.CREMIx.misc.EntityChangeEvent;
+import com.example.CREMIx.misc.OptimisticRetry;
+import com.example.CREMIx.misc.ReseedableState;
+import com.example.CREMIx.misc.TimingWheel;
+import com.example.CREMIx.model.Ticket;
+import com.example.CREMIx.repository.TicketRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * SLA engine: every open ticket has one timer in a hashed timing wheel for its next deadline,
+ * the response deadline while it is unassigned and the resolution deadline once it is assigned,
+ * both counted from creation per priority. When a timer fires the ticket is moved to URGENT and
+ * the assignee (or the configured support lead) is emailed.
+ * Timers are built from open tickets at startup and then follow committed ticket changes, so
+ * nothing polls the ticket table; the wheel ticks in memory on its own thread and hands due
+ * tickets to a small escalation pool, so retries and mail never hold up the clock.
+ */
+@Service
+public class TicketSlaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketSlaService.class);
+
+    // With one second ticks a turn of the wheel is a bit over an hour
+    private static final int WHEEL_SIZE = 4096;
+
+    // Escalations run in their own transactions; kept well below the connection pool size
+    private static final int ESCALATION_THREADS = 4;
+
+    private static final String OPEN_TICKETS = """
+            SELECT id, priority, employee_id, created_at FROM ticket
+            WHERE status IN ('NEW', 'IN_PROGRESS')
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Map<Ticket.TicketPriority, Duration> responseTimes;
+    private final Map<Ticket.TicketPriority, Duration> resolutionTimes;
+    private final long tickMillis;
+
+    @Value("${tickets.sla.notify-email:}")
+    private String notifyEmail;
+
+    /**
+     * A committed ticket change; null deadline cancels the timer
+     */
+    private record Change(long ticketId, Long deadline) {
+    }
+
+    private final ReseedableState<TimingWheel<Long>, Change> wheel;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ticket-sla").daemon(true).factory());
+
+    private final ExecutorService escalations = Executors.newFixedThreadPool(ESCALATION_THREADS,
+            Thread.ofPlatform().name("ticket-sla-escalation-", 0).daemon(true).factory());
+
+    public TicketSlaService(JdbcTemplate jdbcTemplate,
+            @Value("${tickets.sla.response-minutes:LOW=1440,MEDIUM=480,HIGH=120,CRITICAL=30}") String responseMinutes,
+            @Value("${tickets.sla.resolution-minutes:LOW=10080,MEDIUM=4320,HIGH=1440,CRITICAL=240}") String resolutionMinutes,
+            @Value("${tickets.sla.tick-ms:1000}") long tickMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.responseTimes = parseMinutes("tickets.sla.response-minutes", responseMinutes);
+        this.resolutionTimes = parseMinutes("tickets.sla.resolution-minutes", resolutionMinutes);
+        this.tickMillis = tickMillis;
+        this.wheel = new ReseedableState<>(new TimingWheel<>(WHEEL_SIZE, tickMillis, System.currentTimeMillis()),
+                TicketSlaService::apply);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        escalations.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isFor(Ticket.class)) {
+            return;
+        }
+        if (event.getAction() == EntityChangeEvent.Action.BULK) {
+            rebuild();
+            return;
+        }
+        Ticket ticket = (Ticket) event.getEntity();
+        if (ticket.getId() == null) {
+            return;
+        }
+        Long deadline = event.getAction() == EntityChangeEvent.Action.DELETED ? null : deadlineMillis(ticket);
+        wheel.apply(new Change(ticket.getId(), deadline));
+    }
+
+    private static void apply(TimingWheel<Long> target, Change change) {
+        if (change.deadline() == null) {
+            target.cancel(change.ticketId());
+        } else {
+            target.schedule(change.ticketId(), change.deadline());
+        }
+    }
+
+    private void tick() {
+        try {
+            List<Long> due = wheel.locked(timers -> timers.advance(System.currentTimeMillis()));
+            for (Long ticketId : due) {
+                escalations.execute(() -> escalate(ticketId));
+            }
+        } catch (RuntimeException e) {
+            // Keep the ticker alive; a failed ticket is picked up again by its next change or rebuild
+            logger.error("SLA tick failed", e);
+        }
+    }
+
+    /**
+     * Move an overdue ticket to URGENT, unless a change since the timer was set moved its deadline
+     */
+    private void escalate(Long ticketId) {
+        String[] missed = new String[1];
+        TicketDTO escalated;
+        try {
+            escalated = optimisticRetry.run("SLA escalation of ticket " + ticketId, () -> {
+                Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
+                if (ticket == null) {
+                    return null;
+                }
+                Long deadline = deadlineMillis(ticket);
+                if (deadline == null || deadline > System.currentTimeMillis()) {
+                    return null;
+                }
+                missed[0] = ticket.getEmployee() == null ? "response" : "resolution";
+                ticket.setStatus(Ticket.TicketStatus.URGENT);
+                ticket.setUpdatedAt(LocalDateTime.now());
+                TicketDTO dto = new TicketDTO(ticketRepository.saveAndFlush(ticket));
+                eventPublisher.publishEvent(new TicketEventDTO(TicketEventDTO.Type.ESCALATED, dto));
+                return dto;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to escalate ticket {} after its SLA deadline", ticketId, e);
+            return;
+        }
+        if (escalated == null) {
+            return;
+        }
+        logger.info("Ticket {} missed its {} deadline and was escalated", ticketId, missed[0]);
+        notifyBreach(escalated, missed[0]);
+    }
+
+    private void notifyBreach(TicketDTO ticket, String missed) {
+        String to = ticket.getEmployeeEmail() != null ? ticket.getEmployeeEmail() : notifyEmail;
+        if (to == null || to.isBlank()) {
+            return;
+        }
+        String name = ticket.getEmployeeEmail() != null ? ticket.getEmployeeName() : "Support Lead";
+        try {
+            emailService.sendSlaBreachNotification(to, name, ticket, missed);
+        } catch (Exception e) {
+            // Log the error but don't disrupt the main flow
+            logger.warn("Failed to send SLA breach notification for ticket {}: {}", ticket.getId(), e.getMessage());
+        }
+    }
+
+    private Long deadlineMillis(Ticket ticket) {
+        if (ticket.getStatus() != Ticket.TicketStatus.NEW && ticket.getStatus() != Ticket.TicketStatus.IN_PROGRESS) {
+            return null;
+        }
+        return deadlineMillis(ticket.getPriority(), ticket.getEmployee() != null, ticket.getCreatedAt());
+    }
+
+    /**
+     * Response deadline while unassigned, resolution deadline once assigned; null for no SLA
+     */
+    private Long deadlineMillis(Ticket.TicketPriority priority, boolean assigned, LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return null;
+        }
+        Ticket.TicketPriority key = priority != null ? priority : Ticket.TicketPriority.MEDIUM;
+        Duration allowed = assigned ? resolutionTimes.get(key) : responseTimes.get(key);
+        if (allowed == null) {
+            return null;
+        }
+        return createdAt.atZone(ZoneId.systemDefault()).toInstant().plus(allowed).toEpochMilli();
+    }
+
+    private void rebuild() {
+        TimingWheel<Long> fresh;
+        try {
+            fresh = wheel.reseed(() -> {
+                TimingWheel<Long> loaded = new TimingWheel<>(WHEEL_SIZE, tickMillis, System.currentTimeMillis());
+                jdbcTemplate.query(OPEN_TICKETS, rs -> {
+                    Timestamp created = rs.getTimestamp(4);
+                    Long deadline = deadlineMillis(
+                            rs.getString(2) != null ? Ticket.TicketPriority.valueOf(rs.getString(2)) : null,
+                            rs.getObject(3) != null,
+                            created != null ? created.toLocalDateTime() : null);
+                    if (deadline != null) {
+                        loaded.schedule(rs.getLong(1), deadline);
+                    }
+                });
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to load ticket SLA timers", e);
+            return;
+        }
+        if (fresh == null) {
+            return;
+        }
+        int timers = wheel.locked(TimingWheel::size);
+        logger.info("Ticket SLA timers loaded for {} open tickets", timers);
+    }
+
+    /**
+     * Parse "PRIORITY=minutes" pairs; priorities left out have no deadline
+     */
+    private static Map<Ticket.TicketPriority, Duration> parseMinutes(String property, String config) {
+        Map<Ticket.TicketPriority, Duration> minutes = new EnumMap<>(Ticket.TicketPriority.class);
+        if (config == null || config.isBlank()) {
+            return minutes;
+        }
+        for (String pair : config.split(",")) {
+            String[] parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid " + property + " entry: " + pair);
+            }
+            long value = Long.parseLong(parts[1].trim());
+            if (value <= 0) {
+                throw new IllegalArgumentException("Non-positive minutes in " + property + ": " + pair);
+            }
+            minutes.put(Ticket.TicketPriority.valueOf(parts[0].trim().toUpperCase()), Duration.ofMinutes(value));
+        }
+        return minutes;
+    }
+}
@@ -3,12 +3,11 @@ package com.example.CREMIx.service.impl;
 import com.example.CREMIx.dto.CallLogDTO;
 import com.example.CREMIx.model.CallLog;
 import com.example.CREMIx.model.CallLog.CallType;
-import com.example.CREMIx.model.Customer;
-import com.example.CREMIx.model.Employee;
 import com.example.CREMIx.repository.CallLogRepository;
 import com.example.CREMIx.repository.CustomerRepository;
 import com.example.CREMIx.repository.EmployeeRepository;
 import com.example.CREMIx.service.CallLogService;
+import com.example.CREMIx.service.IdentityResolver;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -30,6 +29,9 @@ public class CallLogServiceImpl implements CallLogService {
     
     @Autowired
     private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private IdentityResolver identityResolver;
     
     // Helper method to convert CallLog entity to DTO
     private CallLogDTO convertToDTO(CallLog callLog) {
@@ -68,24 +70,24 @@ public class CallLogServiceImpl implements CallLogService {
         
 
         if (dto.getCustomerEmail() != null && !dto.getCustomerEmail().isEmpty()) {
-            Customer customer = customerRepository.findByEmail(dto.getCustomerEmail())
+            Long customerId = identityResolver.customerIdByEmail(dto.getCustomerEmail())
                 .orElseThrow(() -> new RuntimeException("Customer not found with Email: " + dto.getCustomerEmail()));
-            callLog.setCustomer(customer);
+            callLog.setCustomer(customerRepository.getReferenceById(customerId));
         } else if (dto.getCustomerName() != null) {
-            Customer customer = customerRepository.findByName(dto.getCustomerName())
+            Long customerId = identityResolver.customerIdByName(dto.getCustomerName())
                 .orElseThrow(() -> new RuntimeException("Customer not found with Name: " + dto.getCustomerName()));
-            callLog.setCustomer(customer);
+            callLog.setCustomer(customerRepository.getReferenceById(customerId));
         }
         
  
         if (dto.getEmployeeEmail() != null && !dto.getEmployeeEmail().isEmpty()) {
-            Employee employee = employeeRepository.findByEmail(dto.getEmployeeEmail())
+            Long employeeId = identityResolver.employeeIdByEmail(dto.getEmployeeEmail())
                 .orElseThrow(() -> new RuntimeException("Employee not found with Email: " + dto.getEmployeeEmail()));
-            callLog.setEmployee(employee);
+            callLog.setEmployee(employeeRepository.getReferenceById(employeeId));
         } else if (dto.getEmployeeName() != null) {
-            Employee employee = employeeRepository.findByName(dto.getEmployeeName())
+            Long employeeId = identityResolver.employeeIdByName(dto.getEmployeeName())
                 .orElseThrow(() -> new RuntimeException("Employee not found with Name: " + dto.getEmployeeName()));
-            callLog.setEmployee(employee);
+            callLog.setEmployee(employeeRepository.getReferenceById(employeeId));
         }
         
         return callLog;
@@ -147,23 +149,23 @@ public class CallLogServiceImpl implements CallLogService {
         existingCallLog.setSeconds(callLogDTO.getSeconds());
         
         if (callLogDTO.getCustomerEmail() != null && !callLogDTO.getCustomerEmail().isEmpty()) {
-            Customer customer = customerRepository.findByEmail(callLogDTO.getCustomerEmail())
+            Long customerId = identityResolver.customerIdByEmail(callLogDTO.getCustomerEmail())
                 .orElseThrow(() -> new RuntimeException("Customer not found with Email: " + callLogDTO.getCustomerEmail()));
-            existingCallLog.setCustomer(customer);
+            existingCallLog.setCustomer(customerRepository.getReferenceById(customerId));
         } else if (callLogDTO.getCustomerName() != null) {
-            Customer customer = customerRepository.findByName(callLogDTO.getCustomerName())
+            Long customerId = identityResolver.customerIdByName(callLogDTO.getCustomerName())
                 .orElseThrow(() -> new RuntimeException("Customer not found with Name: " + callLogDTO.getCustomerName()));
-            existingCallLog.setCustomer(customer);
+            existingCallLog.setCustomer(customerRepository.getReferenceById(customerId));
         }
         
         if (callLogDTO.getEmployeeEmail() != null && !callLogDTO.getEmployeeEmail().isEmpty()) {
-            Employee employee = employeeRepository.findByEmail(callLogDTO.getEmployeeEmail())
+            Long employeeId = identityResolver.employeeIdByEmail(callLogDTO.getEmployeeEmail())
                 .orElseThrow(() -> new RuntimeException("Employee not found with Email: " + callLogDTO.getEmployeeEmail()));
-            existingCallLog.setEmployee(employee);
+            existingCallLog.setEmployee(employeeRepository.getReferenceById(employeeId));
         } else if (callLogDTO.getEmployeeName() != null) {
-            Employee employee = employeeRepository.findByName(callLogDTO.getEmployeeName())
+            Long employeeId = identityResolver.employeeIdByName(callLogDTO.getEmployeeName())
                 .orElseThrow(() -> new RuntimeException("Employee not found with Name: " + callLogDTO.getEmployeeName()));
-            existingCallLog.setEmployee(employee);
+            existingCallLog.setEmployee(employeeRepository.getReferenceById(employeeId));
         }
         
         CallLog updatedCallLog = callLogRepository.save(existingCallLog);
@@ -0,0 +1,142 @@
+package com.example.CREMIx.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.CREMIx.misc.ExportFormat;
+import com.example.CREMIx.misc.RowWriter;
+import com.example.CREMIx.repository.CallLogRepository;
+import com.example.CREMIx.repository.CustomerRepository;
+import com.example.CREMIx.repository.InvoiceRepository;
+import com.example.CREMIx.repository.LeadRepository;
+import com.example.CREMIx.repository.TicketRepository;
+import com.example.CREMIx.service.ExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportServiceImpl.class);
+
+    // Push bytes to the client every N rows so the response starts streaming immediately
+    private static final int FLUSH_EVERY = 1000;
+
+    // Column names must match the SELECT order of the repository streamExportRows() queries
+    private static final String[] CUSTOMER_COLUMNS = {
+        "id", "name", "email", "phoneNumber", "address", "city", "state", "zipCode",
+        "country", "website", "type", "status"
+    };
+    private static final String[] LEAD_COLUMNS = {
+        "id", "requirement", "expectedRevenue", "probability", "source", "type", "stage", "status",
+        "createdAt", "updatedAt", "customerId", "customerName", "customerEmail", "assignedTo"
+    };
+    private static final String[] CALL_LOG_COLUMNS = {
+        "id", "title", "description", "type", "dateTime", "minutes", "seconds",
+        "customerId", "customerName", "customerEmail", "employeeName", "employeeEmail"
+    };
+    private static final String[] TICKET_COLUMNS = {
+        "id", "subject", "description", "status", "priority", "createdAt", "updatedAt",
+        "customerId", "customerName", "customerEmail", "employeeName", "employeeEmail"
+    };
+    private static final String[] INVOICE_COLUMNS = {
+        "id", "invoiceNumber", "status", "title", "invoiceDate", "dueDate", "terms", "subtotal",
+        "discount", "taxRate", "taxAmount", "total", "createdAt", "updatedAt",
+        "customerId", "customerName", "customerEmail", "employeeName", "quotationId", "opportunityId"
+    };
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private CallLogRepository callLogRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public ExportServiceImpl(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public long exportCustomers(ExportFormat format, OutputStream out) throws IOException {
+        return export("customers", customerRepository::streamExportRows, CUSTOMER_COLUMNS, format, out);
+    }
+
+    @Override
+    public long exportLeads(ExportFormat format, OutputStream out) throws IOException {
+        return export("leads", leadRepository::streamExportRows, LEAD_COLUMNS, format, out);
+    }
+
+    @Override
+    public long exportCallLogs(ExportFormat format, OutputStream out) throws IOException {
+        return export("call logs", callLogRepository::streamExportRows, CALL_LOG_COLUMNS, format, out);
+    }
+
+    @Override
+    public long exportTickets(ExportFormat format, OutputStream out) throws IOException {
+        return export("tickets", ticketRepository::streamExportRows, TICKET_COLUMNS, format, out);
+    }
+
+    @Override
+    public long exportInvoices(ExportFormat format, OutputStream out) throws IOException {
+        return export("invoices", invoiceRepository::streamExportRows, INVOICE_COLUMNS, format, out);
+    }
+
+    /**
+     * Write rows straight from a database cursor to the output stream.
+     * The stream has to be consumed inside a transaction, and scalar rows keep the persistence context empty.
+     */
+    private long export(String dataset, Supplier<Stream<Object[]>> source, String[] columns,
+            ExportFormat format, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        RowWriter writer = RowWriter.open(format, out, columns, objectMapper);
+        try {
+            Long rows = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<Object[]> stream = source.get()) {
+                    var iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        writer.write(iterator.next());
+                        if (++count % FLUSH_EVERY == 0) {
+                            writer.flush();
+                        }
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            logger.info("Exported {} {} as {} in {} ms", rows, dataset, format,
+                    System.currentTimeMillis() - started);
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            // Usually the client disconnected mid-download
+            logger.warn("Export of {} aborted: {}", dataset, e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.CREMIx.dto.InvoiceDTO;
+import com.example.CREMIx.misc.ETags;
 import com.example.CREMIx.model.Customer;
 import com.example.CREMIx.model.Employee;
 import com.example.CREMIx.model.Invoice;
@@ -22,7 +24,9 @@ import com.example.CREMIx.repository.EmployeeRepository;
 import com.example.CREMIx.repository.InvoiceRepository;
 import com.example.CREMIx.repository.OpportunityRepository;
 import com.example.CREMIx.repository.QuotationRepository;
+import com.example.CREMIx.repository.SparseFieldsetRepository;
 import com.example.CREMIx.service.EmailService;
+import com.example.CREMIx.service.IdentityResolver;
 import com.example.CREMIx.service.InvoiceService;
 
 @Service
@@ -46,12 +50,24 @@ public class InvoiceServiceImpl implements InvoiceService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private SparseFieldsetRepository sparseFieldsetRepository;
+
+    @Autowired
+    private IdentityResolver identityResolver;
+
     @Override
     public List<InvoiceDTO> getAllInvoices() {
         System.out.println("\n\nInvoice: ");
         return invoiceRepository.findAllInvoices();
     }
     
+    @Override
+    public List<Map<String, Object>> getAllInvoiceFields(String fields) {
+        return sparseFieldsetRepository.findFields(Invoice.class, InvoiceDTO.FIELDS,
+                InvoiceDTO.FIELDS.parse(fields), Map.of());
+    }
+
     @Override
     public List<InvoiceDTO> getInvoicesByCustomerId(Long customerId) {
         var i = invoiceRepository.findByCustomerId(customerId);
@@ -69,6 +85,16 @@ public class InvoiceServiceImpl implements InvoiceService {
         return i;
     }
 
+    @Override
+    public Optional<String> getInvoiceETag(Long id) {
+        return invoiceRepository.findVersionTagById(id).map(tag -> ETags.of(id, tag));
+    }
+
+    @Override
+    public String getInvoicesETag(String fields) {
+        return ETags.ofCollection(invoiceRepository.findCollectionVersion(), fields);
+    }
+
     @Override
     @Transactional
     public void deleteInvoice(Long id) {
@@ -99,7 +125,8 @@ public class InvoiceServiceImpl implements InvoiceService {
                 .orElseThrow(() -> new RuntimeException("Customer not found with id: " + customerId));
 
         // Find the employee (if needed)
-        Optional<Employee> employee = employeeRepository.findByName(invoiceDTO.getEmployeeName());
+        Optional<Employee> employee = identityResolver.employeeIdByName(invoiceDTO.getEmployeeName())
+                .map(employeeRepository::getReferenceById);
         
         // Create the invoice entity
         Invoice invoice = new Invoice();
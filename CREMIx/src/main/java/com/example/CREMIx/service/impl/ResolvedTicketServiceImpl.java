@@ -4,10 +4,13 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.CREMIx.dto.ResolvedTicketDTO;
+import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.dto.TicketEventDTO;
 import com.example.CREMIx.model.Employee;
 import com.example.CREMIx.model.ResolvedTicket;
 import com.example.CREMIx.model.Ticket;
@@ -30,6 +33,9 @@ public class ResolvedTicketServiceImpl implements ResolvedTicketService {
     
     @Autowired
     private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Override
     public ResolvedTicketDTO createResolvedTicket(ResolvedTicketDTO resolvedTicketDTO) {
@@ -66,7 +72,8 @@ public class ResolvedTicketServiceImpl implements ResolvedTicketService {
         
         // Update original ticket status to RESOLVED
         originalTicket.setStatus(Ticket.TicketStatus.RESOLVED);
-        ticketRepository.save(originalTicket);
+        originalTicket = ticketRepository.save(originalTicket);
+        eventPublisher.publishEvent(new TicketEventDTO(TicketEventDTO.Type.RESOLVED, new TicketDTO(originalTicket)));
         
         return new ResolvedTicketDTO(savedResolvedTicket);
     }
@@ -1,22 +1,33 @@
 package com.example.CREMIx.service.impl;
 
+import com.example.CREMIx.dto.SimilarTicketDTO;
 import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.dto.TicketEventDTO;
+import com.example.CREMIx.dto.TicketPageDTO;
+import com.example.CREMIx.misc.ETags;
+import com.example.CREMIx.misc.PreconditionFailedException;
 import com.example.CREMIx.model.Customer;
 import com.example.CREMIx.model.Employee;
 import com.example.CREMIx.model.Ticket;
 import com.example.CREMIx.model.Ticket.TicketStatus;
 import com.example.CREMIx.repository.CustomerRepository;
 import com.example.CREMIx.repository.EmployeeRepository;
+import com.example.CREMIx.repository.SparseFieldsetRepository;
 import com.example.CREMIx.repository.TicketRepository;
+import com.example.CREMIx.service.EscalatedTicketQueue;
+import com.example.CREMIx.service.ResolutionSearchIndex;
 import com.example.CREMIx.service.TicketService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityNotFoundException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,12 +36,22 @@ public class TicketServiceImpl implements TicketService {
     private final TicketRepository ticketRepository;
     private final CustomerRepository customerRepository;
     private EmployeeRepository employeeRepository;
+    private final SparseFieldsetRepository sparseFieldsetRepository;
+    private final EscalatedTicketQueue escalatedTicketQueue;
+    private final ResolutionSearchIndex resolutionSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public TicketServiceImpl(TicketRepository ticketRepository, CustomerRepository customerRepository, EmployeeRepository employeeRepository) {
+    public TicketServiceImpl(TicketRepository ticketRepository, CustomerRepository customerRepository, EmployeeRepository employeeRepository,
+            SparseFieldsetRepository sparseFieldsetRepository, EscalatedTicketQueue escalatedTicketQueue,
+            ResolutionSearchIndex resolutionSearchIndex, ApplicationEventPublisher eventPublisher) {
         this.ticketRepository = ticketRepository;
         this.customerRepository = customerRepository;
         this.employeeRepository = employeeRepository;
+        this.sparseFieldsetRepository = sparseFieldsetRepository;
+        this.escalatedTicketQueue = escalatedTicketQueue;
+        this.resolutionSearchIndex = resolutionSearchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -41,6 +62,11 @@ public class TicketServiceImpl implements TicketService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Map<String, Object>> getAllTicketFields(String fields) {
+        return sparseFieldsetRepository.findFields(Ticket.class, TicketDTO.FIELDS, TicketDTO.FIELDS.parse(fields), Map.of());
+    }
+
     @Override
     public TicketDTO getTicketById(Long id) {
         Ticket ticket = ticketRepository.findById(id)
@@ -48,6 +74,16 @@ public class TicketServiceImpl implements TicketService {
         return new TicketDTO(ticket);
     }
 
+    @Override
+    public Optional<String> getTicketETag(Long id) {
+        return ticketRepository.findVersionTagById(id).map(tag -> ETags.of(id, tag));
+    }
+
+    @Override
+    public String getTicketsETag(String fields) {
+        return ETags.ofCollection(ticketRepository.findCollectionVersion(), fields);
+    }
+
     @Override
     @Transactional
     public TicketDTO createTicket(TicketDTO ticketDTO) {
@@ -60,18 +96,31 @@ public class TicketServiceImpl implements TicketService {
 
         System.out.println("\n\n" + ticket + "\n\n");
         Ticket savedTicket = ticketRepository.save(ticket);
-        return new TicketDTO(savedTicket);
+        return publish(TicketEventDTO.Type.CREATED, savedTicket);
     }
 
     @Override
     @Transactional
     public TicketDTO updateTicket(Long id, TicketDTO ticketDTO) {
+        return updateTicket(id, ticketDTO, null);
+    }
+
+    @Override
+    @Transactional
+    public TicketDTO updateTicket(Long id, TicketDTO ticketDTO, String ifMatch) {
         Ticket existingTicket = ticketRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ticket not found with id: " + id));
+        long customerVersion = existingTicket.getCustomer() != null ? existingTicket.getCustomer().getVersion() : 0;
+        if (!ETags.matches(ifMatch, ETags.of(id, ETags.versions(existingTicket.getVersion(), customerVersion)))) {
+            throw new PreconditionFailedException("Ticket " + id + " was modified since it was read");
+        }
         
         existingTicket.setSubject(ticketDTO.getSubject());
         existingTicket.setDescription(ticketDTO.getDescription());
         existingTicket.setStatus(Ticket.TicketStatus.valueOf(ticketDTO.getStatus()));
+        if (ticketDTO.getSkill() != null) {
+            existingTicket.setSkill(ticketDTO.getSkill().isBlank() ? null : ticketDTO.getSkill().trim().toLowerCase());
+        }
         existingTicket.setUpdatedAt(LocalDateTime.now());
         
         // Update customer if provided
@@ -90,10 +139,13 @@ public class TicketServiceImpl implements TicketService {
             Employee employee = employeeRepository.findByEmail(ticketDTO.getEmployeeEmail())
                 .orElseThrow(() -> new EntityNotFoundException("Employee not found with email: " + ticketDTO.getEmployeeEmail()));
             existingTicket.setEmployee(employee);
+            if (existingTicket.getAssignedAt() == null) {
+                existingTicket.setAssignedAt(LocalDateTime.now());
+            }
         }
         
         Ticket updatedTicket = ticketRepository.save(existingTicket);
-        return new TicketDTO(updatedTicket);
+        return publish(TicketEventDTO.Type.UPDATED, updatedTicket);
     }
 
     @Override
@@ -150,9 +202,12 @@ public class TicketServiceImpl implements TicketService {
         ticket.setEmployee(employee);
         ticket.setStatus(Ticket.TicketStatus.IN_PROGRESS);
         ticket.setUpdatedAt(LocalDateTime.now());
+        if (ticket.getAssignedAt() == null) {
+            ticket.setAssignedAt(ticket.getUpdatedAt());
+        }
         
         Ticket updatedTicket = ticketRepository.save(ticket);
-        return new TicketDTO(updatedTicket);
+        return publish(TicketEventDTO.Type.ASSIGNED, updatedTicket);
     }
 
     @Override
@@ -173,7 +228,7 @@ public class TicketServiceImpl implements TicketService {
         ticket.setStatus(TicketStatus.CLOSED);
         ticket = ticketRepository.save(ticket);
         
-        return new TicketDTO(ticket);
+        return publish(TicketEventDTO.Type.CLOSED, ticket);
     }
     
     @Override
@@ -186,7 +241,7 @@ public class TicketServiceImpl implements TicketService {
         ticket.setStatus(TicketStatus.IN_PROGRESS);
         ticket = ticketRepository.save(ticket);
         
-        return new TicketDTO(ticket);
+        return publish(TicketEventDTO.Type.UPDATED, ticket);
     }
     
     @Override
@@ -205,7 +260,16 @@ public class TicketServiceImpl implements TicketService {
         ticket.setUpdatedAt(LocalDateTime.now());
         ticket = ticketRepository.save(ticket);
         
-        return new TicketDTO(ticket);
+        return publish(TicketEventDTO.Type.ESCALATED, ticket);
+    }
+
+    /**
+     * Announce a ticket change to live subscribers once the transaction commits
+     */
+    private TicketDTO publish(TicketEventDTO.Type type, Ticket ticket) {
+        TicketDTO dto = new TicketDTO(ticket);
+        eventPublisher.publishEvent(new TicketEventDTO(type, dto));
+        return dto;
     }
     
     // Helper method to convert DTO to Entity
@@ -220,6 +284,9 @@ public class TicketServiceImpl implements TicketService {
         
         ticket.setSubject(dto.getSubject());
         ticket.setDescription(dto.getDescription());
+        if (dto.getSkill() != null && !dto.getSkill().isBlank()) {
+            ticket.setSkill(dto.getSkill().trim().toLowerCase());
+        }
 
         try {
             ticket.setStatus(dto.getStatus() != null ? Ticket.TicketStatus.valueOf(dto.getStatus()) : Ticket.TicketStatus.NEW);
@@ -242,15 +309,16 @@ public class TicketServiceImpl implements TicketService {
     }
 
     @Override
-    public List<TicketDTO> getEscalatedTickets() {
-        return ticketRepository.findAll()
-                .stream()
-                .filter(ticket -> 
-                    ticket.getStatus() == TicketStatus.URGENT || 
-                    ticket.getPriority() == Ticket.TicketPriority.HIGH ||
-                    ticket.getPriority() == Ticket.TicketPriority.CRITICAL
-                )
-                .map(TicketDTO::new)
-                .collect(Collectors.toList());
+    public TicketPageDTO getEscalatedTickets(int page, int size) {
+        return escalatedTicketQueue.getPage(page, size);
+    }
+
+    @Override
+    public List<SimilarTicketDTO> getSimilarResolutions(Long ticketId, int limit) {
+        Ticket ticket = ticketRepository.findById(ticketId)
+                .orElseThrow(() -> new EntityNotFoundException("Ticket not found with id: " + ticketId));
+        String text = (ticket.getSubject() != null ? ticket.getSubject() : "") + " "
+                + (ticket.getDescription() != null ? ticket.getDescription() : "");
+        return resolutionSearchIndex.findSimilar(text, ticketId, limit);
     }
 }
@@ -0,0 +1,115 @@
+package com.example.CREMIx.misc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Percentiles read back as the midpoint of the bucket holding them. Each power of two splits into
+ * four buckets, so 512 to 1023 is covered by 512-639, 640-767, 768-895 and 896-1023.
+ */
+class LogHistogramTests {
+
+    // Far above every bucket under test, so the midpoint is not capped at the maximum
+    private static final long LARGE = 1_000_000;
+
+    @Test
+    void emptyHistogramReadsZero() {
+        LogHistogram histogram = new LogHistogram();
+
+        assertThat(histogram.percentile(0.5)).isZero();
+        assertThat(histogram.getMean()).isZero();
+        assertThat(histogram.getCount()).isZero();
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        for (long value = 0; value < 4; value++) {
+            assertThat(lowerPercentile(value)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void bucketBoundsAreInclusive() {
+        assertThat(lowerPercentile(767)).isEqualTo(lowerPercentile(640));
+        assertThat(lowerPercentile(768)).isEqualTo(lowerPercentile(895));
+        assertThat(lowerPercentile(896)).isEqualTo(lowerPercentile(1023));
+        assertThat(lowerPercentile(1024)).isEqualTo(lowerPercentile(1279));
+
+        assertThat(lowerPercentile(895)).isNotEqualTo(lowerPercentile(896));
+        assertThat(lowerPercentile(1023)).isNotEqualTo(lowerPercentile(1024));
+    }
+
+    @Test
+    void percentileIsTheBucketMidpoint() {
+        assertThat(lowerPercentile(4)).isEqualTo(4);
+        assertThat(lowerPercentile(9)).isEqualTo((8 + 9) / 2);
+        assertThat(lowerPercentile(900)).isEqualTo((896 + 1023) / 2);
+        assertThat(lowerPercentile(1100)).isEqualTo((1024 + 1279) / 2);
+    }
+
+    @Test
+    void percentileIsCappedAtTheLargestValue() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(900);
+
+        assertThat(histogram.percentile(1)).isEqualTo(900);
+        assertThat(histogram.getMax()).isEqualTo(900);
+    }
+
+    @Test
+    void percentilesStayCloseToTheExactValues() {
+        Random random = new Random(42);
+        long[] samples = new long[10_000];
+        LogHistogram histogram = new LogHistogram();
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+
+        for (double quantile : new double[] { 0.5, 0.9, 0.99 }) {
+            long exact = samples[(int) Math.ceil(quantile * samples.length) - 1];
+            assertThat((double) histogram.percentile(quantile)).isCloseTo(exact, within(exact * 0.19));
+        }
+    }
+
+    @Test
+    void mergeAddsSamples() {
+        LogHistogram first = new LogHistogram();
+        LogHistogram second = new LogHistogram();
+        first.record(10);
+        first.record(20);
+        second.record(LARGE);
+
+        first.merge(second);
+
+        assertThat(first.getCount()).isEqualTo(3);
+        assertThat(first.getMax()).isEqualTo(LARGE);
+        assertThat(first.getMean()).isEqualTo((10 + 20 + LARGE) / 3.0);
+        assertThat(first.percentile(1.0 / 3)).isEqualTo((10 + 11) / 2);
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(-5);
+
+        assertThat(histogram.getCount()).isOne();
+        assertThat(histogram.percentile(0.5)).isZero();
+    }
+
+    /**
+     * Percentile of the lower of two samples: value and one far above it
+     */
+    private static long lowerPercentile(long value) {
+        LogHistogram histogram = new LogHistogram();
+        histogram.record(value);
+        histogram.record(LARGE);
+        return histogram.percentile(0.5);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.CREMIx.misc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Timers fire on the first tick at or after their deadline, never before it, whether the wheel is
+ * advanced tick by tick or after falling behind by a whole turn.
+ */
+class TimingWheelTests {
+
+    private static final int WHEEL_SIZE = 4;
+    private static final long TICK = 10;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(WHEEL_SIZE, TICK, 0);
+
+    @Test
+    void roundsDeadlineUpToTheNextTick() {
+        wheel.schedule("timer", 15);
+
+        assertThat(wheel.advance(15)).isEmpty();
+        assertThat(wheel.advance(19)).isEmpty();
+        assertThat(wheel.advance(20)).containsExactly("timer");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlineOnATickFiresOnThatTick() {
+        wheel.schedule("timer", 20);
+
+        assertThat(wheel.advance(19)).isEmpty();
+        assertThat(wheel.advance(20)).containsExactly("timer");
+    }
+
+    @Test
+    void pastDeadlineFiresOnTheNextAdvance() {
+        wheel.advance(50);
+        wheel.schedule("overdue", 5);
+
+        assertThat(wheel.advance(50)).isEmpty();
+        assertThat(wheel.advance(60)).containsExactly("overdue");
+    }
+
+    @Test
+    void keepsTimersDueOnALaterTurn() {
+        // Same bucket as tick 1, two turns later
+        wheel.schedule("later", TICK * (1 + 2 * WHEEL_SIZE));
+
+        assertThat(wheel.advance(TICK)).isEmpty();
+        assertThat(wheel.advance(TICK * (2 * WHEEL_SIZE))).isEmpty();
+        assertThat(wheel.advance(TICK * (1 + 2 * WHEEL_SIZE))).containsExactly("later");
+    }
+
+    @Test
+    void catchesUpAfterFallingAWholeTurnBehind() {
+        wheel.schedule("first", 25);
+        wheel.schedule("second", 35);
+        wheel.schedule("distant", 1000);
+
+        // Seven ticks late on a four bucket wheel
+        assertThat(wheel.advance(70)).containsExactlyInAnyOrder("first", "second");
+        assertThat(wheel.size()).isOne();
+
+        // The sweep leaves the wheel at the following tick
+        wheel.schedule("next", 75);
+        assertThat(wheel.advance(79)).isEmpty();
+        assertThat(wheel.advance(80)).containsExactly("next");
+
+        assertThat(wheel.advance(999)).isEmpty();
+        assertThat(wheel.advance(1000)).containsExactly("distant");
+    }
+
+    @Test
+    void rescheduleReplacesAndCancelRemoves() {
+        wheel.schedule("timer", 20);
+        wheel.schedule("timer", 40);
+        assertThat(wheel.size()).isOne();
+        assertThat(wheel.advance(30)).isEmpty();
+
+        assertThat(wheel.cancel("timer")).isTrue();
+        assertThat(wheel.cancel("timer")).isFalse();
+        assertThat(wheel.advance(40)).isEmpty();
+    }
+
+    @Test
+    void rejectsEmptyWheel() {
+        assertThatThrownBy(() -> new TimingWheel<String>(0, TICK, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimingWheel<String>(WHEEL_SIZE, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
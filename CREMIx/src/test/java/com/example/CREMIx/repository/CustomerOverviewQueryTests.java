@@ -0,0 +1,218 @@
+package com.example.CREMIx.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.CREMIx.dto.CallLogDTO;
+import com.example.CREMIx.dto.InvoiceDTO;
+import com.example.CREMIx.dto.NoteDTO;
+import com.example.CREMIx.dto.QuotationDTO;
+import com.example.CREMIx.dto.TicketDTO;
+import com.example.CREMIx.misc.Location;
+import com.example.CREMIx.model.CallLog;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Invoice;
+import com.example.CREMIx.model.Note;
+import com.example.CREMIx.model.Product;
+import com.example.CREMIx.model.QItem;
+import com.example.CREMIx.model.Quotation;
+import com.example.CREMIx.model.Ticket;
+
+/**
+ * The customer overview section queries select flat columns, so each runs exactly one statement
+ * however many rows it returns; quotation items come in one more statement for the whole page.
+ * Runs against an in-memory H2 database.
+ */
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    // Statistics also log a metrics summary per session
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class CustomerOverviewQueryTests {
+
+    private static final int ROWS = 20;
+    private static final int ITEMS_PER_QUOTATION = 3;
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private QuotationRepository quotationRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private CallLogRepository callLogRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    private Statistics statistics;
+
+    private Long customerId;
+
+    @BeforeEach
+    void seed() {
+        Customer customer = new Customer();
+        customer.setName("Customer");
+        customer.setEmail("customer@example.com");
+        customerId = entityManager.persist(customer).getId();
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Employee employee = new Employee();
+            employee.setName("Employee " + i);
+            employee.setEmail("employee" + i + "@example.com");
+            employees.add(entityManager.persist(employee));
+        }
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_QUOTATION; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(100.0);
+            product.setCategory("Category");
+            product.setStatus("ACTIVE");
+            products.add(entityManager.persist(product));
+        }
+
+        for (int i = 0; i < ROWS; i++) {
+            Employee employee = employees.get(i);
+
+            Quotation quotation = new Quotation();
+            quotation.setTitle("Quotation " + i);
+            quotation.setCustomer(customer);
+            for (Product product : products) {
+                QItem item = new QItem();
+                item.setProduct(product);
+                item.setQuotation(quotation);
+                quotation.getItems().add(item);
+            }
+            entityManager.persist(quotation);
+
+            Invoice invoice = new Invoice();
+            invoice.setInvoiceNumber("INV-" + i);
+            invoice.setCustomer(customer);
+            invoice.setEmployee(employee);
+            // Every other invoice was raised without a quotation
+            invoice.setQuotation(i % 2 == 0 ? quotation : null);
+            entityManager.persist(invoice);
+
+            Ticket ticket = new Ticket();
+            ticket.setSubject("Ticket " + i);
+            ticket.setCustomer(customer);
+            ticket.setEmployee(employee);
+            entityManager.persist(ticket);
+
+            CallLog callLog = new CallLog();
+            callLog.setTitle("Call " + i);
+            callLog.setDescription("Call " + i);
+            callLog.setDateTime(LocalDateTime.now().minusHours(i));
+            callLog.setCustomer(customer);
+            callLog.setEmployee(employee);
+            entityManager.persist(callLog);
+
+            Note note = new Note();
+            note.setTitle("Note " + i);
+            note.setDescription("Note " + i);
+            note.setLocation(Location.CUSTOMER);
+            note.setLocationId(customerId);
+            entityManager.persist(note);
+        }
+        entityManager.flush();
+        // Nothing the queries return may come from the persistence context
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void quotationsRunOneStatement() {
+        List<QuotationDTO> quotations = quotationRepository.findRecentByCustomerId(customerId, PAGE);
+
+        assertThat(quotations).hasSize(10);
+        assertThat(quotations).allSatisfy(quotation -> assertThat(quotation.getTitle()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void itemsOfAPageRunOneStatement() {
+        List<Long> quotationIds = quotationRepository.findRecentByCustomerId(customerId, PAGE).stream()
+                .map(QuotationDTO::getId)
+                .toList();
+        statistics.clear();
+
+        List<QItem> items = quotationRepository.findItemsByQuotationIdIn(quotationIds);
+
+        assertThat(items).hasSize(10 * ITEMS_PER_QUOTATION);
+        assertThat(items).allSatisfy(item -> assertThat(item.getProduct().getName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invoicesRunOneStatement() {
+        List<InvoiceDTO> invoices = invoiceRepository.findRecentByCustomerId(customerId, PAGE);
+
+        assertThat(invoices).hasSize(10);
+        assertThat(invoices).allSatisfy(invoice -> {
+            assertThat(invoice.getEmployeeName()).isNotNull();
+            assertThat(invoice.getTitle()).isEqualTo(invoice.getQuotationId() != null
+                    ? "Quotation " + invoice.getInvoiceNumber().substring("INV-".length())
+                    : "Invoice");
+        });
+        assertThat(invoices).anySatisfy(invoice -> assertThat(invoice.getQuotationId()).isNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void ticketsRunOneStatement() {
+        List<TicketDTO> tickets = ticketRepository.findRecentByCustomerId(customerId, PAGE);
+
+        assertThat(tickets).hasSize(10);
+        assertThat(tickets).allSatisfy(ticket -> {
+            assertThat(ticket.getCustomerName()).isEqualTo("Customer");
+            assertThat(ticket.getEmployeeName()).isNotNull();
+            assertThat(ticket.getStatus()).isEqualTo("NEW");
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void callLogsRunOneStatement() {
+        List<CallLogDTO> callLogs = callLogRepository.findRecentByCustomerId(customerId, PAGE);
+
+        assertThat(callLogs).hasSize(10);
+        assertThat(callLogs.get(0).getTitle()).isEqualTo("Call 0");
+        assertThat(callLogs).allSatisfy(callLog -> assertThat(callLog.getEmployeeEmail()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void notesRunOneStatement() {
+        List<NoteDTO> notes = noteRepository.findRecentByCustomerId(customerId, PAGE);
+
+        assertThat(notes).hasSize(10);
+        assertThat(notes).allSatisfy(note -> assertThat(note.getLocation()).isEqualTo("CUSTOMER"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.CREMIx.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.CREMIx.dto.LeadDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Lead;
+
+/**
+ * The lead detail queries project customer and employee columns in one join, so each runs exactly
+ * one statement however many leads it returns. Runs against an in-memory H2 database.
+ */
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    // Statistics also log a metrics summary per session
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class LeadRepositoryTests {
+
+    private static final int LEADS = 10_000;
+    private static final int CUSTOMERS = 200;
+    private static final int EMPLOYEES = 20;
+
+    // Every tenth lead is in the recycle bin
+    private static final int DELETED_EVERY = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    private Statistics statistics;
+
+    private final List<Long> customerIds = new ArrayList<>();
+    private final List<Long> leadIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = new Customer();
+            customer.setName("Customer " + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setCity("City " + i % 10);
+            customers.add(entityManager.persist(customer));
+            customerIds.add(customer.getId());
+        }
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            Employee employee = new Employee();
+            employee.setName("Employee " + i);
+            employees.add(entityManager.persist(employee));
+        }
+        for (int i = 0; i < LEADS; i++) {
+            Lead lead = new Lead();
+            lead.setRequirement("Requirement " + i);
+            lead.setExpectedRevenue(1000.0 * (i % 50));
+            lead.setProbability(i % 101);
+            lead.setStatus(i % DELETED_EVERY == 0 ? ActivityStatus.DELETED : ActivityStatus.ACTIVE);
+            lead.setCustomer(customers.get(i % CUSTOMERS));
+            lead.setEmployee(employees.get(i % EMPLOYEES));
+            leadIds.add(entityManager.persist(lead).getId());
+        }
+        entityManager.flush();
+        // Nothing the queries return may come from the persistence context
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllLeadDetailsRunsOneStatement() {
+        List<LeadDTO> leads = leadRepository.getAllLeadDetails();
+
+        assertThat(leads).hasSize(LEADS - LEADS / DELETED_EVERY);
+        assertThat(leads).allSatisfy(lead -> {
+            assertThat(lead.getName()).isNotNull();
+            assertThat(lead.getAssignedTo()).isNotNull();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getLeadDetailsByIdRunsOneStatement() {
+        LeadDTO lead = leadRepository.getLeadDetailsById(leadIds.get(1));
+
+        assertThat(lead.getId()).isEqualTo(leadIds.get(1));
+        assertThat(lead.getName()).isEqualTo("Customer 1");
+        assertThat(lead.getAssignedTo()).isEqualTo("Employee 1");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getDeletedLeadDetailsRunsOneStatement() {
+        List<LeadDTO> leads = leadRepository.getDeletedLeadDetails();
+
+        assertThat(leads).hasSize(LEADS / DELETED_EVERY);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findRecentByCustomerIdRunsOneStatement() {
+        List<LeadDTO> leads = leadRepository.findRecentByCustomerId(customerIds.get(1), PageRequest.of(0, 10));
+
+        assertThat(leads).hasSize(10);
+        assertThat(leads).allSatisfy(lead -> assertThat(lead.getName()).isEqualTo("Customer 1"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
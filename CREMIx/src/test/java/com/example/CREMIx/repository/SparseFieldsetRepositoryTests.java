@@ -0,0 +1,77 @@
+package com.example.CREMIx.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.example.CREMIx.dto.InvoiceDTO;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Invoice;
+import com.example.CREMIx.model.Quotation;
+
+/**
+ * Sparse field selections keep rows whose optional associations are missing and read the field's
+ * fallback for them, matching the full DTOs. Runs against an in-memory H2 database.
+ */
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(SparseFieldsetRepository.class)
+class SparseFieldsetRepositoryTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SparseFieldsetRepository sparseFieldsetRepository;
+
+    @BeforeEach
+    void seed() {
+        Customer customer = new Customer();
+        customer.setName("Customer");
+        customer.setEmail("customer@example.com");
+        entityManager.persist(customer);
+
+        Employee employee = new Employee();
+        employee.setName("Employee");
+        employee.setEmail("employee@example.com");
+        entityManager.persist(employee);
+
+        Quotation quotation = new Quotation();
+        quotation.setTitle("Quotation");
+        quotation.setCustomer(customer);
+        entityManager.persist(quotation);
+
+        for (int i = 0; i < 2; i++) {
+            Invoice invoice = new Invoice();
+            invoice.setInvoiceNumber("INV-" + i);
+            invoice.setCustomer(customer);
+            invoice.setEmployee(employee);
+            // The second invoice was raised without a quotation
+            invoice.setQuotation(i == 0 ? quotation : null);
+            entityManager.persist(invoice);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void invoiceTitleFallsBackWithoutAQuotation() {
+        List<Map<String, Object>> rows = sparseFieldsetRepository.findFields(Invoice.class, InvoiceDTO.FIELDS,
+                InvoiceDTO.FIELDS.parse("invoiceNumber,title"), Map.of());
+
+        assertThat(rows)
+                .extracting(row -> row.get("invoiceNumber"), row -> row.get("title"))
+                .containsExactly(tuple("INV-0", "Quotation"), tuple("INV-1", "Invoice"));
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.CREMIx.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.CREMIx.dto.InvoiceDTO;
+import com.example.CREMIx.dto.OpportunityDTO;
+import com.example.CREMIx.misc.OptimisticRetry;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.model.Product;
+import com.example.CREMIx.model.QItem;
+import com.example.CREMIx.model.Quotation;
+import com.example.CREMIx.repository.SparseFieldsetRepository;
+import com.example.CREMIx.service.impl.InvoiceServiceImpl;
+
+/**
+ * Statements each opportunity endpoint may run, whatever the number of opportunities.
+ * The opportunity associations are all lazy and every read goes through one of the Opportunity
+ * entity graphs; touching an association the graph leaves out shows up here as extra statements.
+ * Each call starts from an empty persistence context, as a request does.
+ */
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    // Statistics also log a metrics summary per session
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@Import({ OpportunityService.class, InvoiceServiceImpl.class, OptimisticRetry.class })
+class OpportunityQueryBudgetTests {
+
+    private static final int OPPORTUNITIES = 500;
+    private static final int CUSTOMERS = 50;
+    private static final int EMPLOYEES = 10;
+    private static final int ITEMS_PER_QUOTATION = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OpportunityService opportunityService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @MockitoBean
+    private IdentityResolver identityResolver;
+
+    @MockitoBean
+    private SparseFieldsetRepository sparseFieldsetRepository;
+
+    private Statistics statistics;
+
+    private Employee employee;
+    private Opportunity opportunity;
+    private Quotation acceptedQuotation;
+
+    @BeforeEach
+    void seed() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = new Customer();
+            customer.setName("Customer " + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customers.add(entityManager.persist(customer));
+        }
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            Employee seeded = new Employee();
+            seeded.setName("Employee " + i);
+            employees.add(entityManager.persist(seeded));
+        }
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_QUOTATION; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(100.0 * (i + 1));
+            product.setCategory("Category");
+            product.setStatus("ACTIVE");
+            products.add(entityManager.persist(product));
+        }
+
+        Opportunity.Stage[] stages = Opportunity.Stage.values();
+        for (int i = 0; i < OPPORTUNITIES; i++) {
+            Customer customer = customers.get(i % CUSTOMERS);
+            Employee owner = employees.get(i % EMPLOYEES);
+
+            Lead lead = new Lead();
+            lead.setRequirement("Requirement " + i);
+            lead.setCustomer(customer);
+            lead.setEmployee(owner);
+
+            Quotation quotation = new Quotation();
+            quotation.setTitle("Quotation " + i);
+            quotation.setCustomer(customer);
+            quotation.setStage(Quotation.Stage.ACCEPTED);
+            for (Product product : products) {
+                QItem item = new QItem();
+                item.setProduct(product);
+                item.setQuantity(2);
+                item.setQuotation(quotation);
+                quotation.getItems().add(item);
+            }
+
+            Opportunity seeded = new Opportunity();
+            seeded.setStage(stages[i % stages.length]);
+            seeded.setLead(lead);
+            seeded.setQuotation(quotation);
+            seeded.setCustomer(customer);
+            seeded.setEmployee(owner);
+            entityManager.persist(seeded);
+
+            if (i == 0) {
+                employee = owner;
+                opportunity = seeded;
+                acceptedQuotation = quotation;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listStaysWithinBudget() {
+        // Collection ETag, then the list graph
+        List<OpportunityDTO> opportunities = withinBudget(2, () -> {
+            opportunityService.getOpportunitiesETag();
+            return opportunityService.getAllActiveOpportunities();
+        });
+
+        assertThat(opportunities).hasSize(OPPORTUNITIES);
+        assertThat(opportunities).allSatisfy(dto -> {
+            assertThat(dto.getLead().getName()).isNotNull();
+            assertThat(dto.getLead().getAssignedTo()).isNotNull();
+            assertThat(dto.getQuotationId()).isNotNull();
+        });
+    }
+
+    @Test
+    void byStageStaysWithinBudget() {
+        List<OpportunityDTO> opportunities = withinBudget(1,
+                () -> opportunityService.getOpportunitiesByStage(Opportunity.Stage.NEW));
+
+        assertThat(opportunities).hasSize(OPPORTUNITIES / Opportunity.Stage.values().length);
+    }
+
+    @Test
+    void byEmployeeStaysWithinBudget() {
+        List<OpportunityDTO> opportunities = withinBudget(1,
+                () -> opportunityService.getOpportunitiesByEmployeeId(employee.getId()));
+
+        assertThat(opportunities).hasSize(OPPORTUNITIES / EMPLOYEES);
+    }
+
+    @Test
+    void detailStaysWithinBudget() {
+        // Version tag for the ETag, then the detail graph
+        OpportunityDTO detail = withinBudget(2, () -> {
+            opportunityService.getOpportunityETag(opportunity.getId());
+            return opportunityService.getOpportunityById(opportunity.getId());
+        });
+
+        assertThat(detail.getId()).isEqualTo(opportunity.getId());
+        assertThat(detail.getLead().getName()).isEqualTo("Customer 0");
+    }
+
+    @Test
+    void invoiceGenerationStaysWithinBudget() {
+        // Reads: quotation, opportunity through the invoice graph, invoice number check, items with
+        // their products. Writes: the invoice, the quotation stage and the customer type.
+        InvoiceDTO invoice = withinBudget(7, () -> {
+            InvoiceDTO generated = invoiceService.generateInvoiceFromQuotation(acceptedQuotation.getId());
+            entityManager.flush();
+            return generated;
+        });
+
+        assertThat(invoice.getCustomerName()).isEqualTo("Customer 0");
+        assertThat(invoice.getItems()).hasSize(ITEMS_PER_QUOTATION);
+    }
+
+    /**
+     * Run one endpoint's work from an empty persistence context and fail if it prepares more
+     * statements than its budget
+     */
+    private <T> T withinBudget(long budget, Supplier<T> endpoint) {
+        entityManager.clear();
+        statistics.clear();
+        T result = endpoint.get();
+        assertThat(statistics.getPrepareStatementCount())
+                .as("statements prepared")
+                .isLessThanOrEqualTo(budget);
+        return result;
+    }
+}
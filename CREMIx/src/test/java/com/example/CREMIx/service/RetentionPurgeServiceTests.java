@@ -0,0 +1,193 @@
+package com.example.CREMIx.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.CREMIx.dto.RetentionPurgeReportDTO;
+import com.example.CREMIx.misc.ActivityStatus;
+import com.example.CREMIx.model.Customer;
+import com.example.CREMIx.model.Employee;
+import com.example.CREMIx.model.Invoice;
+import com.example.CREMIx.model.Lead;
+import com.example.CREMIx.model.Opportunity;
+import com.example.CREMIx.model.Ticket;
+
+/**
+ * The purge is irreversible, so these pin down what it must keep: anything still inside the
+ * retention period, and customers whose tickets or invoices are still open.
+ */
+@DataJpaTest(showSql = false, properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "retention.deleted-days=30"
+})
+@Import(RetentionPurgeService.class)
+class RetentionPurgeServiceTests {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.now().minusDays(60);
+    private static final LocalDateTime YESTERDAY = LocalDateTime.now().minusDays(1);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RetentionPurgeService retentionPurgeService;
+
+    private int sequence;
+
+    @Test
+    void purgesCustomerWhoseRecordsAreAllPastRetention() {
+        Employee employee = employee();
+        Customer customer = customer(ActivityStatus.DELETED, LONG_AGO);
+        Lead lead = lead(customer, employee, ActivityStatus.DELETED, LONG_AGO);
+        Opportunity opportunity = opportunity(lead, ActivityStatus.DELETED, LONG_AGO);
+        Ticket ticket = ticket(customer, Ticket.TicketStatus.CLOSED);
+
+        purge();
+
+        assertThat(exists("customer", customer.getId())).isFalse();
+        assertThat(exists("leads", lead.getId())).isFalse();
+        assertThat(exists("opportunity", opportunity.getId())).isFalse();
+        assertThat(exists("ticket", ticket.getId())).isFalse();
+    }
+
+    @Test
+    void keepsCustomerWithLeadDeletedWithinRetention() {
+        Employee employee = employee();
+        Customer customer = customer(ActivityStatus.DELETED, LONG_AGO);
+        Lead lead = lead(customer, employee, ActivityStatus.DELETED, YESTERDAY);
+
+        purge();
+
+        assertThat(exists("customer", customer.getId())).isTrue();
+        assertThat(exists("leads", lead.getId())).isTrue();
+    }
+
+    @Test
+    void keepsCustomerWithOpportunityDeletedWithinRetention() {
+        Employee employee = employee();
+        Customer customer = customer(ActivityStatus.DELETED, LONG_AGO);
+        Lead lead = lead(customer, employee, ActivityStatus.DELETED, LONG_AGO);
+        Opportunity opportunity = opportunity(lead, ActivityStatus.DELETED, YESTERDAY);
+
+        purge();
+
+        assertThat(exists("customer", customer.getId())).isTrue();
+        assertThat(exists("leads", lead.getId())).isTrue();
+        assertThat(exists("opportunity", opportunity.getId())).isTrue();
+    }
+
+    @Test
+    void keepsCustomerWithOpenTicket() {
+        Customer customer = customer(ActivityStatus.DELETED, LONG_AGO);
+        Ticket ticket = ticket(customer, Ticket.TicketStatus.IN_PROGRESS);
+
+        purge();
+
+        assertThat(exists("customer", customer.getId())).isTrue();
+        assertThat(exists("ticket", ticket.getId())).isTrue();
+    }
+
+    @Test
+    void keepsCustomerWithOpenInvoice() {
+        Employee employee = employee();
+        Customer customer = customer(ActivityStatus.DELETED, LONG_AGO);
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-" + sequence++);
+        invoice.setCustomer(customer);
+        invoice.setEmployee(employee);
+        entityManager.persist(invoice);
+
+        purge();
+
+        assertThat(exists("customer", customer.getId())).isTrue();
+        assertThat(exists("invoice", invoice.getId())).isTrue();
+    }
+
+    @Test
+    void purgesOnlyLeadsPastRetention() {
+        Employee employee = employee();
+        Customer customer = customer(ActivityStatus.ACTIVE, YESTERDAY);
+        Lead expired = lead(customer, employee, ActivityStatus.DELETED, LONG_AGO);
+        Lead recent = lead(customer, employee, ActivityStatus.DELETED, YESTERDAY);
+
+        purge();
+
+        assertThat(exists("leads", expired.getId())).isFalse();
+        assertThat(exists("leads", recent.getId())).isTrue();
+        assertThat(exists("customer", customer.getId())).isTrue();
+    }
+
+    private void purge() {
+        entityManager.flush();
+        entityManager.clear();
+        RetentionPurgeReportDTO report = retentionPurgeService.purge().orElseThrow();
+        assertThat(report.getError()).isNull();
+    }
+
+    private boolean exists(String table, Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Long.class, id) > 0;
+    }
+
+    // Soft deletes set updated_at, which the timestamp annotations would otherwise set to now
+    private void backdate(String table, Long id, LocalDateTime updatedAt) {
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE " + table + " SET updated_at = ? WHERE id = ?", updatedAt, id);
+    }
+
+    private Employee employee() {
+        Employee employee = new Employee();
+        employee.setName("Employee " + sequence++);
+        return entityManager.persist(employee);
+    }
+
+    private Customer customer(ActivityStatus status, LocalDateTime updatedAt) {
+        Customer customer = new Customer();
+        customer.setName("Customer " + sequence);
+        customer.setEmail("customer" + sequence++ + "@example.com");
+        customer.setStatus(status);
+        entityManager.persist(customer);
+        backdate("customer", customer.getId(), updatedAt);
+        return customer;
+    }
+
+    private Lead lead(Customer customer, Employee employee, ActivityStatus status, LocalDateTime updatedAt) {
+        Lead lead = new Lead();
+        lead.setRequirement("Requirement " + sequence++);
+        lead.setCustomer(customer);
+        lead.setEmployee(employee);
+        lead.setStatus(status);
+        entityManager.persist(lead);
+        backdate("leads", lead.getId(), updatedAt);
+        return lead;
+    }
+
+    private Opportunity opportunity(Lead lead, ActivityStatus status, LocalDateTime updatedAt) {
+        Opportunity opportunity = new Opportunity();
+        opportunity.setLead(lead);
+        opportunity.setCustomer(lead.getCustomer());
+        opportunity.setEmployee(lead.getEmployee());
+        opportunity.setStatus(status);
+        entityManager.persist(opportunity);
+        backdate("opportunity", opportunity.getId(), updatedAt);
+        return opportunity;
+    }
+
+    private Ticket ticket(Customer customer, Ticket.TicketStatus status) {
+        Ticket ticket = new Ticket();
+        ticket.setSubject("Ticket " + sequence++);
+        ticket.setCustomer(customer);
+        ticket.setStatus(status);
+        return entityManager.persist(ticket);
+    }
+}